@@ -0,0 +1,127 @@
+package com.github.fanlychie.excelutils.annotation;
+
+import com.github.fanlychie.excelutils.spec.Aggregate;
+import com.github.fanlychie.excelutils.spec.Align;
+import com.github.fanlychie.excelutils.spec.Format;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 生成的单元格映射器的基类
+ *
+ * @author fanlychie
+ */
+public abstract class AbstractCellMapper<T> implements CellMapper<T> {
+
+    private final List<CellField> cellFields;
+
+    /**
+     * @param cellFields 按索引排序的单元格字段
+     */
+    protected AbstractCellMapper(CellField... cellFields) {
+        this.cellFields = Collections.unmodifiableList(Arrays.asList(cellFields));
+    }
+
+    @Override
+    public List<CellField> getCellFields() {
+        return cellFields;
+    }
+
+    /**
+     * 构建单元格字段
+     *
+     * @param index  单元格索引
+     * @param name   单元格标题
+     * @param format 数据格式, 为空时使用字段类型的默认格式
+     * @param align  对齐方式
+     * @param field  字段名称
+     * @param type   字段类型
+     * @return 返回 {@link CellField}
+     */
+    protected static CellField cellField(int index, String name, String format, Align align, String field, Class<?> type) {
+        return cellField(index, name, format, align, Aggregate.NONE, field, type);
+    }
+
+    /**
+     * 构建单元格字段
+     *
+     * @param index  单元格索引
+     * @param name   单元格标题
+     * @param format 数据格式, 为空时使用字段类型的默认格式
+     * @param align  对齐方式
+     * @param footer 脚部行的聚合方式
+     * @param field  字段名称
+     * @param type   字段类型
+     * @return 返回 {@link CellField}
+     */
+    protected static CellField cellField(int index, String name, String format, Align align, Aggregate footer,
+                                         String field, Class<?> type) {
+        CellField cellField = new CellField();
+        cellField.setIndex(index);
+        cellField.setName(name);
+        cellField.setFormat(!format.isEmpty() ? format : Format.getDefault(type));
+        cellField.setAlign(align);
+        cellField.setFooter(footer);
+        cellField.setField(field);
+        cellField.setType(type);
+        return cellField;
+    }
+
+    /**
+     * 通过无法直接访问的无参构造器创建实例
+     *
+     * @param type 类
+     * @param <T>  类型
+     * @return 返回实例
+     */
+    protected static <T> T instantiate(Class<T> type) {
+        try {
+            Constructor<T> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor.newInstance();
+        } catch (Exception e) {
+            throw new IllegalStateException("can not create " + type, e);
+        }
+    }
+
+    /**
+     * 查找无法直接访问的字段
+     *
+     * @param type 类
+     * @param name 字段名称
+     * @return 返回 {@link Field}
+     */
+    protected static Field field(Class<?> type, String name) {
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            try {
+                Field field = c.getDeclaredField(name);
+                field.setAccessible(true);
+                return field;
+            } catch (NoSuchFieldException e) {
+                // 查找父类
+            }
+        }
+        throw new IllegalStateException("can not found field " + name + " in " + type);
+    }
+
+    protected static Object get(Field field, Object item) {
+        try {
+            return field.get(item);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    protected static void set(Field field, Object item, Object value) {
+        try {
+            field.set(item, value);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
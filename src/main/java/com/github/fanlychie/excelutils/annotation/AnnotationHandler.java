@@ -10,7 +10,6 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 注解解析器
@@ -19,9 +18,31 @@ import java.util.concurrent.ConcurrentHashMap;
 public final class AnnotationHandler {
 
     /**
-     * 用于存储Class中@Cell注解字段相关的信息
+     * 生成的单元格映射器的类名后缀
      */
-    private static Map<Class<?>, Map<Integer, CellField>> cellFieldCacheMap = new ConcurrentHashMap<>();
+    public static final String MAPPER_SUFFIX = "$$CellMapper";
+
+    /**
+     * 用于存储Class中@Cell注解字段相关的信息。ClassValue 随 Class 一起回收, 不会阻止类加载器被卸载,
+     * 首次计算无锁, 并发计算时只保留其中一个结果
+     */
+    private static final ClassValue<CellMetadata> cellMetadataCache = new ClassValue<CellMetadata>() {
+        @Override
+        protected CellMetadata computeValue(Class<?> pojoClass) {
+            return new CellMetadata(pojoClass);
+        }
+    };
+
+    /**
+     * 获取单元格映射器, 优先使用编译期生成的映射器
+     *
+     * @param pojoClass 目标类
+     * @param <T>       目标类型
+     * @return 返回 {@link CellMapper}
+     */
+    public static <T> CellMapper<T> getCellMapper(Class<T> pojoClass) {
+        return (CellMapper<T>) cellMetadataCache.get(pojoClass).mapper;
+    }
 
     /**
      * 解析{@link CellField}列表
@@ -30,18 +51,47 @@ public final class AnnotationHandler {
      * @return 返回解析出的数据列表
      */
     public static Map<Integer, CellField> getCellFieldMapping(Class<?> pojoClass) {
-        if (!cellFieldCacheMap.containsKey(pojoClass)) {
-            synchronized (pojoClass) {
-                if (!cellFieldCacheMap.containsKey(pojoClass)) {
-                    Map<Integer, CellField> mapping = new HashMap<>();
-                    for (CellField cellField : parseCellFields(pojoClass)) {
-                        mapping.put(cellField.getIndex(), cellField);
-                    }
-                    cellFieldCacheMap.put(pojoClass, mapping);
-                }
-            }
+        return cellMetadataCache.get(pojoClass).mapping;
+    }
+
+    /**
+     * 按索引排序的{@link CellField}列表(只读)
+     *
+     * @param pojoClass 目标类
+     * @return 返回 List<CellField>
+     */
+    public static List<CellField> getCellFields(Class<?> pojoClass) {
+        return cellMetadataCache.get(pojoClass).mapper.getCellFields();
+    }
+
+    /**
+     * 以单元格索引为下标的{@link CellField}数组, 未映射的列为 null。调用方不能修改该数组
+     *
+     * @param pojoClass 目标类
+     * @return 返回 CellField[]
+     */
+    public static CellField[] getCellFieldArray(Class<?> pojoClass) {
+        return cellMetadataCache.get(pojoClass).array;
+    }
+
+    /**
+     * 加载编译期生成的单元格映射器
+     *
+     * @param pojoClass 目标类
+     * @return 未生成时返回 null
+     */
+    private static CellMapper<?> loadGeneratedMapper(Class<?> pojoClass) {
+        Class<?> mapperClass;
+        try {
+            mapperClass = Class.forName(pojoClass.getName() + MAPPER_SUFFIX, true, pojoClass.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+        try {
+            return (CellMapper<?>) mapperClass.newInstance();
+        } catch (Exception e) {
+            throw new IllegalStateException("can not create " + mapperClass, e);
         }
-        return cellFieldCacheMap.get(pojoClass);
     }
 
     /**
@@ -77,6 +127,7 @@ public final class AnnotationHandler {
             cellField.setName(cell.name());
             cellField.setIndex(cell.index());
             cellField.setAlign(cell.align());
+            cellField.setFooter(cell.footer());
             String format = cell.format();
             cellField.setFormat(format != null && !format.isEmpty() ? format : Format.getDefault(field.getType()));
             cellFields.add(cellField);
@@ -84,6 +135,37 @@ public final class AnnotationHandler {
         return cellFields;
     }
 
+    /**
+     * 类的单元格元数据
+     */
+    private static class CellMetadata {
+
+        final CellMapper<?> mapper;
+
+        final Map<Integer, CellField> mapping;
+
+        final CellField[] array;
+
+        CellMetadata(Class<?> pojoClass) {
+            CellMapper<?> mapper = loadGeneratedMapper(pojoClass);
+            if (mapper == null) {
+                mapper = new ReflectiveCellMapper<>(pojoClass, parseCellFields(pojoClass));
+            }
+            this.mapper = mapper;
+            List<CellField> cellFields = mapper.getCellFields();
+            Map<Integer, CellField> mapping = new HashMap<>();
+            for (CellField cellField : cellFields) {
+                mapping.put(cellField.getIndex(), cellField);
+            }
+            this.mapping = Collections.unmodifiableMap(mapping);
+            this.array = new CellField[cellFields.get(cellFields.size() - 1).getIndex() + 1];
+            for (CellField cellField : cellFields) {
+                array[cellField.getIndex()] = cellField;
+            }
+        }
+
+    }
+
     /**
      * 根据{@link Cell}注解的index排序
      *
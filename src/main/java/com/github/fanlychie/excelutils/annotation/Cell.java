@@ -1,5 +1,6 @@
 package com.github.fanlychie.excelutils.annotation;
 
+import com.github.fanlychie.excelutils.spec.Aggregate;
 import com.github.fanlychie.excelutils.spec.Align;
 
 import java.lang.annotation.Documented;
@@ -45,4 +46,11 @@ public @interface Cell {
      */
     Align align() default Align.LEFT;
 
+    /**
+     * 脚部行的聚合方式{@link Aggregate}, 写出EXCEL文件时在工作表末尾输出该列的聚合值
+     *
+     * @return
+     */
+    Aggregate footer() default Aggregate.NONE;
+
 }
\ No newline at end of file
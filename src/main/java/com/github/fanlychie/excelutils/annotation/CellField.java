@@ -1,6 +1,7 @@
 package com.github.fanlychie.excelutils.annotation;
 
 import lombok.Data;
+import com.github.fanlychie.excelutils.spec.Aggregate;
 import com.github.fanlychie.excelutils.spec.Align;
 
 /**
@@ -38,6 +39,11 @@ public class CellField {
      */
     private Align align;
 
+    /**
+     * 脚部行的聚合方式
+     */
+    private Aggregate footer = Aggregate.NONE;
+
     /**
      * 字段名称
      */
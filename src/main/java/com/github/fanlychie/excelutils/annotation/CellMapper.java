@@ -0,0 +1,46 @@
+package com.github.fanlychie.excelutils.annotation;
+
+import java.util.List;
+
+/**
+ * 单元格映射器, 提供POJO的列定义以及按列索引读写字段的值。由 {@code CellMapperProcessor} 在编译期为标注了
+ * {@link Cell}的类生成(类名为 POJO 的类名加上 {@code $$CellMapper}), 运行时通过{@link AnnotationHandler#getCellMapper}
+ * 自动加载, 未生成时使用反射实现
+ *
+ * @author fanlychie
+ */
+public interface CellMapper<T> {
+
+    /**
+     * 按索引排序的单元格字段列表
+     *
+     * @return 返回 List<CellField>
+     */
+    List<CellField> getCellFields();
+
+    /**
+     * 创建POJO实例
+     *
+     * @return 返回POJO实例
+     */
+    T newInstance();
+
+    /**
+     * 读取列的值
+     *
+     * @param item  POJO实例
+     * @param index 单元格索引
+     * @return 返回字段的值
+     */
+    Object getValue(T item, int index);
+
+    /**
+     * 设置列的值
+     *
+     * @param item  POJO实例
+     * @param index 单元格索引
+     * @param value 字段的值, 类型与字段类型一致
+     */
+    void setValue(T item, int index, Object value);
+
+}
@@ -0,0 +1,56 @@
+package com.github.fanlychie.excelutils.annotation;
+
+import com.github.fanlychie.beanutils.BeanUtils;
+import com.github.fanlychie.beanutils.operator.ConstructorOperator;
+import com.github.fanlychie.beanutils.operator.FieldOperator;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于反射的单元格映射器, 没有编译期生成的映射器时使用
+ *
+ * @author fanlychie
+ */
+class ReflectiveCellMapper<T> implements CellMapper<T> {
+
+    private final List<CellField> cellFields;
+
+    private final Map<Integer, String> fieldNames = new HashMap<>();
+
+    private final FieldOperator fieldOperator;
+
+    private final ConstructorOperator constructorOperator;
+
+    ReflectiveCellMapper(Class<T> pojoClass, List<CellField> cellFields) {
+        this.cellFields = Collections.unmodifiableList(cellFields);
+        for (CellField cellField : cellFields) {
+            fieldNames.put(cellField.getIndex(), cellField.getField());
+        }
+        this.fieldOperator = BeanUtils.fieldOperate(pojoClass);
+        this.constructorOperator = BeanUtils.constructorOperate(pojoClass);
+    }
+
+    @Override
+    public List<CellField> getCellFields() {
+        return cellFields;
+    }
+
+    @Override
+    public T newInstance() {
+        return (T) constructorOperator.invokeConstructor();
+    }
+
+    @Override
+    public Object getValue(T item, int index) {
+        return fieldOperator.getValueByFieldName(item, fieldNames.get(index));
+    }
+
+    @Override
+    public void setValue(T item, int index, Object value) {
+        fieldOperator.setValueByFieldName(item, fieldNames.get(index), value);
+    }
+
+}
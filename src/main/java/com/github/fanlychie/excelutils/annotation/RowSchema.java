@@ -0,0 +1,107 @@
+package com.github.fanlychie.excelutils.annotation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 行结构, 以编程的方式定义列(单元格索引、标题、类型、格式、对齐方式), 代替标注了{@link Cell}的POJO类,
+ * 用于列在运行时才确定的动态报表。由{@link RowSchemaBuilder}构建
+ * <p>
+ * 行数据可以是 Object[] 或 Map&lt;String, Object&gt;: Object[] 以单元格索引为下标, Map 以列的键为键。
+ * 写出时两种行可以混用; 读取时默认得到 Object[], {@link RowSchemaBuilder#mapRows()}时得到 LinkedHashMap。
+ * 写出的值应与列的类型一致(数值列可以是任意的 Number)
+ *
+ * @author fanlychie
+ */
+public final class RowSchema implements CellMapper<Object> {
+
+    /**
+     * 按索引排序的单元格字段
+     */
+    private final List<CellField> cellFields;
+
+    /**
+     * 以单元格索引为下标的单元格字段
+     */
+    private final CellField[] cellFieldArray;
+
+    /**
+     * 读取时是否创建 Map 行
+     */
+    private final boolean mapRows;
+
+    RowSchema(List<CellField> cellFields, boolean mapRows) {
+        this.cellFields = Collections.unmodifiableList(new ArrayList<>(cellFields));
+        this.cellFieldArray = new CellField[cellFields.get(cellFields.size() - 1).getIndex() + 1];
+        for (CellField cellField : cellFields) {
+            cellFieldArray[cellField.getIndex()] = cellField;
+        }
+        this.mapRows = mapRows;
+    }
+
+    @Override
+    public List<CellField> getCellFields() {
+        return cellFields;
+    }
+
+    /**
+     * 以单元格索引为下标的{@link CellField}数组, 未定义的列为 null。调用方不能修改该数组
+     *
+     * @return 返回 CellField[]
+     */
+    public CellField[] getCellFieldArray() {
+        return cellFieldArray;
+    }
+
+    @Override
+    public Object newInstance() {
+        if (mapRows) {
+            return new LinkedHashMap<String, Object>(cellFields.size() * 4 / 3 + 1);
+        }
+        return new Object[cellFieldArray.length];
+    }
+
+    @Override
+    public Object getValue(Object item, int index) {
+        if (item instanceof Object[]) {
+            Object[] row = (Object[]) item;
+            return index < row.length ? row[index] : null;
+        }
+        if (item instanceof Map) {
+            return ((Map<?, ?>) item).get(cellFieldArray[index].getField());
+        }
+        throw new IllegalArgumentException("row must be Object[] or Map: " + item.getClass().getName());
+    }
+
+    @Override
+    public void setValue(Object item, int index, Object value) {
+        if (item instanceof Object[]) {
+            ((Object[]) item)[index] = value;
+        } else {
+            // 只有 newInstance 创建的行会被写入值, 即 Map<String, Object>
+            @SuppressWarnings("unchecked")
+            Map<String, Object> row = (Map<String, Object>) item;
+            row.put(cellFieldArray[index].getField(), value);
+        }
+    }
+
+    /**
+     * 列的定义, 如 [0:name:java.lang.String, 1:age:java.lang.Integer]
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (CellField cellField : cellFields) {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(cellField.getIndex()).append(':').append(cellField.getField()).append(':')
+                    .append(cellField.getType().getName());
+        }
+        return builder.append(']').toString();
+    }
+
+}
@@ -0,0 +1,169 @@
+package com.github.fanlychie.excelutils.annotation;
+
+import com.github.fanlychie.excelutils.spec.Aggregate;
+import com.github.fanlychie.excelutils.spec.Align;
+import com.github.fanlychie.excelutils.spec.Format;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@link RowSchema}构建器
+ * <pre>
+ * RowSchema schema = new RowSchemaBuilder()
+ *         .column(0, "name", String.class)
+ *             .name("姓名")
+ *             .complete()
+ *         .column(1, "age", Integer.class)
+ *             .name("年龄")
+ *             .align(Align.CENTER)
+ *             .complete()
+ *         .build();
+ * </pre>
+ *
+ * @author fanlychie
+ */
+public class RowSchemaBuilder {
+
+    private final List<CellField> cellFields = new ArrayList<>();
+
+    private boolean mapRows;
+
+    /**
+     * 定义一列, 标题默认为列的键, 格式默认为类型的默认格式, 左对齐
+     *
+     * @param index 单元格索引, 从0开始
+     * @param key   列的键, 即 Map 行的键
+     * @param type  值的类型, 与{@link Cell}标注的字段类型相同, 支持字符串、数值、布尔值和日期
+     * @return 返回 {@link ColumnBuilder}
+     */
+    public ColumnBuilder column(int index, String key, Class<?> type) {
+        if (index < 0) {
+            throw new IllegalArgumentException("cell index must not be negative: " + index);
+        }
+        if (key == null || type == null) {
+            throw new NullPointerException("key and type can not be null");
+        }
+        CellField cellField = new CellField();
+        cellField.setIndex(index);
+        cellField.setField(key);
+        cellField.setName(key);
+        cellField.setType(type);
+        cellField.setFormat(Format.getDefault(type));
+        cellField.setAlign(Align.LEFT);
+        cellFields.add(cellField);
+        return new ColumnBuilder(this, cellField);
+    }
+
+    /**
+     * 读取时每一行为 LinkedHashMap(以列的键为键), 默认为 Object[]
+     *
+     * @return 返回 {@link RowSchemaBuilder}
+     */
+    public RowSchemaBuilder mapRows() {
+        this.mapRows = true;
+        return this;
+    }
+
+    /**
+     * 构建 {@link RowSchema}
+     *
+     * @return 返回 {@link RowSchema}
+     */
+    public RowSchema build() {
+        if (cellFields.isEmpty()) {
+            throw new IllegalStateException("row schema must have at least one column");
+        }
+        Set<Integer> indexes = new HashSet<>();
+        Set<String> keys = new HashSet<>();
+        for (CellField cellField : cellFields) {
+            if (!indexes.add(cellField.getIndex())) {
+                throw new IllegalStateException("duplicate cell index: " + cellField.getIndex());
+            }
+            if (!keys.add(cellField.getField())) {
+                throw new IllegalStateException("duplicate column key: " + cellField.getField());
+            }
+        }
+        List<CellField> sorted = new ArrayList<>(cellFields);
+        Collections.sort(sorted, new Comparator<CellField>() {
+            @Override
+            public int compare(CellField cf1, CellField cf2) {
+                int i1 = cf1.getIndex();
+                int i2 = cf2.getIndex();
+                return (i1 < i2) ? -1 : ((i1 == i2) ? 0 : 1);
+            }
+        });
+        return new RowSchema(sorted, mapRows);
+    }
+
+    public static class ColumnBuilder {
+
+        private final RowSchemaBuilder builder;
+
+        private final CellField cellField;
+
+        ColumnBuilder(RowSchemaBuilder builder, CellField cellField) {
+            this.builder = builder;
+            this.cellField = cellField;
+        }
+
+        /**
+         * 设置标题, 用于写出EXCEL文件时的标题行文字
+         *
+         * @param name 标题
+         * @return 返回当前引用
+         */
+        public ColumnBuilder name(String name) {
+            cellField.setName(name);
+            return this;
+        }
+
+        /**
+         * 设置数据格式{@link Format#format}
+         *
+         * @param format 数据格式
+         * @return 返回当前引用
+         */
+        public ColumnBuilder format(String format) {
+            cellField.setFormat(format);
+            return this;
+        }
+
+        /**
+         * 设置对齐方式
+         *
+         * @param align {@link Align}
+         * @return 返回当前引用
+         */
+        public ColumnBuilder align(Align align) {
+            cellField.setAlign(align);
+            return this;
+        }
+
+        /**
+         * 设置脚部行的聚合方式
+         *
+         * @param footer {@link Aggregate}
+         * @return 返回当前引用
+         */
+        public ColumnBuilder footer(Aggregate footer) {
+            cellField.setFooter(footer);
+            return this;
+        }
+
+        /**
+         * 完成配置, 返回上层
+         *
+         * @return 返回 {@link RowSchemaBuilder}
+         */
+        public RowSchemaBuilder complete() {
+            return builder;
+        }
+
+    }
+
+}
@@ -0,0 +1,14 @@
+package com.github.fanlychie.excelutils.exception;
+
+/**
+ * EXCEL读写被取消的异常, 由{@link com.github.fanlychie.excelutils.progress.ExcelProgress#cancel()}触发
+ *
+ * @author fanlychie
+ */
+public class ExcelCancelledException extends RuntimeException {
+
+    public ExcelCancelledException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,296 @@
+package com.github.fanlychie.excelutils.job;
+
+import com.github.fanlychie.excelutils.exception.ExcelCastException;
+import com.github.fanlychie.excelutils.read.ExcelReaderBuilder;
+import com.github.fanlychie.excelutils.write.ExcelWriterBuilder;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * EXCEL导入导出任务调度器。任务进入队列排队, 按行数和列数估算的堆内存和临时磁盘占用申请全局配额,
+ * 配额充足时才构建{@link com.github.fanlychie.excelutils.write.ExcelWriter}或
+ * {@link com.github.fanlychie.excelutils.read.ExcelReader}并执行, 避免并发突发导致内存溢出。
+ * 任务严格按提交的顺序开始: 只有队首的任务获得配额并且有空闲线程时才交给线程池, 线程池的线程不会阻塞等待配额
+ *
+ * @author fanlychie
+ */
+public class ExcelJobScheduler {
+
+    /**
+     * 每个任务固定的堆内存开销(工作薄、样式表、解析器等)
+     */
+    static final long BASE_HEAP = 4L << 20;
+
+    /**
+     * SXSSF 内存中保留的行数(窗口大小)
+     */
+    static final int WRITE_WINDOW_ROWS = 100;
+
+    /**
+     * 写出时内存中每个单元格的开销
+     */
+    static final long WRITE_HEAP_PER_CELL = 256;
+
+    /**
+     * 写出时临时文件中每个单元格的开销(未压缩的XML)
+     */
+    static final long WRITE_DISK_PER_CELL = 64;
+
+    /**
+     * 读取时每个单元格的开销(OPCPackage在内存中持有的压缩包数据以及映射出的POJO)
+     */
+    static final long READ_HEAP_PER_CELL = 64;
+
+    /**
+     * 任务执行线程池
+     */
+    private final ExecutorService executor;
+
+    /**
+     * 资源配额
+     */
+    private final ResourceBudget budget;
+
+    /**
+     * 并发执行的线程数
+     */
+    private final int threads;
+
+    /**
+     * 等待配额的任务, 按提交的顺序排列
+     */
+    private final Queue<Job<?>> pending = new ArrayDeque<>();
+
+    /**
+     * 是否已停止接收新任务
+     */
+    private boolean shutdown;
+
+    ExcelJobScheduler(int threads, long heapBudget, long diskBudget, boolean virtualThreads) {
+        this.budget = new ResourceBudget(heapBudget, diskBudget);
+        this.threads = threads;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), createThreadFactory(virtualThreads));
+    }
+
+    /**
+     * 提交导出任务
+     *
+     * @param builder 导出构建器, 在任务获得配额后才调用 build() 创建工作薄
+     * @param rows    预计写出的行数
+     * @param columns 列数
+     * @param job     导出任务
+     * @param <T>     任务结果类型
+     * @return 返回任务结果的 {@link Future}
+     */
+    public <T> Future<T> submitWrite(final ExcelWriterBuilder builder, long rows, int columns, final WriteJob<T> job) {
+        long heap = BASE_HEAP + WRITE_WINDOW_ROWS * columns * WRITE_HEAP_PER_CELL;
+        long disk = rows * columns * WRITE_DISK_PER_CELL;
+        return submit(heap, disk, new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                return job.execute(builder.build());
+            }
+        });
+    }
+
+    /**
+     * 提交导入任务
+     *
+     * @param builder 导入构建器, 在任务获得配额后才调用 build() 打开文件
+     * @param rows    预计读取的行数
+     * @param columns 列数
+     * @param job     导入任务
+     * @param <T>     任务结果类型
+     * @return 返回任务结果的 {@link Future}
+     */
+    public <T> Future<T> submitRead(final ExcelReaderBuilder builder, long rows, int columns, final ReadJob<T> job) {
+        long heap = BASE_HEAP + rows * columns * READ_HEAP_PER_CELL;
+        return submit(heap, 0, new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                return job.execute(builder.build());
+            }
+        });
+    }
+
+    /**
+     * 正在执行的任务数
+     *
+     * @return 返回正在执行的任务数
+     */
+    public int getRunningJobs() {
+        return budget.getRunning();
+    }
+
+    /**
+     * 已分配的堆内存配额(字节)
+     *
+     * @return 返回已分配的堆内存配额
+     */
+    public long getHeapInUse() {
+        return budget.getHeapUsed();
+    }
+
+    /**
+     * 已分配的临时磁盘配额(字节)
+     *
+     * @return 返回已分配的临时磁盘配额
+     */
+    public long getDiskInUse() {
+        return budget.getDiskUsed();
+    }
+
+    /**
+     * 排队等待配额的任务数
+     *
+     * @return 返回排队的任务数
+     */
+    public synchronized int getPendingJobs() {
+        return pending.size();
+    }
+
+    /**
+     * 不再接收新任务, 已提交(包括仍在排队)的任务继续执行
+     */
+    public synchronized void shutdown() {
+        shutdown = true;
+        if (pending.isEmpty()) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 等待所有已提交的任务执行完成
+     *
+     * @param timeout 超时时间
+     * @param unit    时间单位
+     * @return 全部完成返回 true, 超时返回 false
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+        try {
+            return executor.awaitTermination(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExcelCastException(e);
+        }
+    }
+
+    private synchronized <T> Future<T> submit(long heap, long disk, Callable<T> task) {
+        if (shutdown) {
+            throw new RejectedExecutionException("scheduler has been shut down");
+        }
+        Job<T> job = new Job<>(heap, disk, task);
+        pending.add(job);
+        dispatch();
+        return job;
+    }
+
+    /**
+     * 按提交的顺序放行队首的任务, 直至配额不足或没有空闲线程。队首的任务放不下时后面的任务也不放行, 避免大任务饿死
+     */
+    private synchronized void dispatch() {
+        Job<?> job;
+        while ((job = pending.peek()) != null) {
+            if (job.isDone()) {
+                // 排队时已取消
+                pending.poll();
+                continue;
+            }
+            if (budget.getRunning() >= threads || !budget.tryAcquire(job.heap, job.disk)) {
+                break;
+            }
+            pending.poll();
+            executor.execute(job);
+        }
+        if (shutdown && pending.isEmpty()) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 任务执行完成, 归还配额并放行排队的任务
+     *
+     * @param job 任务
+     */
+    private synchronized void finish(Job<?> job) {
+        budget.release(job.heap, job.disk);
+        dispatch();
+    }
+
+    /**
+     * 排队的任务, 获得配额后交给线程池执行
+     */
+    private class Job<T> extends FutureTask<T> {
+
+        private final long heap;
+
+        private final long disk;
+
+        Job(long heap, long disk, Callable<T> task) {
+            super(task);
+            this.heap = heap;
+            this.disk = disk;
+        }
+
+        @Override
+        public void run() {
+            try {
+                super.run();
+            } finally {
+                finish(this);
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                // 从队列中移除已取消的任务
+                dispatch();
+            }
+            return cancelled;
+        }
+
+    }
+
+    /**
+     * 创建线程工厂, JDK 支持虚拟线程时优先使用虚拟线程
+     *
+     * @param virtualThreads 是否尝试使用虚拟线程
+     * @return 返回 {@link ThreadFactory}
+     */
+    private static ThreadFactory createThreadFactory(boolean virtualThreads) {
+        if (virtualThreads) {
+            try {
+                Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+                builderClass.getMethod("name", String.class, long.class).invoke(builder, "excel-job-", 1L);
+                return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            } catch (Throwable e) {
+                // JDK 不支持(或未开启预览特性), 使用平台线程
+            }
+        }
+        return new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "excel-job-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+}
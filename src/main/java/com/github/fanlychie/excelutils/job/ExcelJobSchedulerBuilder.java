@@ -0,0 +1,86 @@
+package com.github.fanlychie.excelutils.job;
+
+/**
+ * 任务调度器的构建工具, 用于构建一个{@link ExcelJobScheduler}实例
+ *
+ * @author fanlychie
+ */
+public final class ExcelJobSchedulerBuilder {
+
+    /**
+     * 并发执行的线程数
+     */
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 堆内存配额(字节)
+     */
+    private long heapBudget = Runtime.getRuntime().maxMemory() / 2;
+
+    /**
+     * 临时磁盘配额(字节)
+     */
+    private long diskBudget = Long.MAX_VALUE;
+
+    /**
+     * 是否使用虚拟线程
+     */
+    private boolean virtualThreads = true;
+
+    /**
+     * 设置并发执行的线程数
+     *
+     * @param threads 线程数
+     * @return 返回 {@link ExcelJobSchedulerBuilder}
+     */
+    public ExcelJobSchedulerBuilder threads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be greater than 0");
+        }
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * 设置所有任务共享的堆内存配额
+     *
+     * @param bytes 字节数
+     * @return 返回 {@link ExcelJobSchedulerBuilder}
+     */
+    public ExcelJobSchedulerBuilder heapBudget(long bytes) {
+        this.heapBudget = bytes;
+        return this;
+    }
+
+    /**
+     * 设置所有任务共享的临时磁盘配额(SXSSF 临时文件)
+     *
+     * @param bytes 字节数
+     * @return 返回 {@link ExcelJobSchedulerBuilder}
+     */
+    public ExcelJobSchedulerBuilder diskBudget(long bytes) {
+        this.diskBudget = bytes;
+        return this;
+    }
+
+    /**
+     * 设置是否使用虚拟线程, JDK 不支持时使用平台线程
+     *
+     * @param enable 是否使用虚拟线程
+     * @return 返回 {@link ExcelJobSchedulerBuilder}
+     */
+    public ExcelJobSchedulerBuilder virtualThreads(boolean enable) {
+        this.virtualThreads = enable;
+        return this;
+    }
+
+    /**
+     * 构建 {@link ExcelJobScheduler} 实例
+     *
+     * @return 返回 {@link ExcelJobScheduler}
+     */
+    public ExcelJobScheduler build() {
+        return new ExcelJobScheduler(threads, heapBudget, diskBudget, virtualThreads);
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.github.fanlychie.excelutils.job;
+
+import com.github.fanlychie.excelutils.read.ExcelReader;
+
+/**
+ * 导入任务, 由{@link ExcelJobScheduler}在获得资源配额后回调执行
+ *
+ * @author fanlychie
+ */
+public interface ReadJob<T> {
+
+    /**
+     * 执行导入任务
+     *
+     * @param reader 由调度器在任务开始时构建的 {@link ExcelReader}
+     * @return 返回任务的结果
+     * @throws Exception 任务执行失败时抛出
+     */
+    T execute(ExcelReader reader) throws Exception;
+
+}
@@ -0,0 +1,81 @@
+package com.github.fanlychie.excelutils.job;
+
+/**
+ * 资源配额, 记录已分配的堆内存和临时磁盘空间。排队和放行的顺序由{@link ExcelJobScheduler}决定
+ *
+ * @author fanlychie
+ */
+class ResourceBudget {
+
+    /**
+     * 堆内存配额(字节)
+     */
+    private final long heapLimit;
+
+    /**
+     * 临时磁盘配额(字节)
+     */
+    private final long diskLimit;
+
+    /**
+     * 已占用的堆内存(字节)
+     */
+    private long heapUsed;
+
+    /**
+     * 已占用的临时磁盘(字节)
+     */
+    private long diskUsed;
+
+    /**
+     * 正在运行的任务数
+     */
+    private int running;
+
+    ResourceBudget(long heapLimit, long diskLimit) {
+        this.heapLimit = heapLimit;
+        this.diskLimit = diskLimit;
+    }
+
+    /**
+     * 申请配额, 不阻塞。超出总配额的任务在没有其他任务运行时单独放行, 避免永久等待
+     *
+     * @param heap 堆内存(字节)
+     * @param disk 临时磁盘(字节)
+     * @return 配额充足返回 true, 否则返回 false
+     */
+    synchronized boolean tryAcquire(long heap, long disk) {
+        if (running > 0 && (heapUsed + heap > heapLimit || diskUsed + disk > diskLimit)) {
+            return false;
+        }
+        heapUsed += heap;
+        diskUsed += disk;
+        running++;
+        return true;
+    }
+
+    /**
+     * 归还配额
+     *
+     * @param heap 堆内存(字节)
+     * @param disk 临时磁盘(字节)
+     */
+    synchronized void release(long heap, long disk) {
+        heapUsed -= heap;
+        diskUsed -= disk;
+        running--;
+    }
+
+    synchronized long getHeapUsed() {
+        return heapUsed;
+    }
+
+    synchronized long getDiskUsed() {
+        return diskUsed;
+    }
+
+    synchronized int getRunning() {
+        return running;
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.github.fanlychie.excelutils.job;
+
+import com.github.fanlychie.excelutils.write.ExcelWriter;
+
+/**
+ * 导出任务, 由{@link ExcelJobScheduler}在获得资源配额后回调执行
+ *
+ * @author fanlychie
+ */
+public interface WriteJob<T> {
+
+    /**
+     * 执行导出任务
+     *
+     * @param writer 由调度器在任务开始时构建的 {@link ExcelWriter}
+     * @return 返回任务的结果
+     * @throws Exception 任务执行失败时抛出
+     */
+    T execute(ExcelWriter writer) throws Exception;
+
+}
@@ -0,0 +1,19 @@
+package com.github.fanlychie.excelutils.metrics;
+
+/**
+ * 一次计时中的JFR事件, 由{@link FlightEvents#begin(FlightEventType)}开始计时
+ *
+ * @author fanlychie
+ */
+public interface FlightEvent {
+
+    /**
+     * 结束计时并提交事件
+     *
+     * @param name  名称, 如工作表名称, 没有时为 null
+     * @param index 序号, 如工作表索引或页码
+     * @param count 计数, 如行数或字节数
+     */
+    void finish(String name, long index, long count);
+
+}
@@ -0,0 +1,35 @@
+package com.github.fanlychie.excelutils.metrics;
+
+/**
+ * JFR(Java Flight Recorder)事件类型
+ *
+ * @author fanlychie
+ */
+public enum FlightEventType {
+
+    /**
+     * 解析一个工作表(Sheet)
+     */
+    SHEET_READ,
+
+    /**
+     * 处理一页读取的数据({@link com.github.fanlychie.excelutils.read.PagingHandler})
+     */
+    PAGE_HANDLED,
+
+    /**
+     * 查询一页写出的数据({@link com.github.fanlychie.excelutils.write.PagingQuery})
+     */
+    PAGE_QUERIED,
+
+    /**
+     * 创建一个工作表(Sheet)
+     */
+    SHEET_CREATED,
+
+    /**
+     * 输出工作薄
+     */
+    FILE_WRITTEN,
+
+}
@@ -0,0 +1,66 @@
+package com.github.fanlychie.excelutils.metrics;
+
+/**
+ * JFR(Java Flight Recorder)事件入口。运行在 JDK 11+ 且类路径中存在事件实现时才会产生事件,
+ * 并且只有 JFR 正在录制该事件时才计时, 否则返回空事件, 开销只有一次判断
+ *
+ * @author fanlychie
+ */
+public final class FlightEvents {
+
+    /**
+     * 事件实现类, 位于 src/main/jfr, 仅在 JDK 11+ 下编译
+     */
+    private static final String FACTORY_CLASS = "com.github.fanlychie.excelutils.metrics.jfr.JfrFlightEventFactory";
+
+    /**
+     * 空事件
+     */
+    private static final FlightEvent NOOP = new FlightEvent() {
+        @Override
+        public void finish(String name, long index, long count) {}
+    };
+
+    private static final Factory FACTORY = loadFactory();
+
+    private FlightEvents() {}
+
+    /**
+     * 开始一个事件
+     *
+     * @param type 事件类型
+     * @return 返回 {@link FlightEvent}, 未录制时返回空事件
+     */
+    public static FlightEvent begin(FlightEventType type) {
+        if (FACTORY == null) {
+            return NOOP;
+        }
+        FlightEvent event = FACTORY.begin(type);
+        return event == null ? NOOP : event;
+    }
+
+    private static Factory loadFactory() {
+        try {
+            return (Factory) Class.forName(FACTORY_CLASS).newInstance();
+        } catch (Throwable e) {
+            // JDK 不支持 JFR 或未包含事件实现
+            return null;
+        }
+    }
+
+    /**
+     * 事件工厂, 由 JFR 事件实现
+     */
+    public interface Factory {
+
+        /**
+         * 开始一个事件
+         *
+         * @param type 事件类型
+         * @return 返回开始计时的事件, 事件未启用时返回 null
+         */
+        FlightEvent begin(FlightEventType type);
+
+    }
+
+}
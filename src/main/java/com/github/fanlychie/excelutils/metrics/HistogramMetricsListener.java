@@ -0,0 +1,167 @@
+package com.github.fanlychie.excelutils.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 在内存中汇总计数和耗时直方图的度量监听器, 可在多个读写任务间共享
+ *
+ * @author fanlychie
+ */
+public class HistogramMetricsListener implements MetricsListener {
+
+    private final AtomicLong rowsWritten = new AtomicLong();
+
+    private final AtomicLong cellsWritten = new AtomicLong();
+
+    private final AtomicLong bytesWritten = new AtomicLong();
+
+    private final AtomicLong rowsRead = new AtomicLong();
+
+    private final AtomicLong bytesRead = new AtomicLong();
+
+    private final AtomicLong conversionErrors = new AtomicLong();
+
+    /**
+     * 分页查询耗时
+     */
+    private final LatencyHistogram pageQueryLatency = new LatencyHistogram();
+
+    /**
+     * 行转换耗时(每批)
+     */
+    private final LatencyHistogram rowWriteLatency = new LatencyHistogram();
+
+    /**
+     * 刷盘耗时
+     */
+    private final LatencyHistogram flushLatency = new LatencyHistogram();
+
+    /**
+     * 工作薄输出耗时
+     */
+    private final LatencyHistogram workbookWriteLatency = new LatencyHistogram();
+
+    /**
+     * 工作表解析耗时
+     */
+    private final LatencyHistogram sheetParseLatency = new LatencyHistogram();
+
+    /**
+     * 分页处理耗时
+     */
+    private final LatencyHistogram pageHandleLatency = new LatencyHistogram();
+
+    @Override
+    public void pageQueried(int page, int rows, long nanos) {
+        pageQueryLatency.record(nanos);
+    }
+
+    @Override
+    public void rowsWritten(int rows, long cells, long nanos) {
+        rowsWritten.addAndGet(rows);
+        cellsWritten.addAndGet(cells);
+        rowWriteLatency.record(nanos);
+    }
+
+    @Override
+    public void rowsFlushed(int rows, long nanos) {
+        flushLatency.record(nanos);
+    }
+
+    @Override
+    public void workbookWritten(long bytes, long nanos) {
+        bytesWritten.addAndGet(bytes);
+        workbookWriteLatency.record(nanos);
+    }
+
+    @Override
+    public void bytesRead(long bytes) {
+        bytesRead.addAndGet(bytes);
+    }
+
+    @Override
+    public void sheetParsed(int sheetIndex, long rows, long nanos) {
+        rowsRead.addAndGet(rows);
+        sheetParseLatency.record(nanos);
+    }
+
+    @Override
+    public void pageHandled(int rows, long nanos) {
+        pageHandleLatency.record(nanos);
+    }
+
+    @Override
+    public void conversionError(String cellName, Throwable error) {
+        conversionErrors.incrementAndGet();
+    }
+
+    /**
+     * 写出速率, 按行转换、刷盘和输出的累计耗时计算
+     *
+     * @return 返回每秒写出的行数
+     */
+    public double getRowsWrittenPerSecond() {
+        long nanos = rowWriteLatency.getTotalNanos() + flushLatency.getTotalNanos()
+                + workbookWriteLatency.getTotalNanos();
+        return nanos == 0 ? 0 : rowsWritten.get() * 1e9 / nanos;
+    }
+
+    /**
+     * 读取速率, 按工作表解析的累计耗时计算
+     *
+     * @return 返回每秒读取的行数
+     */
+    public double getRowsReadPerSecond() {
+        long nanos = sheetParseLatency.getTotalNanos();
+        return nanos == 0 ? 0 : rowsRead.get() * 1e9 / nanos;
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten.get();
+    }
+
+    public long getCellsWritten() {
+        return cellsWritten.get();
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    public long getRowsRead() {
+        return rowsRead.get();
+    }
+
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    public long getConversionErrors() {
+        return conversionErrors.get();
+    }
+
+    public LatencyHistogram getPageQueryLatency() {
+        return pageQueryLatency;
+    }
+
+    public LatencyHistogram getRowWriteLatency() {
+        return rowWriteLatency;
+    }
+
+    public LatencyHistogram getFlushLatency() {
+        return flushLatency;
+    }
+
+    public LatencyHistogram getWorkbookWriteLatency() {
+        return workbookWriteLatency;
+    }
+
+    public LatencyHistogram getSheetParseLatency() {
+        return sheetParseLatency;
+    }
+
+    public LatencyHistogram getPageHandleLatency() {
+        return pageHandleLatency;
+    }
+
+}
@@ -0,0 +1,103 @@
+package com.github.fanlychie.excelutils.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 耗时直方图, 以2的幂划分桶, 记录一次只需一次位运算和几次原子累加
+ *
+ * @author fanlychie
+ */
+public class LatencyHistogram {
+
+    /**
+     * 桶的数量, 第 i 个桶记录 [2^(i-1), 2^i) 纳秒的样本, 第0个桶记录0纳秒
+     */
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong total = new AtomicLong();
+
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * 记录一个样本
+     *
+     * @param nanos 耗时(纳秒)
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(nanos));
+        count.incrementAndGet();
+        total.addAndGet(nanos);
+        long current;
+        while (nanos > (current = max.get()) && !max.compareAndSet(current, nanos)) {
+            // 重试
+        }
+    }
+
+    /**
+     * 样本数量
+     *
+     * @return 返回样本数量
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * 样本耗时总和(纳秒)
+     *
+     * @return 返回耗时总和
+     */
+    public long getTotalNanos() {
+        return total.get();
+    }
+
+    /**
+     * 最大耗时(纳秒)
+     *
+     * @return 返回最大耗时
+     */
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    /**
+     * 平均耗时(纳秒)
+     *
+     * @return 返回平均耗时, 没有样本时返回0
+     */
+    public double getMeanNanos() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) total.get() / n;
+    }
+
+    /**
+     * 近似的百分位耗时, 返回样本所在桶的上界
+     *
+     * @param percentile 百分位, 取值 (0, 100]
+     * @return 返回近似的百分位耗时(纳秒)
+     */
+    public long getPercentileNanos(double percentile) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(n * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return i == 0 ? 0 : Math.min(max.get(), (1L << i) - 1);
+            }
+        }
+        return max.get();
+    }
+
+}
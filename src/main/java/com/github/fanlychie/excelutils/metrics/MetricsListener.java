@@ -0,0 +1,76 @@
+package com.github.fanlychie.excelutils.metrics;
+
+/**
+ * 度量监听器, 用于观察EXCEL读写过程中各阶段的耗时和计数。回调发生在读写线程上, 实现类应尽量轻量
+ *
+ * @author fanlychie
+ */
+public interface MetricsListener {
+
+    /**
+     * 完成一页分页查询({@link com.github.fanlychie.excelutils.write.PagingQuery})
+     *
+     * @param page  页码
+     * @param rows  查询到的行数
+     * @param nanos 查询耗时(纳秒)
+     */
+    void pageQueried(int page, int rows, long nanos);
+
+    /**
+     * 完成一批数据行的转换写出(不含刷盘)
+     *
+     * @param rows  行数
+     * @param cells 单元格数
+     * @param nanos 耗时(纳秒)
+     */
+    void rowsWritten(int rows, long cells, long nanos);
+
+    /**
+     * 完成一次 SXSSF 临时文件刷盘
+     *
+     * @param rows  刷出的行数
+     * @param nanos 耗时(纳秒)
+     */
+    void rowsFlushed(int rows, long nanos);
+
+    /**
+     * 完成工作薄的输出
+     *
+     * @param bytes 输出的字节数
+     * @param nanos 耗时(纳秒)
+     */
+    void workbookWritten(long bytes, long nanos);
+
+    /**
+     * 读取了EXCEL文件的字节
+     *
+     * @param bytes 字节数
+     */
+    void bytesRead(long bytes);
+
+    /**
+     * 完成一个工作表(Sheet)的解析
+     *
+     * @param sheetIndex 工作表索引, 索引值从1开始
+     * @param rows       解析的行数
+     * @param nanos      耗时(纳秒)
+     */
+    void sheetParsed(int sheetIndex, long rows, long nanos);
+
+    /**
+     * 完成一页数据的处理({@link com.github.fanlychie.excelutils.read.PagingHandler})
+     *
+     * @param rows  行数
+     * @param nanos 耗时(纳秒)
+     */
+    void pageHandled(int rows, long nanos);
+
+    /**
+     * 单元格的值转换失败
+     *
+     * @param cellName 单元格名称, 如 B12
+     * @param error    异常, 校验模式({@link com.github.fanlychie.excelutils.read.ErrorReport})下为 null
+     */
+    void conversionError(String cellName, Throwable error);
+
+}
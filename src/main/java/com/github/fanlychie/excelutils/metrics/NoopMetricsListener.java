@@ -0,0 +1,39 @@
+package com.github.fanlychie.excelutils.metrics;
+
+/**
+ * 空实现的度量监听器, 也可作为适配器只覆盖关心的回调
+ *
+ * @author fanlychie
+ */
+public class NoopMetricsListener implements MetricsListener {
+
+    /**
+     * 共享的空实现实例
+     */
+    public static final MetricsListener INSTANCE = new NoopMetricsListener();
+
+    @Override
+    public void pageQueried(int page, int rows, long nanos) {}
+
+    @Override
+    public void rowsWritten(int rows, long cells, long nanos) {}
+
+    @Override
+    public void rowsFlushed(int rows, long nanos) {}
+
+    @Override
+    public void workbookWritten(long bytes, long nanos) {}
+
+    @Override
+    public void bytesRead(long bytes) {}
+
+    @Override
+    public void sheetParsed(int sheetIndex, long rows, long nanos) {}
+
+    @Override
+    public void pageHandled(int rows, long nanos) {}
+
+    @Override
+    public void conversionError(String cellName, Throwable error) {}
+
+}
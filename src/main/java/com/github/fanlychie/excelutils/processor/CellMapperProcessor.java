@@ -0,0 +1,392 @@
+package com.github.fanlychie.excelutils.processor;
+
+import com.github.fanlychie.excelutils.annotation.AnnotationHandler;
+import com.github.fanlychie.excelutils.annotation.Cell;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 编译期注解处理器, 为每个标注了{@link Cell}的类生成单元格映射器{@code <类名>$$CellMapper},
+ * 映射器直接调用 getter/setter(或直接访问字段)并携带列定义, 运行时由{@link AnnotationHandler#getCellMapper}
+ * 自动加载, 省去反射解析注解和反射读写字段的开销。需要在编译参数中显式启用, 如
+ * {@code -processor com.github.fanlychie.excelutils.processor.CellMapperProcessor}, 与 lombok 一起使用时
+ * 需将 lombok 放在前面
+ *
+ * @author fanlychie
+ */
+@SupportedAnnotationTypes("com.github.fanlychie.excelutils.annotation.Cell")
+public class CellMapperProcessor extends AbstractProcessor {
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<TypeElement> types = new LinkedHashSet<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(Cell.class)) {
+            if (element.getKind() == ElementKind.FIELD) {
+                types.add((TypeElement) element.getEnclosingElement());
+            }
+        }
+        for (TypeElement type : types) {
+            if (!isSupported(type)) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                        "skip generating CellMapper, " + type + " is not an accessible concrete class", type);
+                continue;
+            }
+            try {
+                generate(type);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "can not generate CellMapper for " + type + " : " + e, type);
+            }
+        }
+        // 不独占 @Cell, 其他处理器仍可处理
+        return false;
+    }
+
+    /**
+     * 生成映射器源文件
+     *
+     * @param type 标注了 @Cell 的类
+     */
+    private void generate(TypeElement type) throws IOException {
+        List<VariableElement> fields = cellFields(type);
+        if (!checkIndexes(fields)) {
+            return;
+        }
+        String packageName = packageOf(type).getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1))
+                + AnnotationHandler.MAPPER_SUFFIX;
+        String typeName = processingEnv.getTypeUtils().erasure(type.asType()).toString();
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n * CellMapper of ").append(typeName).append(", generated by ")
+                .append(getClass().getName()).append(", do not edit\n */\n");
+        source.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+        source.append("public final class ").append(simpleName)
+                .append(" extends com.github.fanlychie.excelutils.annotation.AbstractCellMapper<")
+                .append(typeName).append("> {\n\n");
+        // 无法直接访问的字段
+        for (int i = 0; i < fields.size(); i++) {
+            VariableElement field = fields.get(i);
+            if (getter(type, field) == null || setter(type, field) == null) {
+                source.append("    private static final java.lang.reflect.Field F").append(i)
+                        .append(" = field(").append(typeName).append(".class, \"")
+                        .append(field.getSimpleName()).append("\");\n\n");
+            }
+        }
+        // 列定义
+        source.append("    public ").append(simpleName).append("() {\n        super(");
+        for (int i = 0; i < fields.size(); i++) {
+            VariableElement field = fields.get(i);
+            Cell cell = field.getAnnotation(Cell.class);
+            source.append(i == 0 ? "\n" : ",\n").append("                cellField(").append(cell.index())
+                    .append(", ").append(literal(cell.name()))
+                    .append(", ").append(literal(cell.format()))
+                    .append(", com.github.fanlychie.excelutils.spec.Align.").append(cell.align().name())
+                    .append(", com.github.fanlychie.excelutils.spec.Aggregate.").append(cell.footer().name())
+                    .append(", \"").append(field.getSimpleName()).append("\", ")
+                    .append(erasure(field.asType())).append(".class)");
+        }
+        source.append(");\n    }\n\n");
+        // 实例化
+        source.append("    @Override\n    public ").append(typeName).append(" newInstance() {\n");
+        if (hasAccessibleDefaultConstructor(type)) {
+            source.append("        return new ").append(typeName).append("();\n");
+        } else {
+            source.append("        return instantiate(").append(typeName).append(".class);\n");
+        }
+        source.append("    }\n\n");
+        // 读取
+        source.append("    @Override\n    public Object getValue(").append(typeName)
+                .append(" item, int index) {\n        switch (index) {\n");
+        for (int i = 0; i < fields.size(); i++) {
+            VariableElement field = fields.get(i);
+            String getter = getter(type, field);
+            source.append("            case ").append(field.getAnnotation(Cell.class).index()).append(":\n");
+            if (getter == null) {
+                source.append("                return get(F").append(i).append(", item);\n");
+            } else {
+                source.append("                return item.").append(getter).append(";\n");
+            }
+        }
+        source.append("            default:\n                return null;\n        }\n    }\n\n");
+        // 写入
+        source.append("    @Override\n    public void setValue(").append(typeName)
+                .append(" item, int index, Object value) {\n        switch (index) {\n");
+        for (int i = 0; i < fields.size(); i++) {
+            VariableElement field = fields.get(i);
+            String setter = setter(type, field);
+            source.append("            case ").append(field.getAnnotation(Cell.class).index()).append(":\n");
+            if (setter == null) {
+                source.append("                set(F").append(i).append(", item, value);\n");
+            } else {
+                boolean primitive = field.asType().getKind().isPrimitive();
+                String cast = "(" + boxed(field.asType()) + ") value";
+                source.append("                ");
+                if (primitive) {
+                    // 基本类型忽略空值
+                    source.append("if (value != null) ");
+                }
+                source.append("item.").append(String.format(setter, cast)).append(";\n");
+            }
+            source.append("                break;\n");
+        }
+        source.append("            default:\n                break;\n        }\n    }\n\n}\n");
+        String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter();
+        try {
+            writer.write(source.toString());
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * 类及其父类中标注了 @Cell 的字段, 按索引排序
+     */
+    private List<VariableElement> cellFields(TypeElement type) {
+        List<VariableElement> fields = new ArrayList<>();
+        for (TypeElement t = type; t != null; t = superclass(t)) {
+            for (VariableElement field : ElementFilter.fieldsIn(t.getEnclosedElements())) {
+                if (field.getAnnotation(Cell.class) != null) {
+                    fields.add(field);
+                }
+            }
+        }
+        Collections.sort(fields, new Comparator<VariableElement>() {
+            @Override
+            public int compare(VariableElement f1, VariableElement f2) {
+                int i1 = f1.getAnnotation(Cell.class).index();
+                int i2 = f2.getAnnotation(Cell.class).index();
+                return (i1 < i2) ? -1 : ((i1 == i2) ? 0 : 1);
+            }
+        });
+        return fields;
+    }
+
+    /**
+     * 校验单元格索引不重复。重复的索引会使生成的 switch 出现重复的 case 标签, 在字段上报告错误并且不生成映射器
+     *
+     * @param fields 按索引排序的字段
+     * @return 没有重复的索引返回 true
+     */
+    private boolean checkIndexes(List<VariableElement> fields) {
+        boolean valid = true;
+        for (int i = 1; i < fields.size(); i++) {
+            VariableElement previous = fields.get(i - 1);
+            VariableElement field = fields.get(i);
+            int index = field.getAnnotation(Cell.class).index();
+            if (index == previous.getAnnotation(Cell.class).index()) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "duplicate @Cell index " + index +
+                        ", already used by field " + previous.getEnclosingElement() + "." + previous, field);
+                valid = false;
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * 读取字段的表达式
+     *
+     * @return 无法直接访问时返回 null
+     */
+    private String getter(TypeElement type, VariableElement field) {
+        String name = capitalize(field.getSimpleName().toString());
+        String getter = field.asType().getKind() == TypeKind.BOOLEAN ? "is" + name : "get" + name;
+        for (ExecutableElement method : methods(type)) {
+            if (method.getSimpleName().contentEquals(getter) && method.getParameters().isEmpty()) {
+                return getter + "()";
+            }
+        }
+        if (hasLombok(type, field, "lombok.Getter")) {
+            return getter + "()";
+        }
+        if (isAccessible(type, field)) {
+            return field.getSimpleName().toString();
+        }
+        return null;
+    }
+
+    /**
+     * 设置字段的表达式格式, %s 为值
+     *
+     * @return 无法直接访问时返回 null
+     */
+    private String setter(TypeElement type, VariableElement field) {
+        if (field.getModifiers().contains(Modifier.FINAL)) {
+            return null;
+        }
+        String setter = "set" + capitalize(field.getSimpleName().toString());
+        for (ExecutableElement method : methods(type)) {
+            if (method.getSimpleName().contentEquals(setter) && method.getParameters().size() == 1 &&
+                    processingEnv.getTypeUtils().isSameType(method.getParameters().get(0).asType(), field.asType())) {
+                return setter + "(%s)";
+            }
+        }
+        if (hasLombok(type, field, "lombok.Setter")) {
+            return setter + "(%s)";
+        }
+        if (isAccessible(type, field)) {
+            return field.getSimpleName() + " = %s";
+        }
+        return null;
+    }
+
+    /**
+     * 类中可以访问的实例方法(含继承的方法)
+     */
+    private List<ExecutableElement> methods(TypeElement type) {
+        List<ExecutableElement> methods = new ArrayList<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+            if (!method.getModifiers().contains(Modifier.STATIC) && isAccessible(type, method)) {
+                methods.add(method);
+            }
+        }
+        return methods;
+    }
+
+    /**
+     * 字段的声明类或字段上是否有 lombok 生成访问方法的注解(lombok 在同一轮处理中生成的方法可能不可见)
+     */
+    private boolean hasLombok(TypeElement type, VariableElement field, String accessor) {
+        TypeElement owner = (TypeElement) field.getEnclosingElement();
+        if (owner != type && !isAccessible(type, owner)) {
+            return false;
+        }
+        for (AnnotationMirror mirror : field.getAnnotationMirrors()) {
+            if (nameOf(mirror).equals(accessor)) {
+                return true;
+            }
+        }
+        for (AnnotationMirror mirror : owner.getAnnotationMirrors()) {
+            String name = nameOf(mirror);
+            if (name.equals(accessor) || name.equals("lombok.Data") ||
+                    (name.equals("lombok.Value") && accessor.equals("lombok.Getter"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasAccessibleDefaultConstructor(TypeElement type) {
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(type.getEnclosedElements());
+        for (ExecutableElement constructor : constructors) {
+            if (constructor.getParameters().isEmpty()) {
+                return isAccessible(type, constructor);
+            }
+        }
+        return constructors.isEmpty();
+    }
+
+    /**
+     * 是否可以生成映射器: 非抽象, 顶层类或静态内部类, 且自身和外部类都不是私有的
+     */
+    private boolean isSupported(TypeElement type) {
+        if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+        for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            TypeElement t = (TypeElement) e;
+            if (t.getModifiers().contains(Modifier.PRIVATE) ||
+                    (t.getNestingKind() == NestingKind.MEMBER && !t.getModifiers().contains(Modifier.STATIC))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 生成的映射器与类位于同一个包中, 公有成员或同包的非私有成员可以直接访问
+     */
+    private boolean isAccessible(TypeElement type, Element member) {
+        Set<Modifier> modifiers = member.getModifiers();
+        if (modifiers.contains(Modifier.PUBLIC)) {
+            return true;
+        }
+        return !modifiers.contains(Modifier.PRIVATE) && packageOf(member).equals(packageOf(type));
+    }
+
+    private TypeElement superclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+        return element.getQualifiedName().contentEquals("java.lang.Object") ? null : element;
+    }
+
+    private PackageElement packageOf(Element element) {
+        return processingEnv.getElementUtils().getPackageOf(element);
+    }
+
+    private String erasure(TypeMirror type) {
+        return processingEnv.getTypeUtils().erasure(type).toString();
+    }
+
+    private String boxed(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return processingEnv.getTypeUtils().boxedClass(
+                    processingEnv.getTypeUtils().getPrimitiveType(type.getKind())).getQualifiedName().toString();
+        }
+        return erasure(type);
+    }
+
+    private static String nameOf(AnnotationMirror mirror) {
+        return ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString();
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * 字符串字面量, 非 ASCII 字符使用 unicode 转义, 与源文件编码无关
+     */
+    private static String literal(String value) {
+        StringBuilder builder = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7E) {
+                builder.append(String.format("\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+}
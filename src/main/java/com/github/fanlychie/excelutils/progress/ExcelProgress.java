@@ -0,0 +1,124 @@
+package com.github.fanlychie.excelutils.progress;
+
+import com.github.fanlychie.excelutils.exception.ExcelCancelledException;
+
+/**
+ * EXCEL读写的进度和取消句柄。读写线程每处理一行更新一次进度并检查取消标记,
+ * 其他线程可随时读取进度或调用{@link #cancel()}中止读写
+ *
+ * @author fanlychie
+ */
+public class ExcelProgress {
+
+    /**
+     * 是否已取消
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * 已处理的行数
+     */
+    private volatile long rows;
+
+    /**
+     * 已开始处理的工作表数
+     */
+    private volatile int sheets;
+
+    /**
+     * 预计的总行数, 未知时为-1
+     */
+    private volatile long estimatedTotal = -1;
+
+    /**
+     * 取消读写, 读写线程在处理下一行时中止并抛出 {@link ExcelCancelledException}
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * 是否已取消
+     *
+     * @return 已取消返回 true
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 已处理的行数
+     *
+     * @return 返回已处理的行数
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * 已开始处理的工作表数
+     *
+     * @return 返回工作表数
+     */
+    public int getSheets() {
+        return sheets;
+    }
+
+    /**
+     * 预计的总行数, 写出时来自数据集大小或{@link com.github.fanlychie.excelutils.write.CountingPagingQuery#count()},
+     * 读取时来自工作表的尺寸(dimension)
+     *
+     * @return 返回预计的总行数, 未知时返回-1
+     */
+    public long getEstimatedTotal() {
+        return estimatedTotal;
+    }
+
+    /**
+     * 完成的百分比
+     *
+     * @return 返回0到100之间的百分比, 总行数未知时返回-1
+     */
+    public double getPercent() {
+        long total = estimatedTotal;
+        if (total <= 0) {
+            return -1;
+        }
+        return Math.min(100, rows * 100.0 / total);
+    }
+
+    /**
+     * 检查是否已取消, 已取消时抛出 {@link ExcelCancelledException}
+     */
+    public void checkCancelled() {
+        if (cancelled) {
+            throw new ExcelCancelledException("cancelled after " + rows + " rows");
+        }
+    }
+
+    /**
+     * 完成一行, 已取消时抛出 {@link ExcelCancelledException}, 由读写线程调用
+     */
+    public void advance() {
+        checkCancelled();
+        rows++;
+    }
+
+    /**
+     * 开始一个新的工作表, 由读写线程调用
+     */
+    public void startSheet() {
+        sheets++;
+    }
+
+    /**
+     * 增加预计的总行数, 由读写线程调用
+     *
+     * @param rows 行数
+     */
+    public void addEstimatedTotal(long rows) {
+        long total = estimatedTotal;
+        estimatedTotal = (total < 0 ? 0 : total) + rows;
+    }
+
+}
@@ -0,0 +1,146 @@
+package com.github.fanlychie.excelutils.read;
+
+import com.github.fanlychie.excelutils.exception.ExcelCastException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步分页分发器。解析线程将解析完的一页数据放入有界队列后继续解析下一页, 由单独的消费线程按顺序
+ * 调用{@link PagingHandler}处理, 使解析和数据处理(如入库)重叠执行。队列满时解析线程阻塞等待
+ *
+ * @author fanlychie
+ */
+class AsyncPagingDispatcher {
+
+    /**
+     * 结束标记
+     */
+    private static final Page END = new Page(new ArrayList(0), null);
+
+    private final BlockingQueue<Page> queue;
+
+    private final PageHandler handler;
+
+    private final Thread consumer;
+
+    /**
+     * 消费线程处理失败时的异常
+     */
+    private volatile Throwable failure;
+
+    /**
+     * @param capacity 队列中最多等待处理的页数
+     * @param handler  页数据处理
+     */
+    AsyncPagingDispatcher(int capacity, PageHandler handler) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.handler = handler;
+        this.consumer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                consume();
+            }
+        }, "excel-paging");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    /**
+     * 分发一页数据, 分发后解析线程不再使用该列表
+     *
+     * @param items      一页数据
+     * @param checkpoint 该页处理完成后的检查点
+     */
+    void dispatch(List items, ReadCheckpoint checkpoint) {
+        Page page = new Page(items, checkpoint);
+        try {
+            while (!queue.offer(page, 100, TimeUnit.MILLISECONDS)) {
+                checkFailure();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExcelCastException(e);
+        }
+        checkFailure();
+    }
+
+    /**
+     * 等待已分发的页处理完成
+     */
+    void finish() {
+        try {
+            while (!queue.offer(END, 100, TimeUnit.MILLISECONDS)) {
+                if (failure != null) {
+                    break;
+                }
+            }
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExcelCastException(e);
+        }
+        checkFailure();
+    }
+
+    /**
+     * 放弃尚未处理的页并停止消费线程
+     */
+    void abort() {
+        queue.clear();
+        consumer.interrupt();
+    }
+
+    private void consume() {
+        try {
+            Page page;
+            while ((page = queue.take()) != END) {
+                handler.handle(page.items, page.checkpoint);
+            }
+        } catch (InterruptedException e) {
+            // 已放弃
+        } catch (Throwable e) {
+            failure = e;
+            queue.clear();
+        }
+    }
+
+    private void checkFailure() {
+        Throwable e = failure;
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        if (e != null) {
+            throw new ExcelCastException(e);
+        }
+    }
+
+    /**
+     * 页数据处理
+     */
+    interface PageHandler {
+
+        void handle(List items, ReadCheckpoint checkpoint);
+
+    }
+
+    private static class Page {
+
+        final List items;
+
+        final ReadCheckpoint checkpoint;
+
+        Page(List items, ReadCheckpoint checkpoint) {
+            this.items = items;
+            this.checkpoint = checkpoint;
+        }
+
+    }
+
+}
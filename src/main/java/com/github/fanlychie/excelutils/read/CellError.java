@@ -0,0 +1,91 @@
+package com.github.fanlychie.excelutils.read;
+
+/**
+ * 单元格错误, 校验模式下记录值转换失败的单元格。实例由{@link ErrorReport}预先分配并复用, 不包含异常和调用栈
+ *
+ * @author fanlychie
+ */
+public class CellError {
+
+    /**
+     * 工作表索引, 从1开始
+     */
+    private int sheet;
+
+    /**
+     * 行号, 从1开始
+     */
+    private int row;
+
+    /**
+     * 单元格索引, 从0开始
+     */
+    private int column;
+
+    /**
+     * 单元格的原始值
+     */
+    private String value;
+
+    /**
+     * 期望的字段类型
+     */
+    private Class<?> type;
+
+    CellError() {}
+
+    void set(int sheet, int row, int column, String value, Class<?> type) {
+        this.sheet = sheet;
+        this.row = row;
+        this.column = column;
+        this.value = value;
+        this.type = type;
+    }
+
+    public int getSheet() {
+        return sheet;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * 单元格名称
+     *
+     * @return 返回单元格名称, 如 B12
+     */
+    public String getCellName() {
+        return ExcelReader.cellName(column, row);
+    }
+
+    /**
+     * 错误原因
+     *
+     * @return 返回错误原因的描述
+     */
+    public String getReason() {
+        if (value == null) {
+            return "value is required for " + type.getName();
+        }
+        return "can not convert \"" + value + "\" to " + type.getName();
+    }
+
+    @Override
+    public String toString() {
+        return "Sheet" + sheet + "!" + getCellName() + " : " + getReason();
+    }
+
+}
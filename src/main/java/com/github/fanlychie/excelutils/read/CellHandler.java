@@ -0,0 +1,33 @@
+package com.github.fanlychie.excelutils.read;
+
+/**
+ * 单元格处理器, 接收{@link SheetSource}解析出的单元格
+ *
+ * @author fanlychie
+ */
+interface CellHandler {
+
+    /**
+     * 单元格处理, 空单元格不会回调
+     *
+     * @param index  单元格的索引, 从0开始
+     * @param name   单元格的名称, 如 B12, 数据源没有提供时为 null
+     * @param value  单元格的字符串值
+     * @param row    单元格的行号, 从1开始
+     * @param newRow 是否是新的一行(工作表的第一行为 false)
+     */
+    void postCellHandle(int index, String name, String value, int row, boolean newRow);
+
+    /**
+     * 工作表尺寸处理, 尺寸位于所有单元格之前
+     *
+     * @param ref 尺寸范围, 如 A1:C1000
+     */
+    void postDimensionHandle(String ref);
+
+    /**
+     * 工作表解析完成
+     */
+    void endSheet();
+
+}
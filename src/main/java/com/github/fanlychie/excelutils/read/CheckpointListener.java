@@ -0,0 +1,18 @@
+package com.github.fanlychie.excelutils.read;
+
+/**
+ * 检查点监听器, 每一页数据由{@link PagingHandler}处理完成后回调, 可在此保存检查点用于中断后恢复。
+ * 异步分页时在处理分页数据的线程上回调
+ *
+ * @author fanlychie
+ */
+public interface CheckpointListener {
+
+    /**
+     * 一页数据处理完成
+     *
+     * @param checkpoint 检查点
+     */
+    void committed(ReadCheckpoint checkpoint);
+
+}
@@ -0,0 +1,493 @@
+package com.github.fanlychie.excelutils.read;
+
+import com.github.fanlychie.excelutils.annotation.CellField;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按列存储的一批数据, 由列式读取({@link ExcelReader#readColumns()}、{@link ExcelReader#pagingColumns(ColumnBatchHandler)})
+ * 填充。每个映射的单元格索引为一列, 数值、布尔值和日期(毫秒数)存放在基本类型数组中, 字符串按字典编码,
+ * 不为每一行创建对象, 也不装箱
+ *
+ * @author fanlychie
+ */
+public class ColumnBatch {
+
+    /**
+     * 以单元格索引为下标的列, 未映射的索引为 null
+     */
+    private final Column[] columns;
+
+    /**
+     * 以字段名称为键的列
+     */
+    private final Map<String, Column> namedColumns = new HashMap<>();
+
+    /**
+     * 已完成的行数
+     */
+    private int size;
+
+    /**
+     * 各列数组的容量
+     */
+    private int capacity;
+
+    /**
+     * @param cellFields 以单元格索引为下标的字段数组
+     * @param capacity   初始容量
+     */
+    ColumnBatch(CellField[] cellFields, int capacity) {
+        this.capacity = Math.max(capacity, 16);
+        this.columns = new Column[cellFields.length];
+        for (int i = 0; i < cellFields.length; i++) {
+            if (cellFields[i] != null) {
+                columns[i] = new Column(cellFields[i], this.capacity);
+                namedColumns.put(cellFields[i].getField(), columns[i]);
+            }
+        }
+    }
+
+    /**
+     * 行数
+     *
+     * @return 返回行数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 获取列
+     *
+     * @param index 单元格索引
+     * @return 返回 {@link Column}
+     */
+    public Column getColumn(int index) {
+        if (index < 0 || index >= columns.length || columns[index] == null) {
+            throw new IllegalArgumentException("cell index is not mapped: " + index);
+        }
+        return columns[index];
+    }
+
+    /**
+     * 获取列
+     *
+     * @param field 字段名称
+     * @return 返回 {@link Column}
+     */
+    public Column getColumn(String field) {
+        Column column = namedColumns.get(field);
+        if (column == null) {
+            throw new IllegalArgumentException("field is not mapped: " + field);
+        }
+        return column;
+    }
+
+    // 开始一行, 各列的值置为空
+    void beginRow() {
+        if (size == capacity) {
+            capacity = capacity * 2;
+            for (Column column : columns) {
+                if (column != null) {
+                    column.grow(capacity);
+                }
+            }
+        }
+        for (Column column : columns) {
+            if (column != null) {
+                column.reset(size);
+            }
+        }
+    }
+
+    // 完成当前行
+    void commitRow() {
+        size++;
+    }
+
+    // 绑定单元格的值到当前行
+    void set(int index, String value) {
+        columns[index].set(size, value);
+    }
+
+    // 校验模式下绑定单元格的值到当前行, 转换失败时返回 false
+    boolean trySet(int index, String value) {
+        return columns[index].trySet(size, value);
+    }
+
+    // 清空数据, 保留已分配的数组
+    void clear() {
+        size = 0;
+        for (Column column : columns) {
+            if (column != null) {
+                column.clear();
+            }
+        }
+    }
+
+    /**
+     * 列的类型, 由字段类型决定
+     */
+    public enum Type {
+
+        /**
+         * float、double 及其包装类型
+         */
+        DOUBLE,
+
+        /**
+         * byte、short、int、long 及其包装类型
+         */
+        LONG,
+
+        /**
+         * boolean 及其包装类型
+         */
+        BOOLEAN,
+
+        /**
+         * java.util.Date, 存储为毫秒数
+         */
+        DATE,
+
+        /**
+         * 字符串及其他类型, 按字典编码
+         */
+        STRING
+
+    }
+
+    /**
+     * 一列数据。基本类型数组的长度可能大于行数, 只有下标小于{@link ColumnBatch#size()}的元素有效,
+     * 空单元格的值为 0(或 false、字典编码 -1), 可通过{@link #isNull(int)}区分
+     */
+    public static class Column {
+
+        private final int index;
+
+        private final String field;
+
+        private final Type type;
+
+        private double[] doubles;
+
+        private long[] longs;
+
+        private boolean[] booleans;
+
+        private int[] codes;
+
+        /**
+         * 字典, 编码为字符串在列表中的下标
+         */
+        private List<String> dictionary;
+
+        private Map<String, Integer> dictionaryCodes;
+
+        private final BitSet nulls = new BitSet();
+
+        Column(CellField cellField, int capacity) {
+            this.index = cellField.getIndex();
+            this.field = cellField.getField();
+            this.type = typeOf(cellField.getType());
+            switch (type) {
+                case DOUBLE:
+                    doubles = new double[capacity];
+                    break;
+                case LONG:
+                case DATE:
+                    longs = new long[capacity];
+                    break;
+                case BOOLEAN:
+                    booleans = new boolean[capacity];
+                    break;
+                default:
+                    codes = new int[capacity];
+                    dictionary = new ArrayList<>();
+                    dictionaryCodes = new HashMap<>();
+                    break;
+            }
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * 单元格是否为空
+         *
+         * @param row 行下标, 从0开始
+         * @return 为空返回 true
+         */
+        public boolean isNull(int row) {
+            return nulls.get(row);
+        }
+
+        /**
+         * 数值, LONG、DATE 列返回整数值
+         *
+         * @param row 行下标, 从0开始
+         * @return 返回数值
+         * @throws IllegalStateException BOOLEAN、STRING 列
+         */
+        public double getDouble(int row) {
+            if (type == Type.DOUBLE) {
+                return doubles[row];
+            }
+            if (longs == null) {
+                throw typeMismatch("DOUBLE, LONG or DATE");
+            }
+            return longs[row];
+        }
+
+        /**
+         * 整数值, 日期列为毫秒数
+         *
+         * @param row 行下标, 从0开始
+         * @return 返回整数值
+         * @throws IllegalStateException 不是 LONG、DATE 列
+         */
+        public long getLong(int row) {
+            if (longs == null) {
+                throw typeMismatch("LONG or DATE");
+            }
+            return longs[row];
+        }
+
+        /**
+         * 布尔值
+         *
+         * @param row 行下标, 从0开始
+         * @return 返回布尔值
+         * @throws IllegalStateException 不是 BOOLEAN 列
+         */
+        public boolean getBoolean(int row) {
+            if (booleans == null) {
+                throw typeMismatch("BOOLEAN");
+            }
+            return booleans[row];
+        }
+
+        /**
+         * 日期值
+         *
+         * @param row 行下标, 从0开始
+         * @return 返回新的 {@link Date} 实例, 为空时返回 null
+         * @throws IllegalStateException 不是 DATE 列
+         */
+        public Date getDate(int row) {
+            if (type != Type.DATE) {
+                throw typeMismatch("DATE");
+            }
+            return nulls.get(row) ? null : new Date(longs[row]);
+        }
+
+        /**
+         * 字符串值
+         *
+         * @param row 行下标, 从0开始
+         * @return 返回字典中的字符串, 为空时返回 null
+         * @throws IllegalStateException 不是 STRING 列
+         */
+        public String getString(int row) {
+            if (codes == null) {
+                throw typeMismatch("STRING");
+            }
+            return codes[row] < 0 ? null : dictionary.get(codes[row]);
+        }
+
+        /**
+         * DOUBLE 列的值数组
+         */
+        public double[] getDoubles() {
+            return doubles;
+        }
+
+        /**
+         * LONG、DATE 列的值数组
+         */
+        public long[] getLongs() {
+            return longs;
+        }
+
+        /**
+         * BOOLEAN 列的值数组
+         */
+        public boolean[] getBooleans() {
+            return booleans;
+        }
+
+        /**
+         * STRING 列的字典编码数组, 空单元格为 -1
+         */
+        public int[] getCodes() {
+            return codes;
+        }
+
+        /**
+         * STRING 列的字典, 只在当前批次内有效
+         *
+         * @return 返回不可修改的字典, 下标为编码
+         */
+        public List<String> getDictionary() {
+            return Collections.unmodifiableList(dictionary);
+        }
+
+        void set(int row, String value) {
+            if (value == null) {
+                return;
+            }
+            switch (type) {
+                case DOUBLE:
+                    doubles[row] = Double.parseDouble(value);
+                    break;
+                case LONG:
+                    longs[row] = ValueConverter.toLong(value);
+                    break;
+                case DATE:
+                    longs[row] = ((Date) ValueConverter.convertObjectValue(value, Date.class)).getTime();
+                    break;
+                case BOOLEAN:
+                    booleans[row] = ValueConverter.convertBooleanValue(value);
+                    break;
+                default:
+                    Integer code = dictionaryCodes.get(value);
+                    if (code == null) {
+                        code = dictionary.size();
+                        dictionary.add(value);
+                        dictionaryCodes.put(value, code);
+                    }
+                    codes[row] = code;
+                    break;
+            }
+            nulls.clear(row);
+        }
+
+        /**
+         * 校验模式下转换并绑定单元格的值, 与{@link #set(int, String)}接受相同的值, 转换失败时不抛出异常
+         *
+         * @return 转换失败返回 false
+         */
+        boolean trySet(int row, String value) {
+            if (value == null) {
+                return true;
+            }
+            Object converted;
+            switch (type) {
+                case DOUBLE:
+                case LONG:
+                    converted = ValueConverter.tryConvert(value, Double.class);
+                    if (converted == ValueConverter.INVALID) {
+                        return false;
+                    }
+                    if (type == Type.DOUBLE) {
+                        doubles[row] = (Double) converted;
+                    } else {
+                        // 与 set 一致, 十进制整数不经过 double
+                        longs[row] = ValueConverter.toLong(value);
+                    }
+                    break;
+                case DATE:
+                    converted = ValueConverter.tryConvert(value, Date.class);
+                    if (converted == ValueConverter.INVALID) {
+                        return false;
+                    }
+                    longs[row] = ((Date) converted).getTime();
+                    break;
+                case BOOLEAN:
+                    converted = ValueConverter.tryConvert(value, Boolean.class);
+                    if (converted == ValueConverter.INVALID) {
+                        return false;
+                    }
+                    booleans[row] = (Boolean) converted;
+                    break;
+                default:
+                    set(row, value);
+                    return true;
+            }
+            nulls.clear(row);
+            return true;
+        }
+
+        void reset(int row) {
+            nulls.set(row);
+            switch (type) {
+                case DOUBLE:
+                    doubles[row] = 0;
+                    break;
+                case LONG:
+                case DATE:
+                    longs[row] = 0;
+                    break;
+                case BOOLEAN:
+                    booleans[row] = false;
+                    break;
+                default:
+                    codes[row] = -1;
+                    break;
+            }
+        }
+
+        void grow(int capacity) {
+            if (doubles != null) {
+                doubles = Arrays.copyOf(doubles, capacity);
+            }
+            if (longs != null) {
+                longs = Arrays.copyOf(longs, capacity);
+            }
+            if (booleans != null) {
+                booleans = Arrays.copyOf(booleans, capacity);
+            }
+            if (codes != null) {
+                codes = Arrays.copyOf(codes, capacity);
+            }
+        }
+
+        void clear() {
+            nulls.clear();
+            if (dictionary != null) {
+                dictionary.clear();
+                dictionaryCodes.clear();
+            }
+        }
+
+        private IllegalStateException typeMismatch(String expected) {
+            return new IllegalStateException("column " + field + " is " + type + ", not " + expected);
+        }
+
+        private static Type typeOf(Class<?> type) {
+            if (type == Double.TYPE || type == Double.class || type == Float.TYPE || type == Float.class) {
+                return Type.DOUBLE;
+            }
+            if (type == Long.TYPE || type == Long.class || type == Integer.TYPE || type == Integer.class
+                    || type == Short.TYPE || type == Short.class || type == Byte.TYPE || type == Byte.class) {
+                return Type.LONG;
+            }
+            if (type == Boolean.TYPE || type == Boolean.class) {
+                return Type.BOOLEAN;
+            }
+            if (type == Date.class) {
+                return Type.DATE;
+            }
+            return Type.STRING;
+        }
+
+    }
+
+}
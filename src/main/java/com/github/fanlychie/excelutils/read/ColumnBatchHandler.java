@@ -0,0 +1,17 @@
+package com.github.fanlychie.excelutils.read;
+
+/**
+ * 用于处理列式读取的分页数据。当读取到的行数达到ExcelReaderBuilder.pageSize设定的阀值时, 触发ColumnBatchHandler.handle处理数据
+ *
+ * @author fanlychie
+ */
+public interface ColumnBatchHandler {
+
+    /**
+     * 解析EXCEL文件数据完成, 回调该函数来处理数据
+     *
+     * @param batch 分页中的一页数据, 返回后被清空并用于下一页, 不能持有
+     */
+    void handle(ColumnBatch batch);
+
+}
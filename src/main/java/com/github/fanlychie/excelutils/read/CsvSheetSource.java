@@ -0,0 +1,114 @@
+package com.github.fanlychie.excelutils.read;
+
+import com.github.fanlychie.excelutils.metrics.MetricsListener;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * CSV/TSV 数据源, 整个文件作为一个工作表
+ *
+ * @author fanlychie
+ */
+class CsvSheetSource implements SheetSource {
+
+    /**
+     * 探测元数据时最多读取的字节数
+     */
+    private static final int PROBE_BYTES = 64 * 1024;
+
+    private final ReadableByteChannel channel;
+
+    private final CsvTokenizer tokenizer;
+
+    private final MetricsListener metrics;
+
+    private boolean parsed;
+
+    CsvSheetSource(ReadableByteChannel channel, char delimiter, Charset charset, MetricsListener metrics) {
+        this.channel = channel;
+        this.metrics = metrics;
+        this.tokenizer = new CsvTokenizer(channel, delimiter, charset);
+    }
+
+    @Override
+    public boolean hasNextSheet() {
+        return !parsed;
+    }
+
+    @Override
+    public void skipSheet() {
+        parsed = true;
+    }
+
+    @Override
+    public String parseSheet(CellHandler handler) throws IOException {
+        parsed = true;
+        boolean firstRow = true;
+        while (tokenizer.next()) {
+            int row = tokenizer.getRowNumber();
+            boolean newRow = !firstRow;
+            int fieldCount = tokenizer.getFieldCount();
+            for (int i = 0; i < fieldCount; i++) {
+                // 与 EXCEL 一致, 空单元格不回调
+                if (tokenizer.getFieldLength(i) > 0) {
+                    handler.postCellHandle(i, null, tokenizer.getString(i), row, newRow);
+                    newRow = false;
+                    firstRow = false;
+                }
+            }
+        }
+        handler.endSheet();
+        metrics.bytesRead(tokenizer.getBytesRead());
+        return "CSV";
+    }
+
+    /**
+     * 文件流根据开头部分的平均行长度和文件大小估算行数, 其他流的行数未知
+     */
+    @Override
+    public List<SheetInfo> probe() throws IOException {
+        if (!(channel instanceof FileChannel)) {
+            return Collections.singletonList(new SheetInfo("CSV", null, -1, false));
+        }
+        FileChannel file = (FileChannel) channel;
+        long size = file.size();
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(size, PROBE_BYTES));
+        // 按绝对位置读取, 不移动通道的位置
+        while (buffer.hasRemaining() && file.read(buffer, buffer.position()) > 0) {}
+        long lines = 0;
+        boolean quoted = false;
+        for (int i = 0; i < buffer.position(); i++) {
+            byte b = buffer.get(i);
+            if (b == '\n') {
+                lines++;
+            } else if (b == '"') {
+                quoted = true;
+            }
+        }
+        if (buffer.position() == size) {
+            // 最后一行没有换行符
+            if (size > 0 && buffer.get(buffer.position() - 1) != '\n') {
+                lines++;
+            }
+            // 引号中可能有换行符, 此时不是精确值
+            return Collections.singletonList(new SheetInfo("CSV", null, lines, !quoted));
+        }
+        long rows = lines == 0 ? -1 : Math.round((double) size * lines / buffer.position());
+        return Collections.singletonList(new SheetInfo("CSV", null, rows, false));
+    }
+
+    @Override
+    public void release() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+        }
+    }
+
+}
@@ -0,0 +1,274 @@
+package com.github.fanlychie.excelutils.read;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * CSV/TSV 分词器(RFC 4180)。按块读取字节通道并解码到复用的字符缓冲区, 每次解析一条记录,
+ * 字段内容去除引号转义后存放在复用的行缓冲区中, 只有调用{@link #getString(int)}时才创建字符串
+ *
+ * @author fanlychie
+ */
+class CsvTokenizer {
+
+    /**
+     * 读取块大小
+     */
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private static final int FIELD_START = 0;
+
+    private static final int UNQUOTED = 1;
+
+    private static final int QUOTED = 2;
+
+    private static final int QUOTE_IN_QUOTED = 3;
+
+    private final ReadableByteChannel channel;
+
+    private final char delimiter;
+
+    private final CharsetDecoder decoder;
+
+    private final ByteBuffer byteBuffer = ByteBuffer.allocateDirect(CHUNK_SIZE);
+
+    private final CharBuffer charBuffer = CharBuffer.allocate(CHUNK_SIZE);
+
+    /**
+     * 解码后的字符, 即 charBuffer 的底层数组
+     */
+    private final char[] chars = charBuffer.array();
+
+    private int position;
+
+    private int limit;
+
+    private boolean eof;
+
+    private boolean flushed;
+
+    private boolean skipLineFeed;
+
+    private boolean firstChar = true;
+
+    /**
+     * 当前记录去除转义后的字符
+     */
+    private char[] row = new char[256];
+
+    private int rowLength;
+
+    private int[] fieldStarts = new int[16];
+
+    private int[] fieldEnds = new int[16];
+
+    private int fieldCount;
+
+    /**
+     * 当前记录的行号, 从1开始
+     */
+    private int rowNumber;
+
+    private long bytesRead;
+
+    CsvTokenizer(ReadableByteChannel channel, char delimiter, Charset charset) {
+        this.channel = channel;
+        this.delimiter = delimiter;
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.byteBuffer.flip();
+    }
+
+    /**
+     * 解析下一条记录
+     *
+     * @return 有记录返回 true, 已到达末尾返回 false
+     * @throws IOException 读取失败时抛出
+     */
+    boolean next() throws IOException {
+        rowLength = 0;
+        fieldCount = 0;
+        int state = FIELD_START;
+        int fieldStart = 0;
+        boolean any = false;
+        while (true) {
+            if (position >= limit && !fill()) {
+                if (!any) {
+                    return false;
+                }
+                endField(fieldStart);
+                rowNumber++;
+                return true;
+            }
+            char c = chars[position++];
+            if (skipLineFeed) {
+                skipLineFeed = false;
+                if (c == '\n') {
+                    continue;
+                }
+            }
+            if (firstChar) {
+                firstChar = false;
+                // 跳过 BOM
+                if (c == '\uFEFF') {
+                    continue;
+                }
+            }
+            any = true;
+            switch (state) {
+                case FIELD_START:
+                    if (c == '"') {
+                        state = QUOTED;
+                        break;
+                    }
+                    state = UNQUOTED;
+                    // 继续按非引号字段处理当前字符
+                case UNQUOTED:
+                    if (c == delimiter) {
+                        fieldStart = endField(fieldStart);
+                        state = FIELD_START;
+                    } else if (c == '\n' || c == '\r') {
+                        skipLineFeed = c == '\r';
+                        endField(fieldStart);
+                        rowNumber++;
+                        return true;
+                    } else {
+                        append(c);
+                    }
+                    break;
+                case QUOTED:
+                    if (c == '"') {
+                        state = QUOTE_IN_QUOTED;
+                    } else {
+                        append(c);
+                    }
+                    break;
+                default:
+                    if (c == '"') {
+                        // 转义的引号
+                        append('"');
+                        state = QUOTED;
+                    } else {
+                        // 引号结束, 重新按非引号字段处理当前字符
+                        position--;
+                        state = UNQUOTED;
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * 当前记录的字段数
+     *
+     * @return 返回字段数
+     */
+    int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * 字段的长度
+     *
+     * @param index 字段的索引, 从0开始
+     * @return 返回字段的长度
+     */
+    int getFieldLength(int index) {
+        return fieldEnds[index] - fieldStarts[index];
+    }
+
+    /**
+     * 字段的值
+     *
+     * @param index 字段的索引, 从0开始
+     * @return 返回字段的值
+     */
+    String getString(int index) {
+        return new String(row, fieldStarts[index], fieldEnds[index] - fieldStarts[index]);
+    }
+
+    int getRowNumber() {
+        return rowNumber;
+    }
+
+    long getBytesRead() {
+        return bytesRead;
+    }
+
+    private void append(char c) {
+        if (rowLength == row.length) {
+            char[] grown = new char[row.length << 1];
+            System.arraycopy(row, 0, grown, 0, rowLength);
+            row = grown;
+        }
+        row[rowLength++] = c;
+    }
+
+    /**
+     * 结束当前字段
+     *
+     * @param fieldStart 字段的起始位置
+     * @return 返回下一个字段的起始位置
+     */
+    private int endField(int fieldStart) {
+        if (fieldCount == fieldStarts.length) {
+            int[] starts = new int[fieldCount << 1];
+            int[] ends = new int[fieldCount << 1];
+            System.arraycopy(fieldStarts, 0, starts, 0, fieldCount);
+            System.arraycopy(fieldEnds, 0, ends, 0, fieldCount);
+            fieldStarts = starts;
+            fieldEnds = ends;
+        }
+        fieldStarts[fieldCount] = fieldStart;
+        fieldEnds[fieldCount] = rowLength;
+        fieldCount++;
+        return rowLength;
+    }
+
+    /**
+     * 读取下一块字节并解码到字符缓冲区
+     *
+     * @return 解码出字符返回 true, 已到达末尾返回 false
+     */
+    private boolean fill() throws IOException {
+        charBuffer.clear();
+        while (charBuffer.position() == 0) {
+            if (eof) {
+                if (flushed) {
+                    break;
+                }
+                decoder.decode(byteBuffer, charBuffer, true);
+                decoder.flush(charBuffer);
+                flushed = true;
+                break;
+            }
+            CoderResult result = decoder.decode(byteBuffer, charBuffer, false);
+            if (result.isError()) {
+                result.throwException();
+            }
+            if (charBuffer.position() > 0) {
+                break;
+            }
+            // 字节不足, 读取下一块
+            byteBuffer.compact();
+            int n = channel.read(byteBuffer);
+            byteBuffer.flip();
+            if (n < 0) {
+                eof = true;
+            } else {
+                bytesRead += n;
+            }
+        }
+        position = 0;
+        limit = charBuffer.position();
+        return limit > 0;
+    }
+
+}
@@ -0,0 +1,132 @@
+package com.github.fanlychie.excelutils.read;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 校验模式的错误报告。读取时单元格的值转换失败不再抛出异常, 而是记录到报告中并继续解析, 包含错误的行不加入结果集。
+ * 报告最多保留指定数量的错误, 超出的只计数; 可以设置错误数达到上限时停止解析
+ *
+ * @author fanlychie
+ */
+public class ErrorReport {
+
+    /**
+     * 预先分配的错误记录
+     */
+    private final CellError[] errors;
+
+    /**
+     * 错误数达到该值时停止解析, 0 表示不停止
+     */
+    private final int maxErrors;
+
+    /**
+     * 错误总数
+     */
+    private long errorCount;
+
+    /**
+     * 是否因错误数达到上限而停止解析
+     */
+    private volatile boolean stopped;
+
+    /**
+     * 构建错误报告, 最多保留100个错误, 不停止解析
+     */
+    public ErrorReport() {
+        this(100, 0);
+    }
+
+    /**
+     * 构建错误报告
+     *
+     * @param capacity  最多保留的错误数
+     * @param maxErrors 错误数达到该值时停止解析, 0 表示不停止
+     */
+    public ErrorReport(int capacity, int maxErrors) {
+        if (capacity < 0 || maxErrors < 0) {
+            throw new IllegalArgumentException("capacity and maxErrors must not be negative");
+        }
+        this.errors = new CellError[capacity];
+        for (int i = 0; i < capacity; i++) {
+            errors[i] = new CellError();
+        }
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * 错误总数, 包括超出保留数量的错误
+     *
+     * @return 返回错误总数
+     */
+    public synchronized long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * 是否有错误
+     *
+     * @return 有错误返回 true
+     */
+    public boolean hasErrors() {
+        return getErrorCount() > 0;
+    }
+
+    /**
+     * 保留的错误, 并行绑定时不保证按行的顺序
+     *
+     * @return 返回错误列表
+     */
+    public synchronized List<CellError> getErrors() {
+        return Collections.unmodifiableList(Arrays.asList(errors).subList(0, (int) Math.min(errorCount, errors.length)));
+    }
+
+    /**
+     * 是否因错误数达到上限而停止了解析
+     *
+     * @return 停止返回 true
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * 记录一个错误
+     *
+     * @param sheet  工作表索引
+     * @param row    行号
+     * @param column 单元格索引
+     * @param value  原始值
+     * @param type   期望的字段类型
+     * @throws ErrorLimitException 错误数达到上限
+     */
+    synchronized void add(int sheet, int row, int column, String value, Class<?> type) {
+        if (stopped) {
+            throw ErrorLimitException.INSTANCE;
+        }
+        if (errorCount < errors.length) {
+            errors[(int) errorCount].set(sheet, row, column, value, type);
+        }
+        errorCount++;
+        if (maxErrors > 0 && errorCount >= maxErrors) {
+            stopped = true;
+            throw ErrorLimitException.INSTANCE;
+        }
+    }
+
+    /**
+     * 错误数达到上限, 用于中止解析, 不填充调用栈
+     */
+    static class ErrorLimitException extends RuntimeException {
+
+        static final ErrorLimitException INSTANCE = new ErrorLimitException();
+
+        private ErrorLimitException() {
+            super("too many errors", null, false, false);
+        }
+
+    }
+
+}
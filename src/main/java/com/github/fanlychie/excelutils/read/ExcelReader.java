@@ -1,31 +1,52 @@
 package com.github.fanlychie.excelutils.read;
 
-import com.github.fanlychie.beanutils.BeanUtils;
-import com.github.fanlychie.beanutils.operator.ConstructorOperator;
-import com.github.fanlychie.beanutils.operator.FieldOperator;
 import com.github.fanlychie.excelutils.annotation.AnnotationHandler;
 import com.github.fanlychie.excelutils.annotation.CellField;
+import com.github.fanlychie.excelutils.annotation.CellMapper;
+import com.github.fanlychie.excelutils.annotation.RowSchema;
+import com.github.fanlychie.excelutils.exception.ExcelCancelledException;
 import com.github.fanlychie.excelutils.exception.ExcelCastException;
 import com.github.fanlychie.excelutils.exception.ReadExcelException;
+import com.github.fanlychie.excelutils.metrics.CountingInputStream;
+import com.github.fanlychie.excelutils.metrics.FlightEvent;
+import com.github.fanlychie.excelutils.metrics.FlightEventType;
+import com.github.fanlychie.excelutils.metrics.FlightEvents;
+import com.github.fanlychie.excelutils.metrics.MetricsListener;
+import com.github.fanlychie.excelutils.metrics.NoopMetricsListener;
+import com.github.fanlychie.excelutils.progress.ExcelProgress;
 import lombok.Setter;
 import org.apache.poi.openxml4j.opc.OPCPackage;
-import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
-import org.apache.poi.xssf.eventusermodel.XSSFReader;
-import org.apache.poi.xssf.eventusermodel.XSSFReader.SheetIterator;
-import org.apache.poi.xssf.model.StylesTable;
-import org.xml.sax.InputSource;
+import org.apache.poi.poifs.filesystem.NPOIFSFileSystem;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
 import org.xml.sax.SAXException;
-import org.xml.sax.XMLReader;
 
-import javax.xml.parsers.SAXParserFactory;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 /**
- * EXCEL读取器, 用于读取EXCEL表格的数据到POJO的列表中
+ * EXCEL读取器, 用于读取EXCEL表格(.xlsx 或 .xls, 根据文件头自动识别)或CSV文件的数据到POJO的列表中
  *
  * @author fanlychie
  */
@@ -37,6 +58,12 @@ public class ExcelReader {
     @Setter
     private Class<?> targetClass;
 
+    /**
+     * 行结构, 代替POJO类型
+     */
+    @Setter
+    private RowSchema schema;
+
     @Setter
     private InputStream stream;
 
@@ -46,16 +73,143 @@ public class ExcelReader {
     @Setter
     private PagingHandler handler;
 
-    private StylesTable stylesTable;
+    @Setter
+    private MetricsListener metrics = NoopMetricsListener.INSTANCE;
+
+    @Setter
+    private ExcelProgress progress = new ExcelProgress();
+
+    /**
+     * 异步分页处理时队列中最多等待处理的页数, 0 表示在解析线程中同步处理
+     */
+    @Setter
+    private int asyncPaging;
+
+    @Setter
+    private boolean csv;
+
+    @Setter
+    private char delimiter = ',';
+
+    @Setter
+    private Charset charset = Charset.forName("UTF-8");
+
+    private SheetSource source;
+
+    private AsyncPagingDispatcher dispatcher;
+
+    /**
+     * 并行转换和绑定的线程数, 0 表示在解析线程中绑定
+     */
+    @Setter
+    private int bindingThreads;
+
+    /**
+     * 并行绑定时是否保持行的顺序
+     */
+    @Setter
+    private boolean orderedBinding = true;
+
+    /**
+     * 校验模式的错误报告, 为 null 时转换失败抛出异常
+     */
+    @Setter
+    private ErrorReport errorReport;
+
+    /**
+     * 检查点监听器
+     */
+    @Setter
+    private CheckpointListener checkpointListener;
+
+    /**
+     * 恢复导入的检查点, 跳过检查点之前已处理的行
+     */
+    @Setter
+    private ReadCheckpoint resume;
+
+    /**
+     * 最后一个处理完成的页的检查点
+     */
+    private volatile ReadCheckpoint checkpoint;
 
-    private SheetIterator sheetIterator;
+    /**
+     * 当前工作表中最后一个加入结果集的行的行号
+     */
+    private int lastRow;
 
-    private ReadOnlySharedStringsTable sharedStringsTable;
+    /**
+     * 当前工作表中需要跳过的最后一行的行号
+     */
+    private int skipRow;
 
-    private Map<Integer, CellField> cellFieldMapping;
+    private CellMapper mapper;
+
+    /**
+     * 以单元格索引为下标的字段数组
+     */
+    private CellField[] cellFieldArray;
+
+    /**
+     * 当前工作表的索引, 索引值从1开始
+     */
+    private int sheetIndex;
+
+    /**
+     * 当前工作表已解析的行数
+     */
+    private long sheetRows;
+
+    /**
+     * 当前工作表的行数是否已根据元数据估算
+     */
+    private boolean sheetEstimated;
+
+    /**
+     * 工作表的元数据
+     */
+    private List<SheetInfo> sheetInfos;
+
+    /**
+     * 根据元数据预分配结果集的最大容量
+     */
+    private static final int MAX_PRESIZE = 1 << 16;
+
+    /**
+     * 单元格未映射
+     */
+    private static final int CELL_UNMAPPED = 0;
+
+    /**
+     * 单元格已绑定
+     */
+    private static final int CELL_BOUND = 1;
+
+    /**
+     * 单元格的值无效, 已记录到错误报告
+     */
+    private static final int CELL_INVALID = 2;
 
     ExcelReader() {}
 
+    /**
+     * 最后一个处理完成的页的检查点, 每一页数据由{@link PagingHandler}处理完成后更新
+     *
+     * @return 返回 {@link ReadCheckpoint}, 尚未处理完任何页时返回恢复的检查点或 null
+     */
+    public ReadCheckpoint getCheckpoint() {
+        return checkpoint != null ? checkpoint : resume;
+    }
+
+    /**
+     * 校验模式的错误报告
+     *
+     * @return 返回 {@link ErrorReport}, 未启用校验模式时返回 null
+     */
+    public ErrorReport getErrorReport() {
+        return errorReport;
+    }
+
     /**
      * 解析指定索引的工作表(Sheet)
      *
@@ -65,15 +219,32 @@ public class ExcelReader {
      */
     public <T> List<T> read(int index) {
         int sheetCount = 1;
-        while (sheetIterator.hasNext()) {
+        while (source.hasNextSheet() && !isStopped()) {
             if (index == sheetCount++) {
                 return processSheet(false);
             }
-            sheetIterator.next();
+            skipSheet();
         }
         throw new ReadExcelException("can not found sheet index : " + index);
     }
 
+    /**
+     * 读取所有工作表的元数据(名称、尺寸和估算的行数), 只读取每个工作表的开头部分, 不解析行数据,
+     * 可在解析前调用以获知导入的规模
+     *
+     * @return 返回工作表的元数据列表
+     */
+    public List<SheetInfo> probe() {
+        if (sheetInfos == null) {
+            try {
+                sheetInfos = Collections.unmodifiableList(source.probe());
+            } catch (Exception e) {
+                throw new ExcelCastException(e);
+            }
+        }
+        return sheetInfos;
+    }
+
     /**
      * 解析所有的工作表(Sheet)
      *
@@ -82,7 +253,7 @@ public class ExcelReader {
      */
     public <T> List<T> read() {
         List<T> list = new ArrayList<>();
-        while (sheetIterator.hasNext()) {
+        while (source.hasNextSheet() && !isStopped()) {
             list.addAll(this.<T>processSheet(false));
         }
         return list;
@@ -94,120 +265,916 @@ public class ExcelReader {
      * @param index 工作表索引, 索引值从1开始
      */
     public void paging(int index) {
-        if (paging == null) {
-            throw new NullPointerException("Paging can not be null");
-        }
-        if (handler == null) {
-            throw new NullPointerException("PagingHandler can not be null");
-        }
-        int sheetCount = 1;
-        while (sheetIterator.hasNext()) {
-            if (index == sheetCount++) {
-                processSheet(true);
+        beginPaging();
+        boolean completed = false;
+        try {
+            int sheetCount = 1;
+            while (source.hasNextSheet() && !isStopped()) {
+                if (index == sheetCount++) {
+                    processSheet(true);
+                    completed = true;
+                    return;
+                }
+                skipSheet();
             }
-            sheetIterator.next();
+            throw new ReadExcelException("can not found sheet index : " + index);
+        } finally {
+            endPaging(completed);
         }
-        throw new ReadExcelException("can not found sheet index : " + index);
     }
 
     /**
      * 分页解析所有的工作表(Sheet)
      */
     public void paging() {
+        beginPaging();
+        boolean completed = false;
+        try {
+            while (source.hasNextSheet() && !isStopped()) {
+                processSheet(true);
+            }
+            completed = true;
+        } finally {
+            endPaging(completed);
+        }
+    }
+
+    /**
+     * 按列解析所有的工作表(Sheet), 数值、布尔值和日期存放在基本类型数组中, 字符串按字典编码,
+     * 不为每一行创建POJO。不使用并行绑定和异步分页
+     *
+     * @return 返回所有行的 {@link ColumnBatch}
+     */
+    public ColumnBatch readColumns() {
+        long rows = 0;
+        try {
+            for (SheetInfo info : probe()) {
+                rows += Math.max(info.getRows(), 0);
+            }
+        } catch (ExcelCastException e) {
+            // 元数据只用于预分配
+        }
+        ColumnBatch batch = new ColumnBatch(cellFieldArray, (int) Math.min(rows, MAX_PRESIZE));
+        while (source.hasNextSheet() && !isStopped()) {
+            processColumns(batch, null);
+        }
+        return batch;
+    }
+
+    /**
+     * 按列分页解析所有的工作表(Sheet), 每一页为一个 {@link ColumnBatch}, 各页共用同一个实例。
+     * 不使用并行绑定和异步分页
+     *
+     * @param handler 页数据处理
+     */
+    public void pagingColumns(ColumnBatchHandler handler) {
         if (paging == null) {
             throw new NullPointerException("Paging can not be null");
         }
         if (handler == null) {
-            throw new NullPointerException("PagingHandler can not be null");
+            throw new NullPointerException("ColumnBatchHandler can not be null");
         }
-        while (sheetIterator.hasNext()) {
-            processSheet(true);
+        ColumnBatch batch = new ColumnBatch(cellFieldArray, paging.size);
+        while (source.hasNextSheet() && !isStopped()) {
+            processColumns(batch, handler);
         }
     }
 
+    /**
+     * 以游标的形式逐行访问所有的工作表(Sheet), 按单元格索引读取值, 不创建POJO, 不需要设置POJO类型。
+     * 游标重用固定数量的行缓冲区, 适合转换超大文件
+     *
+     * @return 返回 {@link RowCursor}, 使用完后应关闭
+     */
+    public RowCursor cursor() {
+        return new RowCursor(this);
+    }
+
+    // 解析所有的工作表, 由游标的解析线程调用
+    void scan(RowCursor cursor) {
+        while (source.hasNextSheet() && !isStopped()) {
+            if (beginSheet()) {
+                parseSheet(new CursorBinder(cursor), estimateRows());
+            }
+        }
+    }
+
+    // 解析所有的工作表, 由发布者的解析线程调用
+    void publishTo(PagingHandler handler) {
+        this.handler = handler;
+        if (paging == null) {
+            // 每解析一行即发出
+            paging = new Paging();
+            paging.size = 1;
+        }
+        paging();
+    }
+
     // 初始化
     void init() {
         try {
-            OPCPackage opcPackage = OPCPackage.open(stream);
-            XSSFReader reader = new XSSFReader(opcPackage);
-            this.sharedStringsTable = new ReadOnlySharedStringsTable(opcPackage);
-            this.stylesTable = reader.getStylesTable();
-            this.sheetIterator = (SheetIterator) reader.getSheetsData();
-            this.cellFieldMapping = AnnotationHandler.getCellFieldMapping(targetClass);
+            if (csv) {
+                ReadableByteChannel channel = stream instanceof FileInputStream ?
+                        ((FileInputStream) stream).getChannel() : Channels.newChannel(stream);
+                this.source = new CsvSheetSource(channel, delimiter, charset, metrics);
+            } else if (isOLE2()) {
+                // BIFF8(.xls), 文件流按需读取块, 其他流整个读入内存
+                NPOIFSFileSystem fileSystem;
+                if (stream instanceof FileInputStream) {
+                    FileChannel channel = ((FileInputStream) stream).getChannel();
+                    fileSystem = new NPOIFSFileSystem(channel);
+                    metrics.bytesRead(channel.size());
+                } else {
+                    CountingInputStream countingStream = new CountingInputStream(stream);
+                    fileSystem = new NPOIFSFileSystem(countingStream);
+                    metrics.bytesRead(countingStream.getCount());
+                }
+                this.source = new HSSFSheetSource(fileSystem);
+            } else {
+                CountingInputStream countingStream = new CountingInputStream(stream);
+                OPCPackage opcPackage = OPCPackage.open(countingStream);
+                metrics.bytesRead(countingStream.getCount());
+                this.source = new XSSFSheetSource(opcPackage);
+            }
+            // 只使用游标时可以不设置POJO类型
+            if (schema != null) {
+                this.mapper = schema;
+                this.cellFieldArray = schema.getCellFieldArray();
+            } else if (targetClass != null) {
+                this.mapper = AnnotationHandler.getCellMapper(targetClass);
+                this.cellFieldArray = AnnotationHandler.getCellFieldArray(targetClass);
+            }
         } catch (Throwable e) {
             throw new ExcelCastException(e);
         }
     }
 
-    // 解析工作表
-    private void parseSheet(InputStream sheetInputStream, final List list, final boolean pagination) throws Throwable {
-        final FieldOperator fieldOperator = BeanUtils.fieldOperate(targetClass);
-        final ConstructorOperator constructorOperator = BeanUtils.constructorOperate(targetClass);
-        XMLReader sheetParser = SAXParserFactory.newInstance().newSAXParser().getXMLReader();
-        sheetParser.setContentHandler(new XSSFSheetHandler(stylesTable, sharedStringsTable) {
-            Object item = constructorOperator.invokeConstructor();
-            @Override
-            public void postCellHandle(int index, String name, String value, int row, boolean newRow) {
-                if (row >= start) {
-                    if (newRow) {
-                        if (start != row) {
-                            list.add(item);
-                            doPaging(list, pagination, false);
-                        }
-                        item = constructorOperator.invokeConstructor();
-                    }
-                    CellField cellField = cellFieldMapping.get(index);
-                    try {
-                        Object cellValue = ValueConverter.convertObjectValue(value, cellField.getType());
-                        fieldOperator.setValueByFieldName(item, cellField.getField(), cellValue);
-                    } catch (Exception e) {
-                        throw new ReadExcelException("Parse " + name + " error : " + e);
-                    }
-                }
+    // 根据文件头判断是否是 OLE2(.xls) 文件, 不移动流的读取位置
+    private boolean isOLE2() throws IOException {
+        byte[] header = new byte[8];
+        if (stream instanceof FileInputStream) {
+            FileChannel channel = ((FileInputStream) stream).getChannel();
+            long position = channel.position();
+            channel.read(ByteBuffer.wrap(header));
+            channel.position(position);
+        } else {
+            if (!stream.markSupported()) {
+                stream = new BufferedInputStream(stream);
             }
-            @Override
-            public void endDocument() throws SAXException {
-                list.add(item);
-                doPaging(list, pagination, true);
+            stream.mark(header.length);
+            int n = 0;
+            while (n < header.length) {
+                int count = stream.read(header, n, header.length - n);
+                if (count < 0) {
+                    break;
+                }
+                n += count;
             }
-        });
-        sheetParser.parse(new InputSource(sheetInputStream));
+            stream.reset();
+        }
+        return POIFSFileSystem.hasPOIFSHeader(new ByteArrayInputStream(header));
+    }
+
+    // 跳过工作表
+    private void skipSheet() {
+        try {
+            source.skipSheet();
+            sheetIndex++;
+        } catch (Exception e) {
+            throw new ExcelCastException(e);
+        }
     }
 
-    private void doPaging(final List list, final boolean pagination, final boolean flush) {
+    private List doPaging(final List list, final boolean pagination, final boolean flush) {
         if (pagination) {
             // 解析完一行, 计数+1
             paging.current++;
             // 解析的数据集达到设定的大小
             if (paging.current >= paging.size || flush) {
-                // 调用读取器处理数据
-                handler.handle(list);
                 // 重置计数
                 paging.current = 0;
+                ReadCheckpoint checkpoint = new ReadCheckpoint(sheetIndex, flush ? ReadCheckpoint.SHEET_END : lastRow);
+                if (dispatcher != null) {
+                    // 异步处理, 使用新的集合继续解析
+                    dispatcher.dispatch(list, checkpoint);
+                    return new ArrayList<>(paging.size);
+                }
+                // 调用读取器处理数据
+                handlePage(list, checkpoint);
                 // 清空集合
                 list.clear();
             }
         }
+        return list;
+    }
+
+    // 处理一页数据, 完成后提交检查点
+    private void handlePage(List list, ReadCheckpoint checkpoint) {
+        int rows = list.size();
+        long begin = System.nanoTime();
+        FlightEvent event = FlightEvents.begin(FlightEventType.PAGE_HANDLED);
+        handler.handle(list);
+        event.finish(null, ++paging.handled, rows);
+        metrics.pageHandled(rows, System.nanoTime() - begin);
+        commit(checkpoint);
+    }
+
+    // 提交检查点
+    private void commit(ReadCheckpoint checkpoint) {
+        this.checkpoint = checkpoint;
+        if (checkpointListener != null) {
+            checkpointListener.committed(checkpoint);
+        }
+    }
+
+    // 开始分页解析
+    private void beginPaging() {
+        if (paging == null) {
+            throw new NullPointerException("Paging can not be null");
+        }
+        if (handler == null) {
+            throw new NullPointerException("PagingHandler can not be null");
+        }
+        if (asyncPaging > 0) {
+            dispatcher = new AsyncPagingDispatcher(asyncPaging, new AsyncPagingDispatcher.PageHandler() {
+                @Override
+                public void handle(List items, ReadCheckpoint checkpoint) {
+                    handlePage(items, checkpoint);
+                }
+            });
+        }
+    }
+
+    // 结束分页解析, 异步处理时等待剩余的页处理完成
+    private void endPaging(boolean completed) {
+        if (dispatcher != null) {
+            AsyncPagingDispatcher dispatcher = this.dispatcher;
+            this.dispatcher = null;
+            if (completed) {
+                dispatcher.finish();
+            } else {
+                dispatcher.abort();
+            }
+        }
     }
 
     // 处理工作表
     private <T> List<T> processSheet(boolean pagination) {
-        InputStream stream = null;
+        if (!beginSheet()) {
+            return new ArrayList<>(0);
+        }
+        // 根据元数据估算行数, 预分配结果集
+        long rows = estimateRows();
+        List<T> list = new ArrayList<>(pagination ? paging.size : (int) Math.max(16, Math.min(rows, MAX_PRESIZE)));
+        if (bindingThreads > 0) {
+            ParallelSheetBinder binder = new ParallelSheetBinder(list, pagination);
+            try {
+                parseSheet(binder, rows);
+            } finally {
+                binder.shutdown();
+            }
+        } else {
+            parseSheet(new SheetBinder(list, pagination), rows);
+        }
+        return list;
+    }
+
+    // 按列处理工作表
+    private void processColumns(ColumnBatch batch, ColumnBatchHandler handler) {
+        if (beginSheet()) {
+            parseSheet(new ColumnBinder(batch, handler), estimateRows());
+        }
+    }
+
+    // 开始处理下一个工作表, 恢复导入时已处理完成的工作表被跳过并返回 false
+    private boolean beginSheet() {
+        sheetIndex++;
+        sheetRows = 0;
+        lastRow = 0;
+        skipRow = 0;
+        if (resume != null) {
+            if (sheetIndex < resume.getSheet() || sheetIndex == resume.getSheet() && resume.isSheetEnd()) {
+                // 已处理完成的工作表, 不解析
+                sheetIndex--;
+                skipSheet();
+                return false;
+            }
+            if (sheetIndex == resume.getSheet()) {
+                skipRow = resume.getRow();
+            }
+        }
+        return true;
+    }
+
+    // 解析工作表, 将单元格交给绑定器
+    private void parseSheet(CellHandler binder, long rows) {
         try {
-            stream = sheetIterator.next();
-            List<T> list = new ArrayList<>(pagination ? paging.size : 16);
-            parseSheet(stream, list, pagination);
-            return list;
+            long begin = System.nanoTime();
+            FlightEvent event = FlightEvents.begin(FlightEventType.SHEET_READ);
+            progress.startSheet();
+            if (rows > 0) {
+                progress.addEstimatedTotal(rows);
+            }
+            String sheetName = source.parseSheet(binder);
+            event.finish(sheetName, sheetIndex, sheetRows);
+            metrics.sheetParsed(sheetIndex, sheetRows, System.nanoTime() - begin);
         } catch (Throwable e) {
+            if (e instanceof SAXException && ((SAXException) e).getException() != null) {
+                e = ((SAXException) e).getException();
+            }
+            if (e instanceof ErrorReport.ErrorLimitException) {
+                // 错误数达到上限, 停止解析, 未满一页的数据不再处理
+                return;
+            }
+            if (e instanceof ExcelCancelledException) {
+                // 已取消, 释放数据源
+                source.release();
+                throw (ExcelCancelledException) e;
+            }
             throw new ExcelCastException(e);
-        } finally {
-            if (stream != null) {
-                try {
-                    stream.close();
-                } catch (IOException e) {
+        }
+    }
+
+    // 单元格名称, 如 B12
+    static String cellName(int index, int row) {
+        StringBuilder name = new StringBuilder();
+        for (int i = index + 1; i > 0; i = (i - 1) / 26) {
+            name.insert(0, (char) ('A' + (i - 1) % 26));
+        }
+        return name.append(row).toString();
+    }
+
+    // 是否因错误数达到上限而停止解析
+    private boolean isStopped() {
+        return errorReport != null && errorReport.isStopped();
+    }
+
+    /**
+     * 将单元格的值转换后绑定到POJO的字段
+     *
+     * @return 返回 {@link #CELL_UNMAPPED}、{@link #CELL_BOUND} 或 {@link #CELL_INVALID}
+     */
+    private int bindCell(Object item, int index, String name, String value, int row) {
+        if (!isMapped(index)) {
+            return CELL_UNMAPPED;
+        }
+        if (errorReport != null) {
+            Class<?> type = cellFieldArray[index].getType();
+            Object cellValue = ValueConverter.tryConvert(value, type);
+            if (cellValue == ValueConverter.INVALID) {
+                metrics.conversionError(name != null ? name : cellName(index, row), null);
+                errorReport.add(sheetIndex, row, index, value, type);
+                return CELL_INVALID;
+            }
+            mapper.setValue(item, index, cellValue);
+            return CELL_BOUND;
+        }
+        try {
+            Object cellValue = ValueConverter.convertObjectValue(value, cellFieldArray[index].getType());
+            mapper.setValue(item, index, cellValue);
+            return CELL_BOUND;
+        } catch (Exception e) {
+            if (name == null) {
+                name = cellName(index, row);
+            }
+            metrics.conversionError(name, e);
+            throw new ReadExcelException("Parse " + name + " error : " + e);
+        }
+    }
+
+    // 是否是映射的列
+    private boolean isMapped(int index) {
+        return index < cellFieldArray.length && cellFieldArray[index] != null;
+    }
+
+    // 单元格引用的行号, 如 B12 返回 12
+    static int rowOf(String ref) {
+        int row = 0;
+        for (int i = 0; i < ref.length(); i++) {
+            char c = ref.charAt(i);
+            if (c >= '0' && c <= '9') {
+                row = row * 10 + (c - '0');
+            }
+        }
+        return row;
+    }
+
+    // 根据元数据估算当前工作表的数据行数, 未知时返回-1
+    private long estimateRows() {
+        sheetEstimated = false;
+        List<SheetInfo> infos;
+        try {
+            infos = probe();
+        } catch (ExcelCastException e) {
+            // 元数据只用于估算, 读取失败不影响解析
+            sheetInfos = Collections.emptyList();
+            return -1;
+        }
+        if (sheetIndex > infos.size() || infos.get(sheetIndex - 1).getRows() < 0) {
+            return -1;
+        }
+        // 预计行数 = 最后一行的行号 - 起始行 + 1
+        long rows = infos.get(sheetIndex - 1).getRows() - firstRow() + 1;
+        sheetEstimated = true;
+        return Math.max(rows, 0);
+    }
+
+    // 根据工作表尺寸估算行数, 已根据元数据估算时忽略
+    private void estimateRows(String ref) {
+        if (sheetEstimated) {
+            return;
+        }
+        // 预计行数 = 尺寸的最后一行 - 起始行 + 1
+        int lastRow = rowOf(ref.substring(ref.lastIndexOf(':') + 1));
+        int rows = lastRow - firstRow() + 1;
+        if (rows > 0) {
+            progress.addEstimatedTotal(rows);
+        }
+    }
+
+    // 开始解析的行号, 从1开始
+    private int firstRow() {
+        return Math.max(Math.max(start, 1), skipRow + 1);
+    }
+
+    /**
+     * 将单元格绑定到POJO的字段
+     */
+    private class SheetBinder implements CellHandler {
+
+        private List list;
+
+        private final boolean pagination;
+
+        private Object item = mapper.newInstance();
+
+        /**
+         * 当前行是否已绑定过单元格
+         */
+        private boolean bound;
+
+        /**
+         * 当前行是否包含无效的单元格
+         */
+        private boolean invalid;
+
+        SheetBinder(List list, boolean pagination) {
+            this.list = list;
+            this.pagination = pagination;
+        }
+
+        /**
+         * 当前对象所在行的行号
+         */
+        private int itemRow;
+
+        @Override
+        public void postCellHandle(int index, String name, String value, int row, boolean newRow) {
+            // 恢复导入时, 已处理的行不转换和绑定
+            if (row >= start && row > skipRow) {
+                if (newRow) {
+                    if (start != row && bound && !invalid) {
+                        addItem();
+                        list = doPaging(list, pagination, false);
+                    }
+                    item = mapper.newInstance();
+                    bound = false;
+                    invalid = false;
+                }
+                int state = bindCell(item, index, name, value, row);
+                itemRow = row;
+                if (state == CELL_BOUND) {
+                    bound = true;
+                } else if (state == CELL_INVALID) {
+                    invalid = true;
+                }
+            }
+        }
+
+        @Override
+        public void postDimensionHandle(String ref) {
+            estimateRows(ref);
+        }
+
+        @Override
+        public void endSheet() {
+            if (bound && !invalid) {
+                addItem();
+            }
+            list = doPaging(list, pagination, true);
+        }
+
+        private void addItem() {
+            list.add(item);
+            lastRow = itemRow;
+            sheetRows++;
+            progress.advance();
+        }
+
+    }
+
+    /**
+     * 将单元格的值交给游标的行缓冲区
+     */
+    private class CursorBinder implements CellHandler {
+
+        private final RowCursor cursor;
+
+        /**
+         * 当前行的行号, 尚未开始时为0
+         */
+        private int itemRow;
+
+        CursorBinder(RowCursor cursor) {
+            this.cursor = cursor;
+        }
+
+        @Override
+        public void postCellHandle(int index, String name, String value, int row, boolean newRow) {
+            if (row >= start && row > skipRow) {
+                if (row != itemRow) {
+                    if (itemRow != 0) {
+                        commitRow();
+                    }
+                    cursor.beginRow(sheetIndex, row);
+                    itemRow = row;
+                }
+                cursor.setCell(index, value);
+            }
+        }
+
+        @Override
+        public void postDimensionHandle(String ref) {
+            estimateRows(ref);
+        }
+
+        @Override
+        public void endSheet() {
+            if (itemRow != 0) {
+                commitRow();
+            }
+        }
+
+        private void commitRow() {
+            cursor.commitRow();
+            lastRow = itemRow;
+            sheetRows++;
+            progress.advance();
+        }
+
+    }
+
+    /**
+     * 将单元格按列绑定到 {@link ColumnBatch}
+     */
+    private class ColumnBinder implements CellHandler {
+
+        private final ColumnBatch batch;
+
+        /**
+         * 页数据处理, 为 null 时不分页
+         */
+        private final ColumnBatchHandler handler;
+
+        /**
+         * 当前行是否已绑定过单元格
+         */
+        private boolean bound;
+
+        /**
+         * 当前行是否包含无效的单元格
+         */
+        private boolean invalid;
+
+        /**
+         * 当前行的行号
+         */
+        private int itemRow;
+
+        /**
+         * 是否已开始第一行
+         */
+        private boolean started;
+
+        ColumnBinder(ColumnBatch batch, ColumnBatchHandler handler) {
+            this.batch = batch;
+            this.handler = handler;
+        }
+
+        @Override
+        public void postCellHandle(int index, String name, String value, int row, boolean newRow) {
+            if (row >= start && row > skipRow) {
+                if (newRow || !started) {
+                    if (bound && !invalid) {
+                        commitRow();
+                    }
+                    batch.beginRow();
+                    started = true;
+                    bound = false;
+                    invalid = false;
+                }
+                itemRow = row;
+                int state = bindColumn(index, name, value, row);
+                if (state == CELL_BOUND) {
+                    bound = true;
+                } else if (state == CELL_INVALID) {
+                    invalid = true;
+                }
+            }
+        }
+
+        @Override
+        public void postDimensionHandle(String ref) {
+            estimateRows(ref);
+        }
+
+        @Override
+        public void endSheet() {
+            if (bound && !invalid) {
+                commitRow();
+            }
+            if (handler != null) {
+                flush(new ReadCheckpoint(sheetIndex, ReadCheckpoint.SHEET_END));
+            }
+        }
+
+        private void commitRow() {
+            batch.commitRow();
+            lastRow = itemRow;
+            sheetRows++;
+            progress.advance();
+            if (handler != null && batch.size() >= paging.size) {
+                flush(new ReadCheckpoint(sheetIndex, lastRow));
+            }
+        }
+
+        // 处理一页数据并清空
+        private void flush(ReadCheckpoint checkpoint) {
+            int rows = batch.size();
+            if (rows > 0) {
+                long begin = System.nanoTime();
+                FlightEvent event = FlightEvents.begin(FlightEventType.PAGE_HANDLED);
+                handler.handle(batch);
+                event.finish(null, ++paging.handled, rows);
+                metrics.pageHandled(rows, System.nanoTime() - begin);
+                batch.clear();
+            }
+            commit(checkpoint);
+        }
+
+        // 转换单元格的值并存入列
+        private int bindColumn(int index, String name, String value, int row) {
+            if (!isMapped(index)) {
+                return CELL_UNMAPPED;
+            }
+            if (errorReport != null) {
+                if (batch.trySet(index, value)) {
+                    return CELL_BOUND;
+                }
+                metrics.conversionError(name != null ? name : cellName(index, row), null);
+                errorReport.add(sheetIndex, row, index, value, cellFieldArray[index].getType());
+                return CELL_INVALID;
+            }
+            try {
+                batch.set(index, value);
+                return CELL_BOUND;
+            } catch (Exception e) {
+                if (name == null) {
+                    name = cellName(index, row);
+                }
+                metrics.conversionError(name, e);
+                throw new ReadExcelException("Parse " + name + " error : " + e);
+            }
+        }
+
+    }
+
+    /**
+     * 并行绑定: 解析线程只把原始单元格按行收集成批, 由线程池并行转换和绑定, 结果按行的顺序(或完成的顺序)
+     * 回到解析线程后再加入结果集或分页
+     */
+    private class ParallelSheetBinder implements CellHandler {
+
+        private List list;
+
+        private final boolean pagination;
+
+        private final ExecutorService executor;
+
+        /**
+         * 按提交顺序排列的批次
+         */
+        private final Deque<Future<RowBatch>> pending = new ArrayDeque<>();
+
+        /**
+         * 按完成顺序取出的批次
+         */
+        private final CompletionService<RowBatch> completion;
+
+        /**
+         * 在途的批次数
+         */
+        private int inFlight;
+
+        private RowBatch batch = new RowBatch();
+
+        /**
+         * 上一个绑定完成的对象, 最后一个对象在工作表结束时加入, 与同步绑定的分页时机保持一致
+         */
+        private Object last;
+
+        /**
+         * 上一个绑定完成的对象所在行的行号
+         */
+        private int lastItemRow;
+
+        ParallelSheetBinder(List list, boolean pagination) {
+            this.list = list;
+            this.pagination = pagination;
+            this.executor = Executors.newFixedThreadPool(bindingThreads, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "excel-binding");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            this.completion = orderedBinding ? null : new ExecutorCompletionService<RowBatch>(executor);
+        }
+
+        @Override
+        public void postCellHandle(int index, String name, String value, int row, boolean newRow) {
+            if (row >= start && row > skipRow && isMapped(index)) {
+                if (row != batch.lastRow() && batch.rows == RowBatch.ROWS) {
+                    submit();
+                }
+                batch.add(row, index, name, value);
+            }
+        }
+
+        @Override
+        public void postDimensionHandle(String ref) {
+            estimateRows(ref);
+        }
+
+        @Override
+        public void endSheet() {
+            if (batch.rows > 0) {
+                submit();
+            }
+            while (inFlight > 0) {
+                drain(true);
+            }
+            if (last != null) {
+                list.add(last);
+                lastRow = lastItemRow;
+                sheetRows++;
+                progress.advance();
+            }
+            list = doPaging(list, pagination, true);
+        }
+
+        void shutdown() {
+            executor.shutdownNow();
+        }
+
+        private void submit() {
+            final RowBatch rows = batch;
+            batch = new RowBatch();
+            Callable<RowBatch> task = new Callable<RowBatch>() {
+                @Override
+                public RowBatch call() {
+                    rows.bind();
+                    return rows;
+                }
+            };
+            if (completion != null) {
+                completion.submit(task);
+            } else {
+                pending.add(executor.submit(task));
+            }
+            inFlight++;
+            // 取出已完成的批次, 在途批次过多时等待
+            while (inFlight > 0 && drain(inFlight > bindingThreads * 2)) {}
+        }
+
+        /**
+         * 取出一个已完成的批次
+         *
+         * @param wait 是否等待
+         * @return 取出返回 true
+         */
+        private boolean drain(boolean wait) {
+            try {
+                Future<RowBatch> future;
+                if (completion != null) {
+                    future = wait ? completion.take() : completion.poll();
+                } else {
+                    future = wait || pending.peek().isDone() ? pending.poll() : null;
+                }
+                if (future == null) {
+                    return false;
+                }
+                inFlight--;
+                RowBatch done = future.get();
+                for (int i = 0; i < done.items.size(); i++) {
+                    if (last != null) {
+                        list.add(last);
+                        lastRow = lastItemRow;
+                        sheetRows++;
+                        progress.advance();
+                        list = doPaging(list, pagination, false);
+                    }
+                    last = done.items.get(i);
+                    lastItemRow = done.itemRows[i];
+                }
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ExcelCastException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
                 }
+                throw new ExcelCastException(e.getCause());
             }
         }
+
+    }
+
+    /**
+     * 一批原始行, 单元格按行依次存放
+     */
+    private class RowBatch {
+
+        static final int ROWS = 256;
+
+        int rows;
+
+        int cells;
+
+        int[] rowNumbers = new int[ROWS];
+
+        /**
+         * 每一行最后一个单元格之后的位置
+         */
+        int[] rowEnds = new int[ROWS];
+
+        int[] indexes = new int[ROWS * 8];
+
+        String[] names = new String[ROWS * 8];
+
+        String[] values = new String[ROWS * 8];
+
+        int lastRow() {
+            return rows == 0 ? -1 : rowNumbers[rows - 1];
+        }
+
+        void add(int row, int index, String name, String value) {
+            if (row != lastRow()) {
+                rowNumbers[rows++] = row;
+            }
+            if (cells == indexes.length) {
+                indexes = Arrays.copyOf(indexes, cells << 1);
+                names = Arrays.copyOf(names, cells << 1);
+                values = Arrays.copyOf(values, cells << 1);
+            }
+            indexes[cells] = index;
+            names[cells] = name;
+            values[cells] = value;
+            rowEnds[rows - 1] = ++cells;
+        }
+
+        /**
+         * 绑定完成的对象
+         */
+        List items;
+
+        /**
+         * 绑定完成的对象所在行的行号
+         */
+        int[] itemRows;
+
+        void bind() {
+            items = new ArrayList(rows);
+            itemRows = new int[rows];
+            int cell = 0;
+            for (int i = 0; i < rows; i++) {
+                Object item = mapper.newInstance();
+                boolean invalid = false;
+                for (; cell < rowEnds[i]; cell++) {
+                    if (bindCell(item, indexes[cell], names[cell], values[cell], rowNumbers[i]) == CELL_INVALID) {
+                        invalid = true;
+                    }
+                }
+                // 包含无效单元格的行不加入结果集
+                if (!invalid) {
+                    itemRows[items.size()] = rowNumbers[i];
+                    items.add(item);
+                }
+            }
+        }
+
     }
 
     static class Paging {
@@ -217,6 +1184,8 @@ public class ExcelReader {
 
         int current = 0;
 
+        int handled = 0;
+
     }
 
 }
\ No newline at end of file
@@ -1,12 +1,17 @@
 package com.github.fanlychie.excelutils.read;
 
+import com.github.fanlychie.excelutils.annotation.RowSchema;
 import com.github.fanlychie.excelutils.exception.ExcelCastException;
+import com.github.fanlychie.excelutils.metrics.MetricsListener;
+import com.github.fanlychie.excelutils.metrics.NoopMetricsListener;
+import com.github.fanlychie.excelutils.progress.ExcelProgress;
 import com.github.fanlychie.excelutils.read.ExcelReader.Paging;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
+import java.nio.charset.Charset;
 
 /**
  * EXCEL读取器的构建工具, 用于构建一个{@link ExcelReader}实例
@@ -25,6 +30,11 @@ public final class ExcelReaderBuilder {
      */
     private Class<?> pojoClass;
 
+    /**
+     * 行结构, 代替POJO类型
+     */
+    private RowSchema schema;
+
     /**
      * 正文从第几行开始解析
      */
@@ -40,6 +50,61 @@ public final class ExcelReaderBuilder {
      */
     private PagingHandler handler;
 
+    /**
+     * 度量监听器
+     */
+    private MetricsListener metrics = NoopMetricsListener.INSTANCE;
+
+    /**
+     * 进度和取消句柄
+     */
+    private ExcelProgress progress;
+
+    /**
+     * 异步分页处理的队列大小
+     */
+    private int asyncPaging;
+
+    /**
+     * 并行绑定的线程数
+     */
+    private int bindingThreads;
+
+    /**
+     * 并行绑定时是否保持行的顺序
+     */
+    private boolean orderedBinding = true;
+
+    /**
+     * 校验模式的错误报告
+     */
+    private ErrorReport errorReport;
+
+    /**
+     * 检查点监听器
+     */
+    private CheckpointListener checkpointListener;
+
+    /**
+     * 恢复导入的检查点
+     */
+    private ReadCheckpoint resume;
+
+    /**
+     * 是否是CSV文件
+     */
+    private boolean csv;
+
+    /**
+     * CSV分隔符
+     */
+    private char delimiter;
+
+    /**
+     * CSV文件编码
+     */
+    private Charset charset;
+
     /**
      * 配置EXCEL文件流
      *
@@ -83,6 +148,19 @@ public final class ExcelReaderBuilder {
      */
     public ExcelReaderBuilder payload(Class<?> clazz) {
         this.pojoClass = clazz;
+        this.schema = null;
+        return this;
+    }
+
+    /**
+     * 配置EXCEL文件数据行的结构, 每一行解析为 Object[] 或 Map
+     *
+     * @param schema {@link RowSchema}
+     * @return 返回 {@link ExcelReaderBuilder}
+     */
+    public ExcelReaderBuilder payload(RowSchema schema) {
+        this.schema = schema;
+        this.pojoClass = null;
         return this;
     }
 
@@ -109,6 +187,57 @@ public final class ExcelReaderBuilder {
         return this;
     }
 
+    /**
+     * 异步处理分页数据, 解析线程将每一页交给单独的线程调用PagingHandler处理后继续解析,
+     * 队列中最多有2页等待处理。每一页都是新的集合, PagingHandler可以持有它
+     *
+     * @return 返回 {@link ExcelReaderBuilder}
+     */
+    public ExcelReaderBuilder asyncPaging() {
+        return asyncPaging(2);
+    }
+
+    /**
+     * 异步处理分页数据, 解析线程将每一页交给单独的线程调用PagingHandler处理后继续解析,
+     * 队列已满时解析线程等待。每一页都是新的集合, PagingHandler可以持有它
+     *
+     * @param queueSize 队列中最多等待处理的页数
+     * @return 返回 {@link ExcelReaderBuilder}
+     */
+    public ExcelReaderBuilder asyncPaging(int queueSize) {
+        if (queueSize < 1) {
+            throw new IllegalArgumentException("queueSize must be greater than 0");
+        }
+        this.asyncPaging = queueSize;
+        return this;
+    }
+
+    /**
+     * 并行转换和绑定, 解析线程只收集原始单元格, 由多个线程将其转换并绑定到POJO, 结果保持行的顺序
+     *
+     * @param threads 转换和绑定的线程数
+     * @return 返回 {@link ExcelReaderBuilder}
+     */
+    public ExcelReaderBuilder parallelBinding(int threads) {
+        return parallelBinding(threads, true);
+    }
+
+    /**
+     * 并行转换和绑定, 解析线程只收集原始单元格, 由多个线程将其转换并绑定到POJO
+     *
+     * @param threads 转换和绑定的线程数
+     * @param ordered 是否保持行的顺序, false 时按批次完成的先后顺序交付
+     * @return 返回 {@link ExcelReaderBuilder}
+     */
+    public ExcelReaderBuilder parallelBinding(int threads, boolean ordered) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be greater than 0");
+        }
+        this.bindingThreads = threads;
+        this.orderedBinding = ordered;
+        return this;
+    }
+
     /**
      * 配置从文件的第几行开始解析
      *
@@ -120,18 +249,127 @@ public final class ExcelReaderBuilder {
         return this;
     }
 
+    /**
+     * 度量监听器, 用于观察读取字节数、工作表解析和分页处理的耗时
+     *
+     * @param listener {@link MetricsListener}, 为 null 时不记录度量
+     * @return 返回 {@link ExcelReaderBuilder}
+     */
+    public ExcelReaderBuilder metrics(MetricsListener listener) {
+        this.metrics = listener == null ? NoopMetricsListener.INSTANCE : listener;
+        return this;
+    }
+
+    /**
+     * 进度和取消句柄, 可在其他线程查看读取进度或取消读取
+     *
+     * @param progress {@link ExcelProgress}
+     * @return 返回 {@link ExcelReaderBuilder}
+     */
+    public ExcelReaderBuilder progress(ExcelProgress progress) {
+        this.progress = progress;
+        return this;
+    }
+
+    /**
+     * 校验模式, 单元格的值转换失败时记录到错误报告并继续解析, 不为每个错误创建异常, 包含错误的行不加入结果集。
+     * 读取完成后通过{@link ErrorReport}或{@link ExcelReader#getErrorReport()}查看错误
+     *
+     * @param report 错误报告, 可设置保留的错误数和停止解析的错误数
+     * @return 返回 {@link ExcelReaderBuilder}
+     */
+    public ExcelReaderBuilder validate(ErrorReport report) {
+        this.errorReport = report;
+        return this;
+    }
+
+    /**
+     * 检查点监听器, 分页导入时每一页数据处理完成后回调, 用于保存检查点
+     *
+     * @param listener {@link CheckpointListener}
+     * @return 返回 {@link ExcelReaderBuilder}
+     */
+    public ExcelReaderBuilder checkpoint(CheckpointListener listener) {
+        this.checkpointListener = listener;
+        return this;
+    }
+
+    /**
+     * 从检查点恢复导入, 检查点之前的工作表不再解析, 检查点所在工作表中已处理的行不再转换和绑定,
+     * 从检查点之后的第一行开始分页
+     *
+     * @param checkpoint 中断前最后保存的检查点
+     * @return 返回 {@link ExcelReaderBuilder}
+     */
+    public ExcelReaderBuilder resume(ReadCheckpoint checkpoint) {
+        this.resume = checkpoint;
+        return this;
+    }
+
+    /**
+     * 读取逗号分隔的 UTF-8 编码的CSV文件, 按@Cell的index映射列
+     *
+     * @return 返回 {@link ExcelReaderBuilder}
+     */
+    public ExcelReaderBuilder csv() {
+        return csv(',');
+    }
+
+    /**
+     * 读取 UTF-8 编码的CSV文件, 按@Cell的index映射列
+     *
+     * @param delimiter 分隔符, 如 ',' 或 '\t'
+     * @return 返回 {@link ExcelReaderBuilder}
+     */
+    public ExcelReaderBuilder csv(char delimiter) {
+        return csv(delimiter, Charset.forName("UTF-8"));
+    }
+
+    /**
+     * 读取CSV文件, 按@Cell的index映射列
+     *
+     * @param delimiter 分隔符, 如 ',' 或 '\t'
+     * @param charset   文件编码
+     * @return 返回 {@link ExcelReaderBuilder}
+     */
+    public ExcelReaderBuilder csv(char delimiter, Charset charset) {
+        this.csv = true;
+        this.delimiter = delimiter;
+        this.charset = charset;
+        return this;
+    }
+
     /**
      * 构建 {@link ExcelReader} 实例
      *
      * @return 返回 {@link ExcelReader}
      */
     public ExcelReader build() {
+        if ((checkpointListener != null || resume != null) && bindingThreads > 0 && !orderedBinding) {
+            throw new IllegalArgumentException("checkpoint requires ordered binding");
+        }
         ExcelReader excelReader = new ExcelReader();
         excelReader.setStream(excelStream);
         excelReader.setStart(rownum);
         excelReader.setTargetClass(pojoClass);
+        excelReader.setSchema(schema);
         excelReader.setPaging(paging);
         excelReader.setHandler(handler);
+        excelReader.setAsyncPaging(asyncPaging);
+        excelReader.setBindingThreads(bindingThreads);
+        excelReader.setOrderedBinding(orderedBinding);
+        excelReader.setMetrics(metrics);
+        excelReader.setErrorReport(errorReport);
+        excelReader.setCheckpointListener(checkpointListener);
+        excelReader.setResume(resume);
+        if (progress != null) {
+            excelReader.setProgress(progress);
+        }
+        if (csv) {
+            excelReader.setCsv(true);
+            excelReader.setDelimiter(delimiter);
+            excelReader.setCharset(charset);
+        }
         excelReader.init();
         return excelReader;
     }
@@ -0,0 +1,270 @@
+package com.github.fanlychie.excelutils.read;
+
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.BoundSheetRecord;
+import org.apache.poi.hssf.record.CellValueRecordInterface;
+import org.apache.poi.hssf.record.DimensionsRecord;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.RecordFactoryInputStream;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.poifs.filesystem.DirectoryNode;
+import org.apache.poi.poifs.filesystem.DocumentInputStream;
+import org.apache.poi.poifs.filesystem.NPOIFSFileSystem;
+import org.apache.poi.ss.formula.eval.ErrorEval;
+import org.apache.poi.ss.usermodel.Cell;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BIFF8(.xls)工作表数据源, 使用 HSSF 事件模型按记录流式解析工作表, 不创建 HSSFWorkbook
+ *
+ * @author fanlychie
+ */
+class HSSFSheetSource implements SheetSource {
+
+    /**
+     * 探测元数据时每个工作表最多读取的记录数
+     */
+    private static final int PROBE_RECORDS = 256;
+
+    private final NPOIFSFileSystem fileSystem;
+
+    private final RecordFactoryInputStream records;
+
+    /**
+     * 跟踪格式记录, 用于格式化数值和日期单元格
+     */
+    private final FormatTrackingHSSFListener formatListener;
+
+    private final List<String> sheetNames = new ArrayList<>();
+
+    /**
+     * 工作表子流在工作薄流中的位置
+     */
+    private final List<Integer> sheetPositions = new ArrayList<>();
+
+    private SSTRecord sstRecord;
+
+    /**
+     * 已解析或跳过的工作表数
+     */
+    private int sheetCount;
+
+    HSSFSheetSource(NPOIFSFileSystem fileSystem) throws IOException {
+        this.fileSystem = fileSystem;
+        DirectoryNode root = fileSystem.getRoot();
+        this.records = new RecordFactoryInputStream(
+                root.createDocumentInputStream(HSSFWorkbook.getWorkbookDirEntryName(root)), false);
+        this.formatListener = new FormatTrackingHSSFListener(new HSSFListener() {
+            @Override
+            public void processRecord(Record record) {}
+        });
+        readGlobals();
+    }
+
+    @Override
+    public boolean hasNextSheet() {
+        return sheetCount < sheetNames.size();
+    }
+
+    @Override
+    public void skipSheet() {
+        nextSubstream();
+        Record record;
+        int depth = 0;
+        while ((record = records.nextRecord()) != null) {
+            if (record instanceof BOFRecord) {
+                depth++;
+            } else if (record instanceof EOFRecord && depth-- == 0) {
+                break;
+            }
+        }
+    }
+
+    @Override
+    public String parseSheet(CellHandler handler) {
+        nextSubstream();
+        String sheetName = sheetNames.get(sheetCount - 1);
+        Record record;
+        // 嵌入的图表等子流的深度
+        int depth = 0;
+        int lastRow = -1;
+        // 公式的字符串结果位于紧随其后的 StringRecord 中
+        FormulaRecord stringFormula = null;
+        while ((record = records.nextRecord()) != null) {
+            formatListener.processRecord(record);
+            if (record instanceof BOFRecord) {
+                depth++;
+                continue;
+            }
+            if (record instanceof EOFRecord) {
+                if (depth-- == 0) {
+                    break;
+                }
+                continue;
+            }
+            if (depth > 0) {
+                continue;
+            }
+            CellValueRecordInterface cell = null;
+            String value = null;
+            if (record instanceof LabelSSTRecord) {
+                LabelSSTRecord labelSST = (LabelSSTRecord) record;
+                cell = labelSST;
+                value = sstRecord.getString(labelSST.getSSTIndex()).getString();
+            } else if (record instanceof NumberRecord) {
+                cell = (NumberRecord) record;
+                value = formatListener.formatNumberDateCell(cell);
+            } else if (record instanceof LabelRecord) {
+                LabelRecord label = (LabelRecord) record;
+                cell = label;
+                value = label.getValue();
+            } else if (record instanceof BoolErrRecord) {
+                BoolErrRecord boolErr = (BoolErrRecord) record;
+                cell = boolErr;
+                value = boolErr.isBoolean() ? String.valueOf(boolErr.getBooleanValue()) :
+                        ErrorEval.getText(boolErr.getErrorValue());
+            } else if (record instanceof FormulaRecord) {
+                FormulaRecord formula = (FormulaRecord) record;
+                if (formula.hasCachedResultString()) {
+                    stringFormula = formula;
+                } else {
+                    cell = formula;
+                    switch (formula.getCachedResultType()) {
+                        case Cell.CELL_TYPE_BOOLEAN:
+                            value = String.valueOf(formula.getCachedBooleanValue());
+                            break;
+                        case Cell.CELL_TYPE_ERROR:
+                            value = ErrorEval.getText(formula.getCachedErrorValue());
+                            break;
+                        default:
+                            value = formatListener.formatNumberDateCell(formula);
+                            break;
+                    }
+                }
+            } else if (record instanceof StringRecord && stringFormula != null) {
+                cell = stringFormula;
+                value = ((StringRecord) record).getString();
+                stringFormula = null;
+            } else if (record instanceof DimensionsRecord) {
+                // 尺寸记录的最后一行是从0开始的行号+1
+                int rows = ((DimensionsRecord) record).getLastRow();
+                if (rows > 0) {
+                    handler.postDimensionHandle("A1:A" + rows);
+                }
+            }
+            // 与 XSSF 一致, 空单元格不回调
+            if (cell != null && value != null && !value.isEmpty()) {
+                int row = cell.getRow() + 1;
+                handler.postCellHandle(cell.getColumn(), null, value, row, lastRow != -1 && row != lastRow);
+                lastRow = row;
+            }
+        }
+        handler.endSheet();
+        return sheetName;
+    }
+
+    @Override
+    public List<SheetInfo> probe() throws IOException {
+        List<SheetInfo> infos = new ArrayList<>();
+        DirectoryNode root = fileSystem.getRoot();
+        String entryName = HSSFWorkbook.getWorkbookDirEntryName(root);
+        for (int i = 0; i < sheetNames.size(); i++) {
+            // 使用新的文档流定位到工作表子流, 不影响解析的位置
+            DocumentInputStream in = root.createDocumentInputStream(entryName);
+            try {
+                in.skip(sheetPositions.get(i));
+                infos.add(probeSheet(sheetNames.get(i), in));
+            } finally {
+                in.close();
+            }
+        }
+        return infos;
+    }
+
+    /**
+     * 按记录头跳过记录, 直至读到工作表的尺寸记录
+     */
+    private SheetInfo probeSheet(String name, DocumentInputStream in) {
+        for (int i = 0; i < PROBE_RECORDS && in.available() >= 4; i++) {
+            int sid = in.readUShort();
+            int size = in.readUShort();
+            if (sid == DimensionsRecord.sid) {
+                // 起始行, 最后一行 + 1, 起始列, 最后一列 + 1
+                int firstRow = in.readInt();
+                int lastRow = in.readInt();
+                int firstCol = in.readUShort();
+                int lastCol = in.readUShort();
+                if (lastRow <= firstRow) {
+                    return new SheetInfo(name, null, 0, true);
+                }
+                String dimension = ExcelReader.cellName(firstCol, firstRow + 1) + ":" +
+                        ExcelReader.cellName(Math.max(lastCol - 1, firstCol), lastRow);
+                // 最后一行 + 1 即最后一行的行号
+                return new SheetInfo(name, dimension, lastRow, false);
+            }
+            if (sid == EOFRecord.sid) {
+                break;
+            }
+            in.skip(size);
+        }
+        return new SheetInfo(name, null, -1, false);
+    }
+
+    @Override
+    public void release() {
+        try {
+            fileSystem.close();
+        } catch (IOException e) {
+        }
+    }
+
+    /**
+     * 读取工作薄全局子流中的工作表名称、共享字符串和格式
+     */
+    private void readGlobals() {
+        List<BoundSheetRecord> boundSheets = new ArrayList<>();
+        Record record;
+        while ((record = records.nextRecord()) != null) {
+            formatListener.processRecord(record);
+            if (record instanceof BoundSheetRecord) {
+                boundSheets.add((BoundSheetRecord) record);
+            } else if (record instanceof SSTRecord) {
+                sstRecord = (SSTRecord) record;
+            } else if (record instanceof EOFRecord) {
+                break;
+            }
+        }
+        for (BoundSheetRecord boundSheet : BoundSheetRecord.orderByBofPosition(boundSheets)) {
+            sheetNames.add(boundSheet.getSheetname());
+            sheetPositions.add(boundSheet.getPositionOfBof());
+        }
+    }
+
+    /**
+     * 移动到下一个工作表子流的 BOF 记录之后
+     */
+    private void nextSubstream() {
+        Record record;
+        while ((record = records.nextRecord()) != null) {
+            if (record instanceof BOFRecord) {
+                sheetCount++;
+                return;
+            }
+        }
+        throw new IllegalStateException("no more sheet");
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.github.fanlychie.excelutils.read;
+
+import org.reactivestreams.Publisher;
+
+/**
+ * {@link ExcelReader}的 Reactive Streams 适配器, 依赖可选的 reactive-streams 包,
+ * 不使用时{@link ExcelReader}不需要该依赖
+ *
+ * @author fanlychie
+ */
+public class ReactiveExcelReader {
+
+    private final ExcelReader reader;
+
+    /**
+     * @param reader 尚未开始解析的读取器
+     */
+    public ReactiveExcelReader(ExcelReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * 以 Reactive Streams 发布者的形式解析所有的工作表(Sheet)。订阅并请求数据后开始在单独的线程中解析,
+     * 每一行都在订阅者请求之后才发出, 订阅者来不及处理时解析线程等待; 取消订阅时停止解析。
+     * 设置了分页大小时, 解析线程最多预先解析一页
+     *
+     * @param <T> 期望的结果类型
+     * @return 返回 {@link Publisher}, 只能订阅一次
+     */
+    public <T> Publisher<T> publish() {
+        return new RowPublisher<>(reader);
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.github.fanlychie.excelutils.read;
+
+import java.io.Serializable;
+
+/**
+ * 分页导入的检查点, 表示该工作表之前的工作表以及该工作表中不超过该行号的行都已处理完成。
+ * 导入中断后, 将最后一个检查点交给{@link ExcelReaderBuilder#resume(ReadCheckpoint)}即可从检查点之后继续导入
+ *
+ * @author fanlychie
+ */
+public final class ReadCheckpoint implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 表示整个工作表都已处理完成的行号
+     */
+    public static final int SHEET_END = Integer.MAX_VALUE;
+
+    /**
+     * 工作表索引, 从1开始
+     */
+    private final int sheet;
+
+    /**
+     * 已处理的最后一行的行号, 从1开始
+     */
+    private final int row;
+
+    /**
+     * 构建检查点
+     *
+     * @param sheet 工作表索引, 从1开始
+     * @param row   已处理的最后一行的行号, {@link #SHEET_END} 表示整个工作表
+     */
+    public ReadCheckpoint(int sheet, int row) {
+        this.sheet = sheet;
+        this.row = row;
+    }
+
+    /**
+     * 解析{@link #toString()}输出的检查点, 便于保存为文本
+     *
+     * @param text 如 "2:15000"
+     * @return 返回 {@link ReadCheckpoint}
+     */
+    public static ReadCheckpoint valueOf(String text) {
+        int separator = text.indexOf(':');
+        if (separator == -1) {
+            throw new IllegalArgumentException("invalid checkpoint: " + text);
+        }
+        return new ReadCheckpoint(Integer.parseInt(text.substring(0, separator).trim()),
+                Integer.parseInt(text.substring(separator + 1).trim()));
+    }
+
+    public int getSheet() {
+        return sheet;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * 整个工作表是否都已处理完成
+     *
+     * @return 是则返回 true
+     */
+    public boolean isSheetEnd() {
+        return row == SHEET_END;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof ReadCheckpoint)) {
+            return false;
+        }
+        ReadCheckpoint that = (ReadCheckpoint) o;
+        return sheet == that.sheet && row == that.row;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * sheet + row;
+    }
+
+    @Override
+    public String toString() {
+        return sheet + ":" + row;
+    }
+
+}
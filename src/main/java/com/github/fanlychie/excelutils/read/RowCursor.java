@@ -0,0 +1,354 @@
+package com.github.fanlychie.excelutils.read;
+
+import com.github.fanlychie.excelutils.exception.ExcelCancelledException;
+import com.github.fanlychie.excelutils.exception.ExcelCastException;
+import com.github.fanlychie.excelutils.exception.ReadExcelException;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 行游标, 按顺序逐行访问所有工作表的单元格, 不创建POJO。解析在单独的线程中进行, 解析的行存放在固定数量的行块中,
+ * 游标移过一个行块后将其交还给解析线程重用, 堆内存的占用与文件的大小无关。
+ * 游标本身就是当前行的视图, 调用{@link #next()}后之前的值不再有效。
+ * <pre>
+ * try (RowCursor cursor = reader.cursor()) {
+ *     while (cursor.next()) {
+ *         long id = cursor.getLong(0);
+ *         String name = cursor.getString(1);
+ *     }
+ * }
+ * </pre>
+ *
+ * @author fanlychie
+ */
+public class RowCursor implements Closeable {
+
+    /**
+     * 行块的数量
+     */
+    private static final int BLOCKS = 3;
+
+    /**
+     * 每个行块的行数
+     */
+    private static final int BLOCK_ROWS = 256;
+
+    /**
+     * 结束标记
+     */
+    private static final Block END = new Block();
+
+    private final ExcelReader reader;
+
+    /**
+     * 可重用的行块
+     */
+    private final BlockingQueue<Block> free = new ArrayBlockingQueue<>(BLOCKS);
+
+    /**
+     * 已填满等待访问的行块
+     */
+    private final BlockingQueue<Block> full = new ArrayBlockingQueue<>(BLOCKS + 1);
+
+    private Thread parser;
+
+    /**
+     * 解析失败时的异常
+     */
+    private volatile Throwable failure;
+
+    /**
+     * 游标所在的行块
+     */
+    private Block block;
+
+    /**
+     * 游标在行块中的位置
+     */
+    private int position;
+
+    /**
+     * 当前行的单元格的值, 以单元格索引为下标
+     */
+    private String[] cells;
+
+    private boolean finished;
+
+    /**
+     * 是否已关闭
+     */
+    private volatile boolean closed;
+
+    /**
+     * 解析线程正在填充的行块
+     */
+    private Block filling;
+
+    RowCursor(ExcelReader reader) {
+        this.reader = reader;
+        for (int i = 0; i < BLOCKS; i++) {
+            free.add(new Block());
+        }
+    }
+
+    /**
+     * 移动到下一行
+     *
+     * @return 有下一行返回 true, 所有工作表都已读完返回 false
+     */
+    public boolean next() {
+        if (finished) {
+            return false;
+        }
+        if (parser == null) {
+            start();
+        }
+        while (block == null || ++position >= block.size) {
+            if (block != null) {
+                // 已访问完的行块交还给解析线程
+                free.offer(block);
+            }
+            try {
+                block = full.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new ExcelCastException(e);
+            }
+            if (block == END) {
+                block = null;
+                finished = true;
+                Throwable e = failure;
+                if (e instanceof RuntimeException) {
+                    throw (RuntimeException) e;
+                }
+                if (e != null) {
+                    throw new ExcelCastException(e);
+                }
+                return false;
+            }
+            position = -1;
+        }
+        cells = block.cells[position];
+        return true;
+    }
+
+    /**
+     * 当前行所在工作表的索引
+     *
+     * @return 返回工作表索引, 索引值从1开始
+     */
+    public int getSheet() {
+        return block.sheets[position];
+    }
+
+    /**
+     * 当前行的行号
+     *
+     * @return 返回行号, 从1开始
+     */
+    public int getRow() {
+        return block.rows[position];
+    }
+
+    /**
+     * 单元格是否为空
+     *
+     * @param index 单元格索引
+     * @return 为空返回 true
+     */
+    public boolean isNull(int index) {
+        return index >= cells.length || cells[index] == null;
+    }
+
+    /**
+     * 单元格的文本
+     *
+     * @param index 单元格索引
+     * @return 返回单元格的文本, 为空时返回 null
+     */
+    public String getString(int index) {
+        return index < cells.length ? cells[index] : null;
+    }
+
+    /**
+     * 单元格的数值
+     *
+     * @param index 单元格索引
+     * @return 返回数值, 为空时返回 0
+     */
+    public double getDouble(int index) {
+        String value = getString(index);
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw conversionError(index, e);
+        }
+    }
+
+    /**
+     * 单元格的整数值, 小数被截断
+     *
+     * @param index 单元格索引
+     * @return 返回整数值, 为空时返回 0
+     */
+    public long getLong(int index) {
+        String value = getString(index);
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return ValueConverter.toLong(value);
+        } catch (NumberFormatException e) {
+            throw conversionError(index, e);
+        }
+    }
+
+    /**
+     * 单元格的布尔值, 支持 1/0、是/否、Y/N、YES/NO、T/F、TRUE/FALSE
+     *
+     * @param index 单元格索引
+     * @return 返回布尔值, 为空时返回 false
+     */
+    public boolean getBoolean(int index) {
+        String value = getString(index);
+        if (value == null) {
+            return false;
+        }
+        try {
+            return ValueConverter.convertBooleanValue(value);
+        } catch (ClassCastException e) {
+            throw conversionError(index, e);
+        }
+    }
+
+    /**
+     * 单元格的日期值
+     *
+     * @param index 单元格索引
+     * @return 返回新的 {@link Date} 实例, 为空时返回 null
+     */
+    public Date getDate(int index) {
+        String value = getString(index);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return (Date) ValueConverter.convertObjectValue(value, Date.class);
+        } catch (RuntimeException e) {
+            throw conversionError(index, e);
+        }
+    }
+
+    /**
+     * 停止解析, 未读完时应调用以结束解析线程
+     */
+    @Override
+    public void close() {
+        finished = true;
+        closed = true;
+        if (parser != null) {
+            parser.interrupt();
+        }
+    }
+
+    // 启动解析线程
+    private void start() {
+        parser = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    reader.scan(RowCursor.this);
+                    if (filling != null && filling.size > 0) {
+                        full.put(filling);
+                    }
+                } catch (ExcelCancelledException e) {
+                    // 关闭游标时不再报告, 通过 ExcelProgress 取消时抛出
+                    if (!closed) {
+                        failure = e;
+                    }
+                } catch (Throwable e) {
+                    failure = e;
+                } finally {
+                    // 容量比行块的数量多一个, 总能放入
+                    full.offer(END);
+                }
+            }
+        }, "excel-cursor");
+        parser.setDaemon(true);
+        parser.start();
+    }
+
+    // 开始一行, 由解析线程调用
+    void beginRow(int sheet, int row) {
+        if (filling == null || filling.size == BLOCK_ROWS) {
+            try {
+                if (filling != null) {
+                    full.put(filling);
+                }
+                filling = free.take();
+            } catch (InterruptedException e) {
+                throw new ExcelCancelledException("cursor closed");
+            }
+            filling.size = 0;
+        }
+        filling.begin(sheet, row);
+    }
+
+    // 设置当前行的单元格的值, 由解析线程调用
+    void setCell(int index, String value) {
+        filling.set(index, value);
+    }
+
+    // 完成当前行, 由解析线程调用
+    void commitRow() {
+        filling.size++;
+    }
+
+    private ReadExcelException conversionError(int index, Exception e) {
+        return new ReadExcelException("Parse " + ExcelReader.cellName(index, getRow()) + " error : " + e);
+    }
+
+    /**
+     * 行块, 各行的单元格数组随行块一起重用
+     */
+    private static class Block {
+
+        private final int[] sheets = new int[BLOCK_ROWS];
+
+        private final int[] rows = new int[BLOCK_ROWS];
+
+        private final String[][] cells = new String[BLOCK_ROWS][];
+
+        private int size;
+
+        Block() {
+            for (int i = 0; i < BLOCK_ROWS; i++) {
+                cells[i] = new String[8];
+            }
+        }
+
+        void begin(int sheet, int row) {
+            sheets[size] = sheet;
+            rows[size] = row;
+            Arrays.fill(cells[size], null);
+        }
+
+        void set(int index, String value) {
+            String[] row = cells[size];
+            if (index >= row.length) {
+                cells[size] = row = Arrays.copyOf(row, Math.max(index + 1, row.length * 2));
+            }
+            row[index] = value;
+        }
+
+    }
+
+}
@@ -0,0 +1,168 @@
+package com.github.fanlychie.excelutils.read;
+
+import com.github.fanlychie.excelutils.exception.ExcelCancelledException;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.List;
+
+/**
+ * 解析结果的发布者(Reactive Streams)。解析在单独的线程中进行, 每发出一行前等待订阅者的请求数,
+ * 请求数为 0 时解析线程阻塞, 解析的速度由下游的处理速度决定, 不会在内存中堆积数据。
+ * 只支持一个订阅者, 因为文件流只能解析一次
+ *
+ * @author fanlychie
+ */
+class RowPublisher<T> implements Publisher<T> {
+
+    private final ExcelReader reader;
+
+    private boolean subscribed;
+
+    /**
+     * @param reader 尚未开始解析的读取器
+     */
+    RowPublisher(ExcelReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber can not be null");
+        }
+        synchronized (this) {
+            if (subscribed) {
+                subscriber.onSubscribe(new RowSubscription<T>(null, null));
+                subscriber.onError(new IllegalStateException("only one subscriber is allowed"));
+                return;
+            }
+            subscribed = true;
+        }
+        subscriber.onSubscribe(new RowSubscription<>(reader, subscriber));
+    }
+
+    private static class RowSubscription<T> implements Subscription, Runnable, PagingHandler<T> {
+
+        private final ExcelReader reader;
+
+        private final Subscriber<? super T> subscriber;
+
+        /**
+         * 尚未满足的请求数
+         */
+        private long demand;
+
+        private boolean cancelled;
+
+        /**
+         * 解析线程是否已启动
+         */
+        private boolean started;
+
+        /**
+         * 非法的请求数, 由解析线程发出
+         */
+        private Throwable failure;
+
+        RowSubscription(ExcelReader reader, Subscriber<? super T> subscriber) {
+            this.reader = reader;
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            boolean start = false;
+            boolean fail = false;
+            synchronized (this) {
+                if (cancelled || subscriber == null) {
+                    return;
+                }
+                if (n <= 0) {
+                    // 规范 3.9
+                    failure = new IllegalArgumentException("request must be positive: " + n);
+                    cancelled = true;
+                    fail = !started;
+                    started = true;
+                } else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                    if (!started) {
+                        started = start = true;
+                    }
+                }
+                notifyAll();
+            }
+            if (fail) {
+                // 解析线程未启动, 直接发出
+                subscriber.onError(failure);
+            } else if (start) {
+                Thread thread = new Thread(this, "excel-publisher");
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+
+        @Override
+        public synchronized void cancel() {
+            cancelled = true;
+            notifyAll();
+        }
+
+        @Override
+        public void run() {
+            try {
+                reader.publishTo(this);
+            } catch (Throwable e) {
+                Throwable error;
+                synchronized (this) {
+                    error = failure != null ? failure : cancelled ? null : e;
+                }
+                if (error != null) {
+                    subscriber.onError(error);
+                }
+                return;
+            }
+            Throwable error;
+            synchronized (this) {
+                error = failure;
+                if (cancelled && error == null) {
+                    return;
+                }
+            }
+            if (error != null) {
+                subscriber.onError(error);
+            } else {
+                subscriber.onComplete();
+            }
+        }
+
+        @Override
+        public void handle(List<T> items) {
+            for (T item : items) {
+                awaitDemand();
+                subscriber.onNext(item);
+            }
+        }
+
+        // 等待订阅者的请求, 已取消时中止解析
+        private synchronized void awaitDemand() {
+            while (demand == 0 && !cancelled) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    cancelled = true;
+                }
+            }
+            if (cancelled) {
+                throw new ExcelCancelledException("subscription cancelled");
+            }
+            if (demand != Long.MAX_VALUE) {
+                demand--;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.github.fanlychie.excelutils.read;
+
+/**
+ * 工作表的元数据, 由{@link ExcelReader#probe()}读取每个工作表的开头部分得到, 不解析行数据
+ *
+ * @author fanlychie
+ */
+public class SheetInfo {
+
+    /**
+     * 工作表名称
+     */
+    private final String name;
+
+    /**
+     * 工作表尺寸, 如 A1:C100, 文件中没有时为 null
+     */
+    private final String dimension;
+
+    /**
+     * 最后一行的行号, 未知时为-1
+     */
+    private final long rows;
+
+    /**
+     * 行数是否是精确值
+     */
+    private final boolean exact;
+
+    SheetInfo(String name, String dimension, long rows, boolean exact) {
+        this.name = name;
+        this.dimension = dimension;
+        this.rows = rows;
+        this.exact = exact;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDimension() {
+        return dimension;
+    }
+
+    /**
+     * 工作表的行数, 即最后一行的行号(从1开始, 包括标题行和开头的空行), 来自工作表尺寸、开头部分的行或CSV文件大小的估算。
+     * 从第 n 行开始解析时, 数据行数为 getRows() - (n - 1)
+     *
+     * @return 返回行数, 未知时返回-1
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * 行数是否是精确值, 整个工作表都在读取的开头部分中时为精确值
+     *
+     * @return 精确值返回 true
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    @Override
+    public String toString() {
+        return name + (dimension == null ? "" : "[" + dimension + "]") + " rows=" + rows;
+    }
+
+}
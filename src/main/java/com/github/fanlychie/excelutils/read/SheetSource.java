@@ -0,0 +1,48 @@
+package com.github.fanlychie.excelutils.read;
+
+import java.util.List;
+
+/**
+ * 工作表数据源, 按顺序逐个解析文件中的工作表
+ *
+ * @author fanlychie
+ */
+interface SheetSource {
+
+    /**
+     * 是否还有下一个工作表
+     *
+     * @return 有则返回 true
+     */
+    boolean hasNextSheet();
+
+    /**
+     * 跳过下一个工作表
+     *
+     * @throws Exception 读取文件失败时抛出
+     */
+    void skipSheet() throws Exception;
+
+    /**
+     * 解析下一个工作表
+     *
+     * @param handler 单元格处理器
+     * @return 返回工作表的名称
+     * @throws Exception 解析失败时抛出
+     */
+    String parseSheet(CellHandler handler) throws Exception;
+
+    /**
+     * 读取所有工作表的元数据, 只读取每个工作表的开头部分, 不影响解析的位置
+     *
+     * @return 返回工作表的元数据列表
+     * @throws Exception 读取文件失败时抛出
+     */
+    List<SheetInfo> probe() throws Exception;
+
+    /**
+     * 释放数据源持有的资源
+     */
+    void release();
+
+}
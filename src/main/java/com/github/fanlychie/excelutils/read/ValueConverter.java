@@ -4,9 +4,11 @@ import com.github.fanlychie.excelutils.exception.ExcelCastException;
 
 import java.text.DateFormat;
 import java.text.ParseException;
+import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -24,7 +26,20 @@ public final class ValueConverter {
 
     private static final Pattern TIMESTAMP_STRING_REGEX = Pattern.compile("[1-9]\\d{12,}");
 
-    private static final ConcurrentHashMap<String, DateFormat> PATTERN_FORMAT = new ConcurrentHashMap<>();
+    /**
+     * 每个线程缓存自己的日期格式。SimpleDateFormat 不是线程安全的, 并行绑定时各个线程独立解析, 不需要加锁
+     */
+    private static final ThreadLocal<Map<String, DateFormat>> PATTERN_FORMAT = new ThreadLocal<Map<String, DateFormat>>() {
+        @Override
+        protected Map<String, DateFormat> initialValue() {
+            return new HashMap<>();
+        }
+    };
+
+    /**
+     * {@link #tryConvert(String, Class)}转换失败时的返回值
+     */
+    static final Object INVALID = new Object();
 
     public static Object convertObjectValue(String value, Class<?> type) {
         if (value == null) {
@@ -84,26 +99,185 @@ public final class ValueConverter {
         throw new ClassCastException("Cannot cast java.lang.String to " + type.getName());
     }
 
-    private static boolean convertBooleanValue(String value) {
-        if (value == "1" || value.equals("是")
+    /**
+     * 转换单元格的值, 转换失败时不抛出异常, 用于校验模式
+     *
+     * @param value 单元格的值
+     * @param type  字段类型
+     * @return 返回转换后的值, 失败时返回 {@link #INVALID}
+     */
+    static Object tryConvert(String value, Class<?> type) {
+        if (value == null) {
+            return type.isPrimitive() ? INVALID : null;
+        }
+        if (type == String.class) {
+            return value;
+        }
+        if (type == Boolean.TYPE || type == Boolean.class) {
+            Boolean bool = toBoolean(value);
+            return bool == null ? INVALID : bool;
+        }
+        if (type == Date.class) {
+            Date date = null;
+            Matcher matcher = DATETIME_STRING_REGEX.matcher(value);
+            if (matcher.matches()) {
+                date = tryParseDate(value, matcher.replaceAll("yyyy$2MM$4dd$6$7HH$9mm$11ss$13"));
+            } else if ((matcher = DATE_STRING_REGEX.matcher(value)).matches()) {
+                date = tryParseDate(value, matcher.replaceAll("yyyy$2MM$4dd$6"));
+            } else if (TIMESTAMP_STRING_REGEX.matcher(value).matches()) {
+                date = value.length() < 19 ? new Date(Long.parseLong(value)) : null;
+            } else if ((matcher = TIME_STRING_REGEX.matcher(value)).matches()) {
+                date = tryParseDate(value, matcher.replaceAll("HH$2mm$4ss$6"));
+            }
+            return date == null ? INVALID : date;
+        }
+        Double doubleValue = tryParseDouble(value);
+        if (doubleValue == null) {
+            return INVALID;
+        }
+        if (type == Byte.TYPE || type == Byte.class) {
+            return doubleValue.byteValue();
+        }
+        if (type == Short.TYPE || type == Short.class) {
+            return doubleValue.shortValue();
+        }
+        if (type == Integer.TYPE || type == Integer.class) {
+            return doubleValue.intValue();
+        }
+        if (type == Long.TYPE || type == Long.class) {
+            return doubleValue.longValue();
+        }
+        if (type == Float.TYPE || type == Float.class) {
+            return doubleValue.floatValue();
+        }
+        if (type == Double.TYPE || type == Double.class) {
+            return doubleValue;
+        }
+        return INVALID;
+    }
+
+    /**
+     * 解析数值, 十进制数值直接校验格式, 避免为无效的值创建异常
+     */
+    private static Double tryParseDouble(String value) {
+        int begin = 0;
+        int end = value.length();
+        // 与 Double.valueOf 一致, 忽略首尾的空白
+        while (begin < end && value.charAt(begin) <= ' ') {
+            begin++;
+        }
+        while (end > begin && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        int i = begin;
+        if (i < end && (value.charAt(i) == '+' || value.charAt(i) == '-')) {
+            i++;
+        }
+        int digits = 0;
+        for (; i < end && isDigit(value.charAt(i)); i++) {
+            digits++;
+        }
+        if (i < end && value.charAt(i) == '.') {
+            for (i++; i < end && isDigit(value.charAt(i)); i++) {
+                digits++;
+            }
+        }
+        boolean decimal = digits > 0;
+        if (decimal && i < end && (value.charAt(i) == 'e' || value.charAt(i) == 'E')) {
+            i++;
+            if (i < end && (value.charAt(i) == '+' || value.charAt(i) == '-')) {
+                i++;
+            }
+            int exponent = 0;
+            for (; i < end && isDigit(value.charAt(i)); i++) {
+                exponent++;
+            }
+            decimal = exponent > 0;
+        }
+        if (decimal && i == end) {
+            return Double.valueOf(value);
+        }
+        // NaN、Infinity、十六进制或带 d/f 后缀的数值
+        char last = end > begin ? value.charAt(end - 1) : 0;
+        if (value.indexOf('N') >= 0 || value.indexOf('I') >= 0 || value.indexOf('x') >= 0 || value.indexOf('X') >= 0
+                || last == 'd' || last == 'D' || last == 'f' || last == 'F') {
+            try {
+                return Double.valueOf(value);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 转换为整数, 不装箱。不超过18位的十进制整数直接计算, 其他与{@link #convertObjectValue(String, Class)}一致按 double 截断
+     *
+     * @param value 单元格的值
+     * @return 返回整数值
+     */
+    static long toLong(String value) {
+        int length = value.length();
+        int i = length > 0 && value.charAt(0) == '-' ? 1 : 0;
+        if (length > i && length - i <= 18) {
+            long result = 0;
+            for (; i < length; i++) {
+                char c = value.charAt(i);
+                if (!isDigit(c)) {
+                    return (long) Double.parseDouble(value);
+                }
+                result = result * 10 + (c - '0');
+            }
+            return value.charAt(0) == '-' ? -result : result;
+        }
+        return (long) Double.parseDouble(value);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static Date tryParseDate(String value, String pattern) {
+        DateFormat format = getDateFormat(pattern);
+        ParsePosition position = new ParsePosition(0);
+        Date date = format.parse(value, position);
+        return position.getErrorIndex() == -1 ? date : null;
+    }
+
+    private static DateFormat getDateFormat(String pattern) {
+        Map<String, DateFormat> formats = PATTERN_FORMAT.get();
+        DateFormat format = formats.get(pattern);
+        if (format == null) {
+            formats.put(pattern, format = new SimpleDateFormat(pattern));
+        }
+        return format;
+    }
+
+    private static Boolean toBoolean(String value) {
+        if (value.equals("1") || value.equals("是")
                 || value.equalsIgnoreCase("Y") || value.equalsIgnoreCase("YES")
                 || value.equalsIgnoreCase("T") || value.equalsIgnoreCase("TRUE")) {
             return true;
         }
-        if (value == "0" || value.equals("否")
+        if (value.equals("0") || value.equals("否")
                 || value.equalsIgnoreCase("N") || value.equalsIgnoreCase("NO")
                 || value.equalsIgnoreCase("F") || value.equalsIgnoreCase("FALSE")) {
             return false;
         }
-        throw new ClassCastException("cannot cast java.lang.String to boolean");
+        return null;
     }
 
-    private static Date parseStringToDate(String value, String pattern) {
-        if (!PATTERN_FORMAT.containsKey(pattern)) {
-            PATTERN_FORMAT.put(pattern, new SimpleDateFormat(pattern));
+    static boolean convertBooleanValue(String value) {
+        Boolean bool = toBoolean(value);
+        if (bool == null) {
+            throw new ClassCastException("cannot cast java.lang.String to boolean");
         }
+        return bool;
+    }
+
+    private static Date parseStringToDate(String value, String pattern) {
         try {
-            return PATTERN_FORMAT.get(pattern).parse(value);
+            return getDateFormat(pattern).parse(value);
         } catch (ParseException e) {
             throw new ExcelCastException(e);
         }
@@ -53,6 +53,10 @@ public abstract class XSSFSheetHandler extends DefaultHandler {
         if ("v".equals(qName) || "is".equals(qName)) {
             cellValueBuilder.setLength(0);
         }
+        // dimension => 工作表尺寸, 如 A1:C1000
+        else if ("dimension".equals(qName)) {
+            postDimensionHandle(attributes.getValue("ref"));
+        }
         // c => cell
         else if ("c".equals(qName)) {
             // r => name
@@ -150,6 +154,13 @@ public abstract class XSSFSheetHandler extends DefaultHandler {
      */
     public abstract void postCellHandle(int index, String name, String value, int row, boolean newRow);
 
+    /**
+     * 工作表尺寸处理, 尺寸位于所有单元格之前
+     *
+     * @param ref 尺寸范围, 如 A1:C1000, 只有一个单元格时如 A1
+     */
+    public void postDimensionHandle(String ref) {}
+
     /**
      * 解析单元格的索引值
      *
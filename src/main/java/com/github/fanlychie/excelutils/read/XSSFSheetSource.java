@@ -0,0 +1,154 @@
+package com.github.fanlychie.excelutils.read;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFReader.SheetIterator;
+import org.apache.poi.xssf.model.StylesTable;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.SAXParserFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * OOXML(.xlsx)工作表数据源, 使用 SAX 逐个解析工作表
+ *
+ * @author fanlychie
+ */
+class XSSFSheetSource implements SheetSource {
+
+    /**
+     * 探测元数据时每个工作表最多读取的字节数
+     */
+    private static final int PROBE_BYTES = 64 * 1024;
+
+    private static final Pattern DIMENSION_REGEX = Pattern.compile("<(?:\\w+:)?dimension\\s+ref=\"([^\"]*)\"");
+
+    private static final Pattern ROW_REGEX = Pattern.compile("<(?:\\w+:)?row(?=[\\s/>])([^>]*)>");
+
+    private static final Pattern ROW_NUMBER_REGEX = Pattern.compile("\\sr=\"(\\d+)\"");
+
+    private static final Pattern SHEET_DATA_END_REGEX = Pattern.compile("</(?:\\w+:)?sheetData>|<(?:\\w+:)?sheetData\\s*/>");
+
+    private final OPCPackage opcPackage;
+
+    private final XSSFReader reader;
+
+    private final StylesTable stylesTable;
+
+    private final SheetIterator sheetIterator;
+
+    private final ReadOnlySharedStringsTable sharedStringsTable;
+
+    XSSFSheetSource(OPCPackage opcPackage) throws Exception {
+        this.opcPackage = opcPackage;
+        this.reader = new XSSFReader(opcPackage);
+        this.sharedStringsTable = new ReadOnlySharedStringsTable(opcPackage);
+        this.stylesTable = reader.getStylesTable();
+        this.sheetIterator = (SheetIterator) reader.getSheetsData();
+    }
+
+    @Override
+    public boolean hasNextSheet() {
+        return sheetIterator.hasNext();
+    }
+
+    @Override
+    public void skipSheet() throws IOException {
+        sheetIterator.next().close();
+    }
+
+    @Override
+    public String parseSheet(final CellHandler handler) throws Exception {
+        InputStream stream = sheetIterator.next();
+        try {
+            XMLReader sheetParser = SAXParserFactory.newInstance().newSAXParser().getXMLReader();
+            sheetParser.setContentHandler(new XSSFSheetHandler(stylesTable, sharedStringsTable) {
+                @Override
+                public void postCellHandle(int index, String name, String value, int row, boolean newRow) {
+                    handler.postCellHandle(index, name, value, row, newRow);
+                }
+                @Override
+                public void postDimensionHandle(String ref) {
+                    handler.postDimensionHandle(ref);
+                }
+                @Override
+                public void endDocument() throws SAXException {
+                    handler.endSheet();
+                }
+            });
+            sheetParser.parse(new InputSource(stream));
+            return sheetIterator.getSheetName();
+        } finally {
+            try {
+                stream.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+
+    @Override
+    public List<SheetInfo> probe() throws Exception {
+        List<SheetInfo> infos = new ArrayList<>();
+        SheetIterator iterator = (SheetIterator) reader.getSheetsData();
+        while (iterator.hasNext()) {
+            InputStream stream = iterator.next();
+            try {
+                infos.add(probeSheet(iterator.getSheetName(), stream));
+            } finally {
+                try {
+                    stream.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+        return infos;
+    }
+
+    /**
+     * 读取工作表的开头部分, 解析尺寸; 整个 sheetData 都在开头部分中时取最后一行的行号
+     */
+    private SheetInfo probeSheet(String name, InputStream stream) throws IOException {
+        byte[] buffer = new byte[PROBE_BYTES];
+        int length = 0;
+        int count;
+        while (length < buffer.length && (count = stream.read(buffer, length, buffer.length - length)) != -1) {
+            length += count;
+        }
+        // 只匹配 ASCII 标记, 单字节解码即可
+        String xml = new String(buffer, 0, length, Charset.forName("ISO-8859-1"));
+        Matcher matcher = DIMENSION_REGEX.matcher(xml);
+        String dimension = matcher.find() ? matcher.group(1) : null;
+        matcher = SHEET_DATA_END_REGEX.matcher(xml);
+        if (matcher.find()) {
+            long lastRow = 0;
+            Matcher row = ROW_REGEX.matcher(xml).region(0, matcher.start());
+            while (row.find()) {
+                Matcher number = ROW_NUMBER_REGEX.matcher(row.group(1));
+                // 省略行号的行紧接在上一行之后
+                lastRow = number.find() ? Long.parseLong(number.group(1)) : lastRow + 1;
+            }
+            return new SheetInfo(name, dimension, lastRow, true);
+        }
+        int separator = dimension == null ? -1 : dimension.indexOf(':');
+        if (separator == -1) {
+            // 没有尺寸或只有一个单元格(如 SXSSF 写出的文件), 无法估算
+            return new SheetInfo(name, dimension, -1, false);
+        }
+        return new SheetInfo(name, dimension, ExcelReader.rowOf(dimension.substring(separator + 1)), false);
+    }
+
+    @Override
+    public void release() {
+        opcPackage.revert();
+    }
+
+}
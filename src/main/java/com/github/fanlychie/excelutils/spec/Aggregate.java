@@ -0,0 +1,45 @@
+package com.github.fanlychie.excelutils.spec;
+
+/**
+ * 脚部行的聚合方式枚举
+ *
+ * @author fanlychie
+ */
+public enum Aggregate {
+
+    /**
+     * 不聚合
+     */
+    NONE,
+
+    /**
+     * 求和, 不能用于日期列
+     */
+    SUM,
+
+    /**
+     * 非空值的个数
+     */
+    COUNT,
+
+    /**
+     * 最小值
+     */
+    MIN,
+
+    /**
+     * 最大值
+     */
+    MAX,
+
+    /**
+     * 平均值, 不能用于日期列
+     */
+    AVERAGE,
+
+    /**
+     * 不同值的个数(估算值, 误差约为2%)
+     */
+    DISTINCT
+
+}
@@ -0,0 +1,157 @@
+package com.github.fanlychie.excelutils.write;
+
+import com.github.fanlychie.excelutils.exception.ExcelCastException;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 有界的订阅者, 用于将{@link org.reactivestreams.Publisher}的数据交给写出线程。最多请求缓冲区大小的数据,
+ * 写出线程每写出一批再请求同样的数量, 上游的发出速度由写出的速度决定。缓冲的数据由未满足的请求数限制,
+ * 发出的数据超过请求数时视为违反规范
+ *
+ * @author fanlychie
+ */
+class BoundedSubscriber implements Subscriber<Object> {
+
+    /**
+     * 完成标记
+     */
+    private static final Object COMPLETE = new Object();
+
+    private final int capacity;
+
+    /**
+     * 不限制容量, 完成或错误标记总能放入; 数据的个数由 demand 限制
+     */
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+
+    /**
+     * 已请求但尚未发出的数据个数
+     */
+    private final AtomicLong demand = new AtomicLong();
+
+    private volatile Subscription subscription;
+
+    /**
+     * 上游的错误或违反规范的错误
+     */
+    private volatile Throwable failure;
+
+    private boolean done;
+
+    /**
+     * @param capacity 缓冲区大小, 即最多请求的数据个数
+     */
+    BoundedSubscriber(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        if (subscription != null) {
+            // 规范 2.5
+            s.cancel();
+            return;
+        }
+        subscription = s;
+        // 先记录再请求, 发布者可能在 request 中同步发出数据
+        demand.addAndGet(capacity);
+        s.request(capacity);
+    }
+
+    @Override
+    public void onNext(Object item) {
+        if (failure != null) {
+            return;
+        }
+        if (item == null) {
+            subscription.cancel();
+            terminate(new NullPointerException("element can not be null"));
+        } else if (demand.getAndDecrement() <= 0) {
+            subscription.cancel();
+            terminate(new IllegalStateException("more elements than requested"));
+        } else {
+            queue.offer(item);
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        terminate(t);
+    }
+
+    @Override
+    public void onComplete() {
+        queue.offer(COMPLETE);
+    }
+
+    /**
+     * 取出一批数据, 没有数据时等待
+     *
+     * @return 返回一批数据, 发布者已完成时返回 null
+     */
+    List<Object> next() {
+        if (done) {
+            return null;
+        }
+        List<Object> items = new ArrayList<>(capacity);
+        try {
+            items.add(queue.take());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel();
+            throw new ExcelCastException(e);
+        }
+        queue.drainTo(items);
+        Throwable e = failure;
+        if (e != null) {
+            done = true;
+            throw new ExcelCastException(e);
+        }
+        // 忽略完成之后(违反规范)发出的数据
+        int end = items.indexOf(COMPLETE);
+        if (end >= 0) {
+            done = true;
+            items = items.subList(0, end);
+        }
+        return items.isEmpty() ? null : items;
+    }
+
+    /**
+     * 一批数据已写出, 再请求同样的数量。在写出之后请求, 未写出的数据不超过缓冲区大小
+     *
+     * @param count 已写出的数据个数
+     */
+    void written(int count) {
+        if (!done && count > 0) {
+            demand.addAndGet(count);
+            subscription.request(count);
+        }
+    }
+
+    /**
+     * 取消订阅, 写出失败或被取消时调用
+     */
+    void cancel() {
+        Subscription s = subscription;
+        if (s != null && !done) {
+            done = true;
+            s.cancel();
+        }
+    }
+
+    private void terminate(Throwable e) {
+        if (failure == null) {
+            failure = e;
+        }
+        // 唤醒写出线程, 写出线程取走数据后看到错误
+        queue.offer(COMPLETE);
+    }
+
+}
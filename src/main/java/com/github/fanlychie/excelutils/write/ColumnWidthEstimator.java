@@ -0,0 +1,117 @@
+package com.github.fanlychie.excelutils.write;
+
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+
+import java.util.Arrays;
+
+/**
+ * 列宽估算器, 在写出单元格时按字符数估算每列的最大宽度, 中日韩等全角字符按两个字符计算,
+ * 工作表完成时一次性设置列宽。用于代替需要保留全部行的 autoSizeColumn
+ *
+ * @author fanlychie
+ */
+class ColumnWidthEstimator {
+
+    /**
+     * EXCEL 允许的最大列宽(字符数)
+     */
+    private static final int EXCEL_MAX_WIDTH = 255;
+
+    /**
+     * 列宽的最大字符数
+     */
+    private final int maxWidth;
+
+    /**
+     * 字体大小相对默认字体(11号)的比例
+     */
+    private final float scale;
+
+    /**
+     * 每列的最大字符宽度, 以列索引为下标
+     */
+    private int[] widths = new int[16];
+
+    /**
+     * @param maxWidth 列宽的最大字符数
+     * @param fontSize 字体大小, 为 null 时使用默认字体大小
+     */
+    ColumnWidthEstimator(int maxWidth, Integer fontSize) {
+        this.maxWidth = Math.min(maxWidth, EXCEL_MAX_WIDTH);
+        this.scale = fontSize == null ? 1f : fontSize / 11f;
+    }
+
+    /**
+     * 记录单元格的文本
+     *
+     * @param column 列索引
+     * @param text   单元格显示的文本
+     */
+    void update(int column, String text) {
+        if (text == null) {
+            return;
+        }
+        if (column >= widths.length) {
+            widths = Arrays.copyOf(widths, Math.max(column + 1, widths.length * 2));
+        }
+        // 长度不超过已记录的宽度的一半时, 即使全是全角字符也不会更宽
+        if (text.length() * 2 <= widths[column]) {
+            return;
+        }
+        int width = width(text);
+        if (width > widths[column]) {
+            widths[column] = width;
+        }
+    }
+
+    /**
+     * 设置工作表的列宽并清空已记录的宽度
+     *
+     * @param sheet 工作表
+     */
+    void apply(SXSSFSheet sheet) {
+        for (int i = 0; i < widths.length; i++) {
+            if (widths[i] > 0) {
+                // 两侧各留一个字符的空白
+                int width = Math.min(Math.round(widths[i] * scale) + 2, maxWidth);
+                sheet.setColumnWidth(i, width * 256);
+                widths[i] = 0;
+            }
+        }
+    }
+
+    /**
+     * 估算文本的显示宽度, 多行文本取最长的一行
+     *
+     * @param text 文本
+     * @return 返回字符宽度
+     */
+    static int width(String text) {
+        int max = 0;
+        int width = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                max = Math.max(max, width);
+                width = 0;
+            } else {
+                width += isWide(c) ? 2 : 1;
+            }
+        }
+        return Math.max(max, width);
+    }
+
+    /**
+     * 是否为全角字符(中日韩文字、全角符号等)
+     */
+    private static boolean isWide(char c) {
+        return c >= 0x1100 && (c <= 0x115F
+                || (c >= 0x2E80 && c <= 0xA4CF)
+                || (c >= 0xAC00 && c <= 0xD7A3)
+                || (c >= 0xF900 && c <= 0xFAFF)
+                || (c >= 0xFE30 && c <= 0xFE4F)
+                || (c >= 0xFF00 && c <= 0xFF60)
+                || (c >= 0xFFE0 && c <= 0xFFE6));
+    }
+
+}
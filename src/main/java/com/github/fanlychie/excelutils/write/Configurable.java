@@ -1,14 +1,27 @@
 package com.github.fanlychie.excelutils.write;
 
+import com.github.fanlychie.excelutils.exception.ExcelCastException;
+import com.github.fanlychie.excelutils.exception.WriteExcelException;
 import com.github.fanlychie.excelutils.write.model.RowStyle;
 import com.github.fanlychie.excelutils.write.model.StyleConfiguration;
 import com.github.fanlychie.excelutils.write.model.WorkbookSheet;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.IndexedColors;
+import com.github.fanlychie.excelutils.spec.Aggregate;
 import com.github.fanlychie.excelutils.spec.Align;
 import com.github.fanlychie.excelutils.spec.Format;
 import org.yaml.snakeyaml.Yaml;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
  * 可配置样式的EXCEL工作表, 根据YAML配置文件的配置项构建表格样式
  *
@@ -17,18 +30,49 @@ import org.yaml.snakeyaml.Yaml;
 public class Configurable {
 
     /**
-     * 样式配置
+     * 已解析的样式模板缓存, 以配置文件路径为键, 进程内共享
+     */
+    private static final ConcurrentMap<String, StyleTemplate> TEMPLATES = new ConcurrentHashMap<>();
+
+    /**
+     * 配置文件修改后是否重新加载
+     */
+    private static volatile boolean reloadOnChange;
+
+    /**
+     * 样式配置, 与缓存共享, 只读
      */
     StyleConfiguration config;
 
     /**
-     * 构建{@link Configurable}实例
+     * 样式模板
+     */
+    private final StyleTemplate template;
+
+    /**
+     * 构建{@link Configurable}实例, 同一路径的配置文件只解析一次
      *
      * @param pathname YAML配置文件路径
      */
     public Configurable(String pathname) {
-        this.config = new Yaml().loadAs(getClass().getResourceAsStream("/" + pathname),
-                StyleConfiguration.class);
+        this.template = loadTemplate(pathname);
+        this.config = template.config;
+    }
+
+    /**
+     * 设置配置文件修改后是否重新加载, 仅对文件系统中的配置文件有效(如开发环境), 默认不重新加载
+     *
+     * @param reload 是否重新加载
+     */
+    public static void setReloadOnChange(boolean reload) {
+        reloadOnChange = reload;
+    }
+
+    /**
+     * 清空已缓存的样式模板
+     */
+    public static void clearCache() {
+        TEMPLATES.clear();
     }
 
     /**
@@ -37,7 +81,34 @@ public class Configurable {
      * @return 返回 {@link WorkbookSheet} 实例
      */
     public WorkbookSheet buildWorkbookSheet() {
-        return buildWorkbookSheet(config);
+        WorkbookSheet source = template.sheet;
+        WorkbookSheet sheet = new WorkbookSheet();
+        sheet.setCellWidth(source.getCellWidth());
+        sheet.setTitleStyle(copyRowStyle(source.getTitleStyle()));
+        sheet.setBodyStyle(copyRowStyle(source.getBodyStyle()));
+        sheet.setMapping(source.getMapping() == null ? null : new LinkedHashMap<>(source.getMapping()));
+        sheet.setFooterStyle(source.getFooterStyle() == null ? null : copyRowStyle(source.getFooterStyle()));
+        sheet.setFooterLabel(source.getFooterLabel());
+        sheet.setAggregates(source.getAggregates() == null ? null : new LinkedHashMap<>(source.getAggregates()));
+        return sheet;
+    }
+
+    /**
+     * 复制样式配置, 用于编码自定义配置样式, 避免修改缓存中的配置
+     *
+     * @return 返回 {@link StyleConfiguration} 副本
+     */
+    StyleConfiguration copyConfig() {
+        StyleConfiguration copy = new StyleConfiguration();
+        if (config.getGlobal() != null) {
+            StyleConfiguration.GlobalStyleConfiguration global = new StyleConfiguration.GlobalStyleConfiguration();
+            global.setCellWidth(config.getGlobal().getCellWidth());
+            copy.setGlobal(global);
+        }
+        copy.setTitleStyle(copyRowStyleConfiguration(config.getTitleStyle()));
+        copy.setBodyStyle(copyRowStyleConfiguration(config.getBodyStyle()));
+        copy.setFooterStyle(copyRowStyleConfiguration(config.getFooterStyle()));
+        return copy;
     }
 
     WorkbookSheet buildWorkbookSheet(StyleConfiguration config) {
@@ -51,9 +122,33 @@ public class Configurable {
         sheet.setBodyStyle(buildRowStyle(config.getBodyStyle()));
         // 关键字映射表
         sheet.setMapping(config.getBodyStyle().getMapping());
+        // 脚部行样式及聚合方式
+        StyleConfiguration.RowStyleConfiguration footer = config.getFooterStyle();
+        if (footer != null) {
+            sheet.setFooterStyle(buildRowStyle(footer));
+            sheet.setFooterLabel(footer.getLabel());
+            sheet.setAggregates(buildAggregates(footer.getAggregates()));
+        }
         return sheet;
     }
 
+    /**
+     * 解析脚部行的聚合方式
+     *
+     * @param config 聚合方式配置, 键为单元格索引或字段名称
+     * @return 返回聚合方式表
+     */
+    private Map<Object, Aggregate> buildAggregates(Map<Object, Object> config) {
+        if (config == null) {
+            return null;
+        }
+        Map<Object, Aggregate> aggregates = new LinkedHashMap<>();
+        for (Map.Entry<Object, Object> entry : config.entrySet()) {
+            aggregates.put(entry.getKey(), Aggregate.valueOf(entry.getValue().toString().toUpperCase()));
+        }
+        return aggregates;
+    }
+
     /**
      * 构建单元格的行样式
      *
@@ -94,4 +189,114 @@ public class Configurable {
         return style;
     }
 
+    /**
+     * 获取样式模板, 未缓存或配置文件已修改时解析配置文件
+     *
+     * @param pathname YAML配置文件路径
+     * @return 返回样式模板
+     */
+    private StyleTemplate loadTemplate(String pathname) {
+        StyleTemplate template = TEMPLATES.get(pathname);
+        if (template != null && (!reloadOnChange || template.lastModified == lastModified(template.file))) {
+            return template;
+        }
+        URL url = getClass().getResource("/" + pathname);
+        if (url == null) {
+            throw new WriteExcelException("can not find configuration: " + pathname);
+        }
+        File file = toFile(url);
+        // 先取修改时间再解析, 解析期间文件被修改时下次仍会重新加载
+        long lastModified = lastModified(file);
+        StyleConfiguration config;
+        try (InputStream in = url.openStream()) {
+            config = new Yaml().loadAs(in, StyleConfiguration.class);
+        } catch (IOException e) {
+            throw new ExcelCastException(e);
+        }
+        template = new StyleTemplate(config, buildWorkbookSheet(config), file, lastModified);
+        TEMPLATES.put(pathname, template);
+        return template;
+    }
+
+    private static File toFile(URL url) {
+        if (!"file".equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            return new File(url.toURI());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static long lastModified(File file) {
+        return file == null ? 0L : file.lastModified();
+    }
+
+    private static RowStyle copyRowStyle(RowStyle source) {
+        RowStyle style = new RowStyle();
+        style.setIndex(source.getIndex());
+        style.setHeight(source.getHeight());
+        style.setAlign(source.getAlign());
+        style.setVerticalAlign(source.getVerticalAlign());
+        style.setAutoWrap(source.getAutoWrap());
+        style.setFontName(source.getFontName());
+        style.setFontSize(source.getFontSize());
+        style.setFontColor(source.getFontColor());
+        style.setBorder(source.getBorder());
+        style.setBorderColor(source.getBorderColor());
+        style.setBackgroundColor(source.getBackgroundColor());
+        style.setFormat(source.getFormat());
+        return style;
+    }
+
+    private static StyleConfiguration.RowStyleConfiguration copyRowStyleConfiguration(
+            StyleConfiguration.RowStyleConfiguration source) {
+        if (source == null) {
+            return null;
+        }
+        StyleConfiguration.RowStyleConfiguration style = new StyleConfiguration.RowStyleConfiguration();
+        style.setIndex(source.getIndex());
+        style.setHeight(source.getHeight());
+        style.setFontName(source.getFontName());
+        style.setFontSize(source.getFontSize());
+        style.setFontColor(source.getFontColor());
+        style.setAutoWrap(source.getAutoWrap());
+        style.setBackgroundColor(source.getBackgroundColor());
+        style.setAlign(source.getAlign());
+        style.setVerticalAlign(source.getVerticalAlign());
+        style.setFormat(source.getFormat());
+        style.setBorder(source.getBorder());
+        style.setBorderColor(source.getBorderColor());
+        style.setMapping(source.getMapping() == null ? null : new LinkedHashMap<>(source.getMapping()));
+        style.setLabel(source.getLabel());
+        style.setAggregates(source.getAggregates() == null ? null : new LinkedHashMap<>(source.getAggregates()));
+        return style;
+    }
+
+    /**
+     * 样式模板, 包含解析后的配置和解析了颜色、对齐方式、格式的工作表样式
+     */
+    private static class StyleTemplate {
+
+        final StyleConfiguration config;
+
+        final WorkbookSheet sheet;
+
+        /**
+         * 配置文件, 不在文件系统中时为 null
+         */
+        final File file;
+
+        final long lastModified;
+
+        StyleTemplate(StyleConfiguration config, WorkbookSheet sheet, File file, long lastModified) {
+            this.config = config;
+            this.sheet = sheet;
+            this.file = file;
+            this.lastModified = lastModified;
+        }
+
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.github.fanlychie.excelutils.write;
+
+/**
+ * 可统计总数的分页查询接口, 总数用于估算写出进度({@link com.github.fanlychie.excelutils.progress.ExcelProgress})
+ *
+ * @author fanlychie
+ */
+public interface CountingPagingQuery extends PagingQuery {
+
+    /**
+     * 查询数据的总行数
+     *
+     * @return 返回总行数
+     */
+    long count();
+
+}
@@ -0,0 +1,557 @@
+package com.github.fanlychie.excelutils.write;
+
+import com.github.fanlychie.excelutils.annotation.CellField;
+import com.github.fanlychie.excelutils.annotation.CellMapper;
+import com.github.fanlychie.excelutils.exception.ExcelCancelledException;
+import com.github.fanlychie.excelutils.exception.ExcelCastException;
+import com.github.fanlychie.excelutils.metrics.CountingOutputStream;
+import com.github.fanlychie.excelutils.metrics.MetricsListener;
+import com.github.fanlychie.excelutils.metrics.NoopMetricsListener;
+import com.github.fanlychie.excelutils.progress.ExcelProgress;
+import com.github.fanlychie.excelutils.spec.Format;
+import com.github.fanlychie.excelutils.write.ExcelWriter.Paging;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.FieldPosition;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * CSV/TSV 写操作, 与{@link ExcelWriter}共用{@link com.github.fanlychie.excelutils.annotation.Cell}注解的列定义、
+ * 数据格式和值映射。数据经过可复用的字符缓冲区编码后写入临时文件, 输出时直接在通道间传输。
+ * 输出(toFile、toStream、toHttp)完成或写出失败后临时文件即被删除, 实例不能再次使用
+ *
+ * @author fanlychie
+ */
+public class CsvWriter {
+
+    /**
+     * 字符缓冲区大小
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * 行分隔符(RFC 4180)
+     */
+    private static final String LINE_SEPARATOR = "\r\n";
+
+    /**
+     * 分隔符, CSV 为逗号, TSV 为制表符
+     */
+    private final char delimiter;
+
+    /**
+     * 单元格注解字段列表
+     */
+    private final List<CellField> cellFields;
+
+    /**
+     * 单元格映射器
+     */
+    private final CellMapper mapper;
+
+    /**
+     * 每一列的格式化器, 与 cellFields 一一对应
+     */
+    private final Object[] formatters;
+
+    /**
+     * 值映射, POJO字段的值写出时, 可以匹配这些值并替换掉它们
+     */
+    private final Map<Object, Object> mapping;
+
+    /**
+     * 分页参数
+     */
+    private final Paging paging;
+
+    /**
+     * 分页查询接口
+     */
+    private final PagingQuery pagingQuery;
+
+    /**
+     * 度量监听器
+     */
+    private final MetricsListener metrics;
+
+    /**
+     * 进度和取消句柄
+     */
+    private final ExcelProgress progress;
+
+    /**
+     * 临时文件
+     */
+    private final File spoolFile;
+
+    /**
+     * 临时文件通道
+     */
+    private final FileChannel channel;
+
+    private final CharsetEncoder encoder;
+
+    private final CharBuffer charBuffer = CharBuffer.allocate(BUFFER_SIZE);
+
+    private final ByteBuffer byteBuffer;
+
+    /**
+     * 格式化日期和小数时复用的缓冲区
+     */
+    private final StringBuffer formatBuffer = new StringBuffer(32);
+
+    private final FieldPosition fieldPosition = new FieldPosition(0);
+
+    /**
+     * 是否已写出标题行
+     */
+    private boolean titleWritten;
+
+    CsvWriter(CellMapper<?> mapper, char delimiter, Charset charset, Map<Object, Object> mapping, Paging paging,
+              PagingQuery pagingQuery, MetricsListener metrics, ExcelProgress progress) {
+        this.delimiter = delimiter;
+        this.mapping = mapping;
+        this.paging = paging;
+        this.pagingQuery = pagingQuery;
+        this.metrics = metrics == null ? NoopMetricsListener.INSTANCE : metrics;
+        this.progress = progress == null ? new ExcelProgress() : progress;
+        this.mapper = mapper;
+        this.cellFields = mapper.getCellFields();
+        this.formatters = new Object[cellFields.size()];
+        for (int i = 0; i < formatters.length; i++) {
+            formatters[i] = createFormatter(cellFields.get(i));
+        }
+        // 与 String.getBytes 一致, 无法编码的字符替换为编码的替换字节
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.byteBuffer = ByteBuffer.allocateDirect((int) (BUFFER_SIZE * encoder.maxBytesPerChar()));
+        try {
+            this.spoolFile = File.createTempFile("excelutils-", ".csv");
+            this.spoolFile.deleteOnExit();
+            this.channel = new RandomAccessFile(spoolFile, "rw").getChannel();
+        } catch (IOException e) {
+            throw new ExcelCastException(e);
+        }
+    }
+
+    /**
+     * 写出数据, 第一次写出时先写出标题行
+     *
+     * @param data 数据列表
+     * @return 返回当前对象
+     */
+    public CsvWriter write(List<?> data) {
+        try {
+            writeTitle();
+            progress.addEstimatedTotal(data.size());
+            writeData(data);
+            return this;
+        } catch (ExcelCancelledException e) {
+            dispose();
+            throw e;
+        } catch (Throwable e) {
+            dispose();
+            throw new ExcelCastException(e);
+        }
+    }
+
+    /**
+     * 追加数据, 只会追加数据不会写出标题行
+     *
+     * @param data 数据列表
+     * @return 返回当前对象
+     */
+    public CsvWriter append(List<?> data) {
+        try {
+            progress.addEstimatedTotal(data.size());
+            writeData(data);
+            return this;
+        } catch (ExcelCancelledException e) {
+            dispose();
+            throw e;
+        } catch (Throwable e) {
+            dispose();
+            throw new ExcelCastException(e);
+        }
+    }
+
+    /**
+     * 使用分页查询写出数据
+     *
+     * @return 返回当前对象
+     */
+    public CsvWriter paging() {
+        if (pagingQuery == null) {
+            throw new NullPointerException("PagingQuery can not be null");
+        }
+        try {
+            writeTitle();
+            if (pagingQuery instanceof CountingPagingQuery) {
+                progress.addEstimatedTotal(((CountingPagingQuery) pagingQuery).count());
+            }
+            while (true) {
+                progress.checkCancelled();
+                long begin = System.nanoTime();
+                List<?> data = pagingQuery.queryByPage(paging.page, paging.offset(), paging.size);
+                if (data == null) {
+                    break;
+                }
+                metrics.pageQueried(paging.page, data.size(), System.nanoTime() - begin);
+                paging.page++;
+                writeData(data);
+                // 如果当前页的数据不满每页数据大小, 表明当前页是最后一页, 退出循环
+                if (data.size() < paging.size) {
+                    break;
+                }
+            }
+            return this;
+        } catch (ExcelCancelledException e) {
+            dispose();
+            throw e;
+        } catch (Throwable e) {
+            dispose();
+            throw new ExcelCastException(e);
+        }
+    }
+
+    /**
+     * 输出到文件
+     *
+     * @param pathname 文件路径名称
+     */
+    public void toFile(String pathname) {
+        toFile(new File(pathname));
+    }
+
+    /**
+     * 输出到文件
+     *
+     * @param file 文件对象
+     */
+    public void toFile(File file) {
+        long begin = System.nanoTime();
+        FileOutputStream os = null;
+        try {
+            flush();
+            os = new FileOutputStream(file);
+            long bytes = transferTo(os.getChannel());
+            metrics.workbookWritten(bytes, System.nanoTime() - begin);
+        } catch (IOException e) {
+            throw new ExcelCastException(e);
+        } finally {
+            if (os != null) {
+                try {
+                    os.close();
+                } catch (IOException e) {
+                }
+            }
+            dispose();
+        }
+    }
+
+    /**
+     * 输出到输出流
+     *
+     * @param os 输出流
+     */
+    public void toStream(OutputStream os) {
+        long begin = System.nanoTime();
+        try {
+            flush();
+            CountingOutputStream cos = new CountingOutputStream(os);
+            transferTo(Channels.newChannel(cos));
+            cos.flush();
+            metrics.workbookWritten(cos.getCount(), System.nanoTime() - begin);
+        } catch (IOException e) {
+            throw new ExcelCastException(e);
+        } finally {
+            dispose();
+        }
+    }
+
+    /**
+     * 写出到客户端响应, 用于供客户端下载文件
+     *
+     * @param response HttpServletResponse
+     * @param filename 下载时存储的文件名称
+     */
+    public void toHttp(HttpServletResponse response, String filename) {
+        try {
+            filename = new String(filename.getBytes("UTF-8"), "ISO-8859-1");
+        } catch (UnsupportedEncodingException e) {
+            throw new ExcelCastException(e);
+        }
+        response.reset();
+        response.setHeader("Content-Disposition", "attachment; filename=" + filename);
+        response.setContentType("text/csv; charset=" + encoder.charset().name());
+        try {
+            toStream(response.getOutputStream());
+        } catch (IOException e) {
+            dispose();
+            throw new ExcelCastException(e);
+        }
+    }
+
+    /**
+     * 关闭并删除临时文件。输出完成、写出失败或取消时自动调用, 不再输出时(如丢弃已写出的数据)需手动调用
+     */
+    public void dispose() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+        }
+        spoolFile.delete();
+    }
+
+    /**
+     * 写出标题行
+     */
+    private void writeTitle() throws IOException {
+        if (titleWritten) {
+            return;
+        }
+        for (int i = 0; i < cellFields.size(); i++) {
+            if (i > 0) {
+                put(delimiter);
+            }
+            putEscaped(cellFields.get(i).getName());
+        }
+        putLineSeparator();
+        titleWritten = true;
+    }
+
+    /**
+     * 写出数据行
+     *
+     * @param data 数据集
+     */
+    private void writeData(List<?> data) throws IOException {
+        long begin = System.nanoTime();
+        for (Object item : data) {
+            progress.advance();
+            for (int i = 0; i < cellFields.size(); i++) {
+                if (i > 0) {
+                    put(delimiter);
+                }
+                CellField cellField = cellFields.get(i);
+                putValue(mapper.getValue(item, cellField.getIndex()), i);
+            }
+            putLineSeparator();
+        }
+        metrics.rowsWritten(data.size(), (long) data.size() * cellFields.size(), System.nanoTime() - begin);
+    }
+
+    /**
+     * 写出单元格的值
+     *
+     * @param value 值
+     * @param col   列的序号
+     */
+    private void putValue(Object value, int col) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (mapping != null && mapping.containsKey(value)) {
+            putEscaped(mapping.get(value).toString());
+            return;
+        }
+        Object formatter = formatters[col];
+        if (value instanceof Date && formatter instanceof SimpleDateFormat) {
+            formatBuffer.setLength(0);
+            ((SimpleDateFormat) formatter).format((Date) value, formatBuffer, fieldPosition);
+            putEscaped(formatBuffer);
+        } else if (value instanceof Number && formatter instanceof DecimalFormat) {
+            formatBuffer.setLength(0);
+            ((DecimalFormat) formatter).format(value, formatBuffer, fieldPosition);
+            putEscaped(formatBuffer);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            putLong(((Number) value).longValue());
+        } else {
+            putEscaped(value.toString());
+        }
+    }
+
+    /**
+     * 根据{@link CellField#getFormat()}创建格式化器, 文本格式或无法识别的格式不做格式化
+     *
+     * @param cellField 单元格注解字段
+     * @return 返回 {@link SimpleDateFormat}、{@link DecimalFormat} 或 null
+     */
+    private static Object createFormatter(CellField cellField) {
+        String format = cellField.getFormat();
+        Class<?> type = cellField.getType();
+        if (format == null || format.isEmpty() || Format.STRING.getFormat().equals(format)) {
+            return null;
+        }
+        try {
+            if (type == Date.class) {
+                return new SimpleDateFormat(format);
+            }
+            if (type.isPrimitive() && type != Boolean.TYPE && type != Character.TYPE
+                    || Number.class.isAssignableFrom(type)) {
+                // 整数使用缺省的整数格式时直接输出数字
+                if (Format.INTEGER.getFormat().equals(format)
+                        && (type == Long.TYPE || type == Long.class || type == Integer.TYPE || type == Integer.class
+                        || type == Short.TYPE || type == Short.class || type == Byte.TYPE || type == Byte.class)) {
+                    return null;
+                }
+                return new DecimalFormat(format, DecimalFormatSymbols.getInstance(Locale.ROOT));
+            }
+        } catch (IllegalArgumentException e) {
+            // EXCEL 专有的格式, 不做格式化
+        }
+        return null;
+    }
+
+    /**
+     * 写出需要转义的文本, 包含分隔符、引号或换行时用引号包围并将引号加倍
+     *
+     * @param text 文本
+     */
+    private void putEscaped(CharSequence text) throws IOException {
+        int length = text.length();
+        boolean quote = false;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == delimiter || c == '"' || c == '\n' || c == '\r') {
+                quote = true;
+                break;
+            }
+        }
+        if (!quote) {
+            for (int i = 0; i < length; i++) {
+                put(text.charAt(i));
+            }
+            return;
+        }
+        put('"');
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                put('"');
+            }
+            put(c);
+        }
+        put('"');
+    }
+
+    /**
+     * 写出整数, 不创建中间字符串
+     *
+     * @param value 整数
+     */
+    private void putLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            putEscaped(String.valueOf(value));
+            return;
+        }
+        if (value < 0) {
+            put('-');
+            value = -value;
+        }
+        if (charBuffer.remaining() < 20) {
+            drain();
+        }
+        // 从低位到高位写出, 再反转
+        int start = charBuffer.position();
+        do {
+            charBuffer.put((char) ('0' + value % 10));
+            value /= 10;
+        } while (value != 0);
+        int end = charBuffer.position() - 1;
+        char[] array = charBuffer.array();
+        int offset = charBuffer.arrayOffset();
+        for (int i = start + offset, j = end + offset; i < j; i++, j--) {
+            char c = array[i];
+            array[i] = array[j];
+            array[j] = c;
+        }
+    }
+
+    private void putLineSeparator() throws IOException {
+        for (int i = 0; i < LINE_SEPARATOR.length(); i++) {
+            put(LINE_SEPARATOR.charAt(i));
+        }
+    }
+
+    private void put(char c) throws IOException {
+        if (!charBuffer.hasRemaining()) {
+            drain();
+        }
+        charBuffer.put(c);
+    }
+
+    /**
+     * 编码字符缓冲区中的字符并写入临时文件
+     */
+    private void drain() throws IOException {
+        charBuffer.flip();
+        // 编码错误已替换, 只会上溢或下溢
+        while (encoder.encode(charBuffer, byteBuffer, false).isOverflow()) {
+            writeBytes();
+        }
+        writeBytes();
+        // 保留被截断的代理对
+        charBuffer.compact();
+    }
+
+    private void writeBytes() throws IOException {
+        byteBuffer.flip();
+        while (byteBuffer.hasRemaining()) {
+            channel.write(byteBuffer);
+        }
+        byteBuffer.clear();
+    }
+
+    /**
+     * 将缓冲区中剩余的字符写入临时文件, 结束编码, 末尾不完整的代理对按编码错误处理
+     */
+    private void flush() throws IOException {
+        charBuffer.flip();
+        while (encoder.encode(charBuffer, byteBuffer, true).isOverflow()) {
+            writeBytes();
+        }
+        while (encoder.flush(byteBuffer).isOverflow()) {
+            writeBytes();
+        }
+        writeBytes();
+        charBuffer.clear();
+    }
+
+    /**
+     * 将临时文件传输到目标通道
+     *
+     * @param target 目标通道
+     * @return 返回传输的字节数
+     */
+    private long transferTo(WritableByteChannel target) throws IOException {
+        long size = channel.size();
+        long position = 0;
+        while (position < size) {
+            position += channel.transferTo(position, size - position, target);
+        }
+        return size;
+    }
+
+}
@@ -1,30 +1,44 @@
 package com.github.fanlychie.excelutils.write;
 
-import com.github.fanlychie.beanutils.BeanUtils;
-import com.github.fanlychie.beanutils.operator.FieldOperator;
-import com.github.fanlychie.excelutils.annotation.AnnotationHandler;
 import com.github.fanlychie.excelutils.annotation.CellField;
+import com.github.fanlychie.excelutils.annotation.CellMapper;
+import com.github.fanlychie.excelutils.exception.ExcelCancelledException;
 import com.github.fanlychie.excelutils.exception.ExcelCastException;
+import com.github.fanlychie.excelutils.exception.WriteExcelException;
+import com.github.fanlychie.excelutils.metrics.CountingOutputStream;
+import com.github.fanlychie.excelutils.metrics.FlightEvent;
+import com.github.fanlychie.excelutils.metrics.FlightEventType;
+import com.github.fanlychie.excelutils.metrics.FlightEvents;
+import com.github.fanlychie.excelutils.metrics.MetricsListener;
+import com.github.fanlychie.excelutils.metrics.NoopMetricsListener;
+import com.github.fanlychie.excelutils.progress.ExcelProgress;
+import com.github.fanlychie.excelutils.spec.Aggregate;
 import com.github.fanlychie.excelutils.write.model.RowStyle;
 import com.github.fanlychie.excelutils.write.model.WorkbookSheet;
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.Font;
 import org.apache.poi.xssf.streaming.SXSSFCell;
 import org.apache.poi.xssf.streaming.SXSSFRow;
 import org.apache.poi.xssf.streaming.SXSSFSheet;
 import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.Deflater;
 
 /**
  * EXCEL写操作, 用于将POJO数据写出到EXCEL文件
@@ -33,6 +47,11 @@ import java.util.Map;
  */
 public class ExcelWriter {
 
+    /**
+     * 内存中保留的最大行数, 达到后刷出到临时文件
+     */
+    private static final int ROW_ACCESS_WINDOW = 100;
+
     /**
      * SXSSF 工作表
      */
@@ -53,6 +72,11 @@ public class ExcelWriter {
      */
     private List<CellField> cellFields;
 
+    /**
+     * 单元格映射器
+     */
+    private CellMapper mapper;
+
     /**
      * 工作表计数
      */
@@ -78,6 +102,96 @@ public class ExcelWriter {
      */
     private SheetNameStrategy sheetNameStrategy;
 
+    /**
+     * 度量监听器
+     */
+    private MetricsListener metrics = NoopMetricsListener.INSTANCE;
+
+    /**
+     * 进度和取消句柄
+     */
+    private ExcelProgress progress = new ExcelProgress();
+
+    /**
+     * 内存中尚未刷出到临时文件的行数
+     */
+    private int unflushedRows;
+
+    /**
+     * 压缩级别, 0-9, 0 为仅存储
+     */
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+    /**
+     * 压缩线程数
+     */
+    private int compressionThreads = 1;
+
+    /**
+     * 模板工作薄
+     */
+    private XSSFWorkbook template;
+
+    /**
+     * 写入数据的模板工作表索引, 模板工作表已使用或未使用模板时为 -1
+     */
+    private int templateSheet = -1;
+
+    /**
+     * 模板工作表中数据的起始行索引
+     */
+    private int templateStartRow;
+
+    /**
+     * 列宽估算器, 未启用自动列宽时为 null
+     */
+    private ColumnWidthEstimator columnWidths;
+
+    /**
+     * 自动列宽的最大字符数, 0 为不启用
+     */
+    private int autoWidthMax;
+
+    /**
+     * 脚部行聚合器, 没有列需要聚合时为 null
+     */
+    private FooterAggregator footer;
+
+    /**
+     * 脚部行每列的单元格样式
+     */
+    private CellStyle[] footerStyles;
+
+    /**
+     * 当前的工作表是否已完成
+     */
+    private boolean sheetFinished;
+
+    /**
+     * 每个工作表中数据行的最大行索引, 即 EXCEL 的最大行索引(有脚部行时保留一行)
+     */
+    private int maxRowIndex = SpreadsheetVersion.EXCEL2007.getLastRowIndex();
+
+    /**
+     * 每个工作表最大的数据行数, 默认只受 EXCEL 的最大行数限制
+     */
+    private int maxRows = Integer.MAX_VALUE;
+
+    /**
+     * 当前工作表第一个数据行的索引
+     */
+    private int bodyStartIndex;
+
+    /**
+     * 分页导出的工作目录, 为 null 时不持久化
+     */
+    private File workDirectory;
+
+    /**
+     * 分页导出日志, 未设置工作目录时为 null
+     */
+    private ExportJournal journal;
+
     ExcelWriter() {}
 
     /**
@@ -121,11 +235,7 @@ public class ExcelWriter {
      * @param pathname 文件路径名称
      */
     public void toFile(String pathname) {
-        try {
-            workbook.write(new FileOutputStream(new File(pathname)));
-        } catch (Throwable e) {
-            throw new ExcelCastException(e);
-        }
+        toFile(new File(pathname));
     }
 
     /**
@@ -134,17 +244,18 @@ public class ExcelWriter {
      * @param file 文件对象
      */
     public void toFile(File file) {
-        OutputStream os = null;
+        OutputStream os;
         try {
-            workbook.write(os);
-        } catch (Throwable e) {
+            os = new FileOutputStream(file);
+        } catch (FileNotFoundException e) {
             throw new ExcelCastException(e);
+        }
+        try {
+            output(os);
         } finally {
-            if (os != null) {
-                try {
-                    os.close();
-                } catch (IOException e) {
-                }
+            try {
+                os.close();
+            } catch (IOException e) {
             }
         }
     }
@@ -155,11 +266,7 @@ public class ExcelWriter {
      * @param os 输出流
      */
     public void toStream(OutputStream os) {
-        try {
-            workbook.write(os);
-        } catch (Throwable e) {
-            throw new ExcelCastException(e);
-        }
+        output(os);
     }
 
     /**
@@ -178,23 +285,193 @@ public class ExcelWriter {
         response.setHeader("Content-Disposition", "attachment; filename=" + filename);
         response.setContentType("application/octet-stream; charset=ISO-8859-1");
         try {
-            workbook.write(response.getOutputStream());
+            output(response.getOutputStream());
+        } catch (IOException e) {
+            throw new ExcelCastException(e);
+        }
+    }
+
+    /**
+     * 输出工作薄
+     *
+     * @param os 输出流
+     */
+    private void output(OutputStream os) {
+        long begin = System.nanoTime();
+        FlightEvent event = FlightEvents.begin(FlightEventType.FILE_WRITTEN);
+        try {
+            finishSheet();
+            flushRows();
+            CountingOutputStream cos = new CountingOutputStream(os);
+            if (compressionLevel == Deflater.DEFAULT_COMPRESSION && compressionThreads <= 1) {
+                workbook.write(cos);
+            } else {
+                new WorkbookZipWriter(cos, compressionLevel, compressionThreads).write(workbook);
+            }
+            event.finish(null, 0, cos.getCount());
+            metrics.workbookWritten(cos.getCount(), System.nanoTime() - begin);
+            if (journal != null) {
+                // 文件已完整输出, 不再需要恢复
+                journal.delete();
+                journal = null;
+            }
+        } catch (Throwable e) {
+            discard();
+            throw new ExcelCastException(e);
+        } finally {
+            // 已输出, 删除 SXSSF 临时文件, 归还的磁盘配额与实际占用一致
+            workbook.dispose();
+            closeTemplate();
+        }
+    }
+
+    /**
+     * 关闭模板工作薄, 模板的内容已随 SXSSF 工作薄写出或不再需要
+     */
+    private void closeTemplate() {
+        if (template != null) {
+            try {
+                template.close();
+            } catch (IOException e) {
+            }
+            template = null;
+        }
+    }
+
+    /**
+     * 每批写出的数据个数, 未设置分页大小时为 100
+     */
+    int getBatchSize() {
+        return paging != null ? paging.size : 100;
+    }
+
+    void setMetrics(MetricsListener metrics) {
+        this.metrics = metrics;
+    }
+
+    void setProgress(ExcelProgress progress) {
+        this.progress = progress;
+    }
+
+    void setCompression(int level, int threads) {
+        this.compressionLevel = level;
+        this.compressionThreads = threads;
+    }
+
+    /**
+     * 使用模板, 数据从模板工作表的起始行开始写入, 模板中已有的行、样式、冻结窗格和图片等保持不变
+     *
+     * @param file       模板文件(.xlsx)
+     * @param sheetIndex 模板工作表索引
+     * @param startRow   数据的起始行索引, 必须位于模板已有的行之后
+     */
+    void setTemplate(File file, int sheetIndex, int startRow) {
+        XSSFWorkbook template;
+        try (InputStream in = new FileInputStream(file)) {
+            template = new XSSFWorkbook(in);
         } catch (IOException e) {
             throw new ExcelCastException(e);
         }
+        // 先持有模板, 校验失败时由 discard 关闭
+        this.template = template;
+        if (sheetIndex < 0 || sheetIndex >= template.getNumberOfSheets()) {
+            throw new WriteExcelException("template sheet index out of range: " + sheetIndex);
+        }
+        XSSFSheet sheet = template.getSheetAt(sheetIndex);
+        // SXSSF 的行追加在模板已有的行之后, 不能与其重叠
+        if (sheet.getPhysicalNumberOfRows() > 0 && startRow <= sheet.getLastRowNum()) {
+            throw new WriteExcelException("start row must be greater than the last row of template: " +
+                    sheet.getLastRowNum());
+        }
+        this.templateSheet = sheetIndex;
+        this.templateStartRow = startRow;
+    }
+
+    void setAutoWidth(int maxWidth) {
+        this.autoWidthMax = maxWidth;
+    }
+
+    /**
+     * 设置每个工作表最大的数据行数, 从数据的起始行(样式配置的索引或模板的起始行)开始计数,
+     * 不超过 EXCEL 的最大行数
+     *
+     * @param max 最大的行数
+     */
+    void setMaxRowsPerSheet(int max) {
+        this.maxRows = max;
+    }
+
+    void setWorkDirectory(File workDirectory) {
+        this.workDirectory = workDirectory;
     }
 
-    ExcelWriter prepare(WorkbookSheet workbookSheet, Class<?> pojoClass, Paging paging, PagingQuery pagingQuery, SheetNameStrategy sheetNameStrategy) {
+    ExcelWriter prepare(WorkbookSheet workbookSheet, CellMapper mapper, Paging paging, PagingQuery pagingQuery, SheetNameStrategy sheetNameStrategy) {
         this.workbookSheet = workbookSheet;
-        this.workbook = new SXSSFWorkbook();
+        this.mapper = mapper;
+        this.cellFields = mapper.getCellFields();
+        // 先校验配置, 再创建工作薄
+        Aggregate[] aggregates = resolveAggregates(workbookSheet.getAggregates());
+        // 由 writeData 按窗口大小手动刷出, 以便统计刷盘耗时
+        this.workbook = template == null ? new SXSSFWorkbook(-1) : new SXSSFWorkbook(template, -1);
         this.paging = paging;
         this.pagingQuery = pagingQuery;
         this.sheetNameStrategy = sheetNameStrategy;
-        this.cellFields = new LinkedList<>(AnnotationHandler.getCellFieldMapping(pojoClass).values());
         this.rowIndex = workbookSheet.getBodyStyle().getIndex();
+        if (autoWidthMax > 0) {
+            this.columnWidths = new ColumnWidthEstimator(autoWidthMax, workbookSheet.getBodyStyle().getFontSize());
+        }
+        if (aggregates != null) {
+            this.footer = new FooterAggregator(aggregates);
+            this.footerStyles = new CellStyle[aggregates.length];
+            // 为脚部行保留一行
+            this.maxRowIndex = Math.min(maxRowIndex, SpreadsheetVersion.EXCEL2007.getLastRowIndex() - 1);
+        }
+        if (workDirectory != null && paging != null) {
+            StringBuilder fingerprint = new StringBuilder();
+            for (CellField cellField : cellFields) {
+                fingerprint.append(cellField.getIndex()).append(':').append(cellField.getField()).append(':')
+                        .append(cellField.getType().getName()).append(';');
+            }
+            fingerprint.append("page=").append(paging.page).append(";size=").append(paging.size)
+                    .append(";max=").append(paging.max);
+            this.journal = new ExportJournal(workDirectory, fingerprint.toString());
+        }
         return this;
     }
 
+    /**
+     * 解析每列的聚合方式, 配置文件中的聚合方式优先于{@link com.github.fanlychie.excelutils.annotation.Cell#footer()}
+     *
+     * @param config 配置的聚合方式, 键为单元格索引或字段名称
+     * @return 返回每列的聚合方式, 没有列需要聚合时返回 null
+     * @throws WriteExcelException 日期列配置了求和或平均值
+     */
+    private Aggregate[] resolveAggregates(Map<Object, Aggregate> config) {
+        Aggregate[] aggregates = new Aggregate[cellFields.size()];
+        boolean present = false;
+        for (int i = 0; i < aggregates.length; i++) {
+            CellField cellField = cellFields.get(i);
+            Aggregate aggregate = cellField.getFooter();
+            if (config != null) {
+                if (config.containsKey(cellField.getIndex())) {
+                    aggregate = config.get(cellField.getIndex());
+                } else if (config.containsKey(String.valueOf(cellField.getIndex()))) {
+                    aggregate = config.get(String.valueOf(cellField.getIndex()));
+                } else if (config.containsKey(cellField.getField())) {
+                    aggregate = config.get(cellField.getField());
+                }
+            }
+            aggregates[i] = aggregate == null ? Aggregate.NONE : aggregate;
+            // 日期的毫秒数求和或求平均值没有意义
+            if ((aggregates[i] == Aggregate.SUM || aggregates[i] == Aggregate.AVERAGE)
+                    && Date.class.isAssignableFrom(cellField.getType())) {
+                throw new WriteExcelException("cannot " + aggregates[i] + " date column: " + cellField.getField());
+            }
+            present |= aggregates[i] != Aggregate.NONE;
+        }
+        return present ? aggregates : null;
+    }
+
     /**
      * 构建工作表(Sheet)
      *
@@ -212,27 +489,46 @@ public class ExcelWriter {
             }
             // 处理工作表数据
             if (data != null && data.size() > 0) {
+                progress.addEstimatedTotal(data.size());
                 writeData(data);
             } else if (pagination) {
+                if (pagingQuery instanceof CountingPagingQuery) {
+                    progress.addEstimatedTotal(((CountingPagingQuery) pagingQuery).count());
+                }
                 // 一直执行分页查询, 直至查询的页面结果为空或最后一页
-                while ((data = pagingQuery.queryByPage(paging.page, paging.offset(), paging.size)) != null) {
+                while (true) {
+                    progress.checkCancelled();
+                    // 待提交到导出日志的数据块
+                    byte[] block = null;
+                    if (journal != null && (data = journal.replay()) != null) {
+                        // 上次导出已完成的页, 从导出日志中回放
+                    } else if (journal != null && journal.isComplete()) {
+                        break;
+                    } else {
+                        long begin = System.nanoTime();
+                        FlightEvent event = FlightEvents.begin(FlightEventType.PAGE_QUERIED);
+                        if ((data = pagingQuery.queryByPage(paging.page, paging.offset(), paging.size)) == null) {
+                            if (journal != null) {
+                                journal.complete(paging.page);
+                            }
+                            break;
+                        }
+                        event.finish(null, paging.page, data.size());
+                        metrics.pageQueried(paging.page, data.size(), System.nanoTime() - begin);
+                        if (journal != null) {
+                            List<Object[]> rows = toCellValues(data);
+                            block = journal.encode(rows);
+                            data = rows;
+                        }
+                    }
                     // 当前页数据集合的大小
                     int size = data.size();
                     // 页码 + 1
                     paging.page++;
-                    // 如果数据超出设置的上限, 分两个sheet页写出
-                    if (rowIndex + size > paging.max) {
-                        Split split = new Split(rowIndex, paging.max, data);
-                        // 先写满当前sheet
-                        writeData(split.blockList);
-                        if (split.overList.size() > 0) {
-                            // 创建新的sheet
-                            createNewSheet(sheetName, pagination);
-                            // 超出的数据写入新的sheet
-                            writeData(split.overList);
-                        }
-                    } else {
-                        writeData(data);
+                    // 超出每个工作表的最大行数时由 writeData 另起新的工作表
+                    writeData(data);
+                    if (block != null) {
+                        journal.commit(block, paging.page, size < paging.size);
                     }
                     // 如果当前页的数据不满每页数据大小, 表明当前页是最后一页, 退出循环
                     if (size < paging.size) {
@@ -241,21 +537,95 @@ public class ExcelWriter {
                 }
             }
             return this;
+        } catch (ExcelCancelledException e) {
+            discard();
+            throw e;
         } catch (Throwable e) {
+            discard();
             throw new ExcelCastException(e);
         }
     }
 
     /**
-     * 将数据写出到Sheet
+     * 构建或写出失败、已取消, 删除 SXSSF 临时文件并关闭模板, 导出日志保留在工作目录中用于恢复
+     */
+    void discard() {
+        if (workbook != null) {
+            workbook.dispose();
+        }
+        closeTemplate();
+        closeJournal();
+    }
+
+    private void closeJournal() {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+    }
+
+    /**
+     * 取出每行的单元格值, 用于写入导出日志
+     *
+     * @param data 数据集
+     * @return 返回每行的单元格值, 以单元格索引为下标
+     */
+    private List<Object[]> toCellValues(List<?> data) {
+        List<Object[]> rows = new ArrayList<>(data.size());
+        int width = cellFields.get(cellFields.size() - 1).getIndex() + 1;
+        for (Object item : data) {
+            Object[] values = new Object[width];
+            for (CellField cellField : cellFields) {
+                values[cellField.getIndex()] = mapper.getValue(item, cellField.getIndex());
+            }
+            rows.add(values);
+        }
+        return rows;
+    }
+
+    /**
+     * 将数据写出到Sheet, 超出每个工作表的最大行数时另起一个新的工作表(名称由{@link SheetNameStrategy}决定),
+     * 所有的写出方式都适用
      *
      * @param data 数据集
      */
     private void writeData(List<?> data) {
+        long begin = System.nanoTime();
+        long flushNanos = 0;
         for (Object item : data) {
+            progress.advance();
+            if (rowIndex - bodyStartIndex >= maxRows || rowIndex > maxRowIndex) {
+                // 当前工作表已写满, 另起一个新的工作表
+                createNewSheet(null, true);
+            }
             // 构建行数据
             fillDataRow(rowIndex++, item);
+            if (++unflushedRows >= ROW_ACCESS_WINDOW) {
+                flushNanos += flushRows();
+            }
+        }
+        metrics.rowsWritten(data.size(), (long) data.size() * cellFields.size(), System.nanoTime() - begin - flushNanos);
+    }
+
+    /**
+     * 将内存中的行刷出到临时文件
+     *
+     * @return 返回刷盘的耗时(纳秒)
+     */
+    private long flushRows() {
+        if (sheet == null || unflushedRows == 0) {
+            return 0;
         }
+        long begin = System.nanoTime();
+        try {
+            sheet.flushRows();
+        } catch (IOException e) {
+            throw new ExcelCastException(e);
+        }
+        long nanos = System.nanoTime() - begin;
+        metrics.rowsFlushed(unflushedRows, nanos);
+        unflushedRows = 0;
+        return nanos;
     }
 
     /**
@@ -265,6 +635,15 @@ public class ExcelWriter {
      * @param pagination 是否分页
      */
     private void createNewSheet(String sheetName, boolean pagination) {
+        FlightEvent event = FlightEvents.begin(FlightEventType.SHEET_CREATED);
+        progress.startSheet();
+        // 完成上一个工作表
+        finishSheet();
+        if (templateSheet != -1) {
+            useTemplateSheet(sheetName);
+            event.finish(sheet.getSheetName(), workbook.getNumberOfSheets(), 0);
+            return;
+        }
         if (sheetName == null) {
             if (pagination && sheetNameStrategy != null) {
                 sheetName = sheetNameStrategy.getSheetName(sheetCount++);
@@ -272,14 +651,130 @@ public class ExcelWriter {
                 sheetName = workbookSheet.getName() + (sheetCount++);
             }
         }
+        // 刷出上一个工作表剩余的行
+        flushRows();
         // 创建新的工作表
         sheet = workbook.createSheet(sheetName);
+        sheetFinished = false;
         // 添加标题行
         addTitleRow(workbookSheet.getTitleStyle());
         // 对其余的行使用格式刷
         formatColumnStyle(workbookSheet.getBodyStyle());
         // 重置索引
-        rowIndex = workbookSheet.getBodyStyle().getIndex();
+        rowIndex = bodyStartIndex = workbookSheet.getBodyStyle().getIndex();
+        event.finish(sheetName, workbook.getNumberOfSheets(), 0);
+    }
+
+    /**
+     * 完成当前的工作表, 设置估算的列宽
+     */
+    private void finishSheet() {
+        if (sheet == null || sheetFinished) {
+            return;
+        }
+        sheetFinished = true;
+        if (footer != null) {
+            addFooterRow();
+        }
+        if (columnWidths != null) {
+            columnWidths.apply(sheet);
+        }
+    }
+
+    /**
+     * 添加脚部行, 输出每列的聚合值
+     */
+    private void addFooterRow() {
+        RowStyle style = workbookSheet.getFooterStyle() != null ? workbookSheet.getFooterStyle() :
+                workbookSheet.getBodyStyle();
+        SXSSFRow row = sheet.createRow(rowIndex++);
+        if (style.getHeight() != null) {
+            row.setHeightInPoints(style.getHeight());
+        }
+        String label = workbookSheet.getFooterLabel();
+        for (int i = 0; i < cellFields.size(); i++) {
+            CellField cellField = cellFields.get(i);
+            Aggregate aggregate = footer.getAggregate(i);
+            if (aggregate == Aggregate.NONE && label == null) {
+                continue;
+            }
+            SXSSFCell cell = row.createCell(cellField.getIndex());
+            cell.setCellStyle(getFooterStyle(i, style));
+            String text;
+            if (aggregate == Aggregate.NONE) {
+                // 标签输出在第一个没有聚合的列
+                text = label;
+                label = null;
+                cell.setCellValue(text);
+            } else {
+                Object result = footer.getResult(i);
+                if (result instanceof Date) {
+                    cell.setCellValue((Date) result);
+                    text = cellField.getFormat();
+                } else if (result != null) {
+                    cell.setCellValue(((Number) result).doubleValue());
+                    text = result.toString();
+                } else {
+                    text = null;
+                }
+            }
+            if (columnWidths != null) {
+                columnWidths.update(cellField.getIndex(), text);
+            }
+        }
+        footer.reset();
+        unflushedRows++;
+    }
+
+    /**
+     * 获取脚部行单元格的样式, 同一列在各个工作表中共用
+     *
+     * @param column 列在单元格注解字段列表中的位置
+     * @param style  脚部行样式
+     * @return 返回 {@link CellStyle} 实例
+     */
+    private CellStyle getFooterStyle(int column, RowStyle style) {
+        if (footerStyles[column] == null) {
+            CellField cellField = cellFields.get(column);
+            CellStyle cellStyle = buildCellStyle(style);
+            cellStyle.setAlignment(cellField.getAlign().getValue());
+            String format;
+            switch (footer.getAggregate(column)) {
+                case NONE:
+                    format = null;
+                    break;
+                case COUNT:
+                case DISTINCT:
+                    format = "0";
+                    break;
+                case AVERAGE:
+                    format = "0".equals(cellField.getFormat()) ? "0.00" : cellField.getFormat();
+                    break;
+                default:
+                    format = cellField.getFormat();
+                    break;
+            }
+            if (format != null && !"@".equals(format)) {
+                cellStyle.setDataFormat(workbook.createDataFormat().getFormat(format));
+            }
+            footerStyles[column] = cellStyle;
+        }
+        return footerStyles[column];
+    }
+
+    /**
+     * 使用模板工作表, 标题行和列样式来自模板, 之后的工作表(如超出最大行数时)按样式配置创建
+     *
+     * @param sheetName 工作表名称, 为 null 时保留模板中的名称
+     */
+    private void useTemplateSheet(String sheetName) {
+        if (sheetName != null) {
+            workbook.setSheetName(templateSheet, sheetName);
+        }
+        sheet = workbook.getSheetAt(templateSheet);
+        sheetFinished = false;
+        rowIndex = bodyStartIndex = templateStartRow;
+        templateSheet = -1;
     }
 
     /**
@@ -300,6 +795,9 @@ public class ExcelWriter {
             SXSSFCell cell = row.createCell(index);
             cell.setCellStyle(buildCellStyle(style));
             cell.setCellValue(cellField.getName());
+            if (columnWidths != null) {
+                columnWidths.update(index, cellField.getName());
+            }
         }
     }
 
@@ -325,7 +823,7 @@ public class ExcelWriter {
      * 填充行数据
      *
      * @param index 行索引
-     * @param item  填充单元格的数据
+     * @param item  填充单元格的数据, POJO、Map 或以单元格索引为下标的值数组
      */
     private void fillDataRow(int index, Object item) {
         SXSSFRow row = sheet.createRow(index);
@@ -333,11 +831,24 @@ public class ExcelWriter {
         if (style.getHeight() != null) {
             row.setHeightInPoints(style.getHeight());
         }
-        FieldOperator fieldOperator = BeanUtils.fieldOperate(item.getClass());
-        for (CellField cellField : cellFields) {
+        for (int i = 0; i < cellFields.size(); i++) {
+            CellField cellField = cellFields.get(i);
             SXSSFCell cell = row.createCell(cellField.getIndex());
-            Object value = fieldOperator.getValueByFieldName(item, cellField.getField());
-            setCellValue(cell, value, cellField.getType());
+            Object value;
+            if (item instanceof Object[]) {
+                // 导出日志或行结构中的行为以单元格索引为下标的值数组
+                Object[] values = (Object[]) item;
+                value = cellField.getIndex() < values.length ? values[cellField.getIndex()] : null;
+            } else {
+                value = mapper.getValue(item, cellField.getIndex());
+            }
+            String text = setCellValue(cell, value, cellField);
+            if (columnWidths != null) {
+                columnWidths.update(cellField.getIndex(), text);
+            }
+            if (footer != null) {
+                footer.add(i, value);
+            }
             cell.setCellStyle(sheet.getColumnStyle(cellField.getIndex()));
         }
     }
@@ -345,27 +856,36 @@ public class ExcelWriter {
     /**
      * 设置单元格的值
      *
-     * @param cell  单元格对象
-     * @param value 值
-     * @param type  值的类型
+     * @param cell      单元格对象
+     * @param value     值
+     * @param cellField 单元格注解字段
+     * @return 返回用于估算列宽的文本, 值为 null 时返回 null
      */
-    private void setCellValue(SXSSFCell cell, Object value, Class<?> type) {
+    private String setCellValue(SXSSFCell cell, Object value, CellField cellField) {
         Map<Object, Object> mapping = workbookSheet.getMapping();
+        Class<?> type = cellField.getType();
         if (value == null) {
             cell.setCellValue("");
+            return null;
         } else if ((type == Boolean.TYPE || type == Boolean.class) &&
                 (mapping == null || !mapping.containsKey(value))) {
             cell.setCellValue((boolean) value);
+            return "FALSE";
         } else if ((Number.class.isAssignableFrom(value.getClass()))) {
-            cell.setCellValue(Double.parseDouble(value.toString()));
+            String number = value.toString();
+            cell.setCellValue(Double.parseDouble(number));
+            return number;
         } else if (type == Date.class) {
             cell.setCellValue((Date) value);
+            // 日期按格式的长度显示
+            return cellField.getFormat();
         } else {
             String cellValue = value.toString();
             if (mapping != null && mapping.containsKey(value)) {
                 cellValue = mapping.get(value).toString();
             }
             cell.setCellValue(cellValue);
+            return cellValue;
         }
     }
 
@@ -431,28 +951,6 @@ public class ExcelWriter {
         return font;
     }
 
-    private static class Split {
-
-        private List blockList;
-
-        private List overList;
-
-        public Split(int current, int max, List list) {
-            overList = new ArrayList<>();
-            blockList = new ArrayList<>();
-            for (Object item : list) {
-                // 标题行占了一行, 计算最大行数时使用`=`计数增加一行数据行
-                if (current++ <= max) {
-                    blockList.add(item);
-                } else {
-                    overList.add(item);
-                }
-            }
-            list.clear();
-        }
-
-    }
-
     static class Paging {
 
         int page = 1;
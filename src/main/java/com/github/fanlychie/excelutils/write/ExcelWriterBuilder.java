@@ -1,11 +1,24 @@
 package com.github.fanlychie.excelutils.write;
 
+import com.github.fanlychie.excelutils.annotation.AnnotationHandler;
+import com.github.fanlychie.excelutils.annotation.CellMapper;
+import com.github.fanlychie.excelutils.annotation.RowSchema;
 import com.github.fanlychie.excelutils.exception.WriteExcelException;
+import com.github.fanlychie.excelutils.metrics.MetricsListener;
+import com.github.fanlychie.excelutils.metrics.NoopMetricsListener;
+import com.github.fanlychie.excelutils.progress.ExcelProgress;
+import com.github.fanlychie.excelutils.spec.Aggregate;
 import com.github.fanlychie.excelutils.spec.Align;
 import com.github.fanlychie.excelutils.spec.Format;
 import com.github.fanlychie.excelutils.write.ExcelWriter.Paging;
 import com.github.fanlychie.excelutils.write.model.StyleConfiguration;
 
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+
 /**
  * EXCEL写操作的构建工具, 用于构建一个{@link ExcelWriter}实例
  * *
@@ -18,6 +31,11 @@ public final class ExcelWriterBuilder {
      */
     private Class<?> pojoClass;
 
+    /**
+     * 行结构, 代替 POJO 类
+     */
+    private RowSchema schema;
+
     /**
      * 工作表样式
      */
@@ -43,6 +61,56 @@ public final class ExcelWriterBuilder {
      */
     private SheetNameStrategy strategy;
 
+    /**
+     * 每个Sheet页最大的数据行数
+     */
+    private int maxRows = Integer.MAX_VALUE;
+
+    /**
+     * 度量监听器
+     */
+    private MetricsListener metrics = NoopMetricsListener.INSTANCE;
+
+    /**
+     * 进度和取消句柄
+     */
+    private ExcelProgress progress;
+
+    /**
+     * 压缩级别
+     */
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+    /**
+     * 压缩线程数
+     */
+    private int compressionThreads = 1;
+
+    /**
+     * 模板文件
+     */
+    private File template;
+
+    /**
+     * 模板工作表索引
+     */
+    private int templateSheet;
+
+    /**
+     * 模板工作表中数据的起始行索引
+     */
+    private int templateStartRow;
+
+    /**
+     * 自动列宽的最大字符数, 0 为不启用
+     */
+    private int autoWidthMax;
+
+    /**
+     * 分页导出的工作目录
+     */
+    private File workDirectory;
+
     /**
      * 使用YAML配置文件配置样式
      *
@@ -70,7 +138,38 @@ public final class ExcelWriterBuilder {
      */
     public ExcelWriterBuilder define() {
         builtin();
-        this.config = configSheet.config;
+        this.config = configSheet.copyConfig();
+        return this;
+    }
+
+    /**
+     * 使用EXCEL模板(.xlsx), 数据流式写入模板的第一个工作表
+     *
+     * @param pathname 模板文件路径
+     * @param startRow 数据的起始行索引, 从0开始, 必须位于模板已有的行(如标题行)之后
+     * @return 返回 {@link ExcelWriterBuilder}
+     * @see #template(File, int, int)
+     */
+    public ExcelWriterBuilder template(String pathname, int startRow) {
+        return template(new File(pathname), 0, startRow);
+    }
+
+    /**
+     * 使用EXCEL模板(.xlsx), 保留模板中的样式、标题行、冻结窗格和图片等, 数据从起始行开始流式写入模板工作表,
+     * 列的样式使用模板中设置的列样式。使用模板时样式配置是可选的, 只用于值映射和超出最大行数后新建的工作表
+     *
+     * @param file       模板文件
+     * @param sheetIndex 写入数据的工作表索引, 从0开始
+     * @param startRow   数据的起始行索引, 从0开始, 必须位于模板已有的行(如标题行)之后
+     * @return 返回 {@link ExcelWriterBuilder}
+     */
+    public ExcelWriterBuilder template(File file, int sheetIndex, int startRow) {
+        if (startRow < 0) {
+            throw new IllegalArgumentException("start row must not be negative");
+        }
+        this.template = file;
+        this.templateSheet = sheetIndex;
+        this.templateStartRow = startRow;
         return this;
     }
 
@@ -82,6 +181,19 @@ public final class ExcelWriterBuilder {
      */
     public ExcelWriterBuilder payload(Class<?> pojoClass) {
         this.pojoClass = pojoClass;
+        this.schema = null;
+        return this;
+    }
+
+    /**
+     * 数据载体, 行结构, 每一行为 Object[] 或 Map
+     *
+     * @param schema {@link RowSchema}
+     * @return 返回 {@link ExcelWriterBuilder}
+     */
+    public ExcelWriterBuilder payload(RowSchema schema) {
+        this.schema = schema;
+        this.pojoClass = null;
         return this;
     }
 
@@ -103,6 +215,15 @@ public final class ExcelWriterBuilder {
         return new BodyRowStyleBuilder(this);
     }
 
+    /**
+     * 配置脚部行样式及每列的聚合方式
+     *
+     * @return 返回 {@link FooterRowStyleBuilder}
+     */
+    public FooterRowStyleBuilder footer() {
+        return new FooterRowStyleBuilder(this);
+    }
+
     /**
      * 分页查询
      *
@@ -114,22 +235,181 @@ public final class ExcelWriterBuilder {
         return new PagingBuilder(this);
     }
 
+    /**
+     * 度量监听器, 用于观察分页查询、行转换、刷盘和输出的耗时
+     *
+     * @param listener {@link MetricsListener}, 为 null 时不记录度量
+     * @return 返回 {@link ExcelWriterBuilder}
+     */
+    public ExcelWriterBuilder metrics(MetricsListener listener) {
+        this.metrics = listener == null ? NoopMetricsListener.INSTANCE : listener;
+        return this;
+    }
+
+    /**
+     * 进度和取消句柄, 可在其他线程查看写出进度或取消写出
+     *
+     * @param progress {@link ExcelProgress}
+     * @return 返回 {@link ExcelWriterBuilder}
+     */
+    public ExcelWriterBuilder progress(ExcelProgress progress) {
+        this.progress = progress;
+        return this;
+    }
+
+    /**
+     * 输出文件的压缩级别
+     *
+     * @param level 0-9, 0 为仅存储(不压缩, 适合局域网快速传输), 9 为最高压缩率
+     * @return 返回 {@link ExcelWriterBuilder}
+     */
+    public ExcelWriterBuilder compression(int level) {
+        if (level < 0 || level > 9) {
+            throw new IllegalArgumentException("compression level must be between 0 and 9");
+        }
+        this.compressionLevel = level;
+        return this;
+    }
+
+    /**
+     * 使用多个线程并行压缩工作表数据, 输出仍是标准的 zip 文件
+     *
+     * @param threads 压缩线程数
+     * @return 返回 {@link ExcelWriterBuilder}
+     */
+    public ExcelWriterBuilder parallelCompression(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be greater than 0");
+        }
+        this.compressionThreads = threads;
+        return this;
+    }
+
+    /**
+     * 自动列宽, 列宽的最大字符数为 60
+     *
+     * @return 返回 {@link ExcelWriterBuilder}
+     * @see #autoWidth(int)
+     */
+    public ExcelWriterBuilder autoWidth() {
+        return autoWidth(60);
+    }
+
+    /**
+     * 自动列宽, 写出数据时按单元格的字符数(中文等全角字符按两个字符)估算每列的宽度, 工作表完成时设置列宽,
+     * 代替固定的单元格宽度。不需要像 autoSizeColumn 一样在内存中保留全部的行
+     *
+     * @param maxWidth 列宽的最大字符数, 不超过 255
+     * @return 返回 {@link ExcelWriterBuilder}
+     */
+    public ExcelWriterBuilder autoWidth(int maxWidth) {
+        if (maxWidth < 1) {
+            throw new IllegalArgumentException("max width must be greater than 0");
+        }
+        this.autoWidthMax = maxWidth;
+        return this;
+    }
+
+    /**
+     * 设置每个Sheet页最大的数据行数, 超出这个阀值将自动另起一个新的Sheet页, 适用于所有的写出方式。
+     * 从数据的起始行开始计数, 不包括标题行和模板中已有的行。
+     * 默认为 EXCEL 的最大行数(1048576, 包括标题行), 超出时同样另起新的Sheet页
+     *
+     * @param max 最大的行数
+     * @return 返回 {@link ExcelWriterBuilder}
+     */
+    public ExcelWriterBuilder maxRowsPerSheet(int max) {
+        if (max < 1) {
+            throw new IllegalArgumentException("max rows must be greater than 0");
+        }
+        this.maxRows = max;
+        return this;
+    }
+
+    /**
+     * 设置另起的Sheet页的名称策略, 未设置时名称为工作表名称加序号
+     *
+     * @param sheetNameStrategy Sheet页名称策略
+     * @return 返回 {@link ExcelWriterBuilder}
+     */
+    public ExcelWriterBuilder sheetNameStrategy(SheetNameStrategy sheetNameStrategy) {
+        this.strategy = sheetNameStrategy;
+        return this;
+    }
+
+    /**
+     * 构建{@link CsvWriter}实例, 用于输出 UTF-8 编码的 CSV 文件
+     *
+     * @return 返回 {@link CsvWriter}
+     */
+    public CsvWriter buildCsv() {
+        return buildCsv(',', Charset.forName("UTF-8"));
+    }
+
+    /**
+     * 构建{@link CsvWriter}实例, 用于输出 CSV/TSV 文件。样式配置是可选的, 只使用其中主体行的值映射
+     *
+     * @param delimiter 分隔符, CSV 为 ',', TSV 为 '\t'
+     * @param charset   字符编码
+     * @return 返回 {@link CsvWriter}
+     */
+    public CsvWriter buildCsv(char delimiter, Charset charset) {
+        CellMapper<?> mapper = getCellMapper();
+        Map<Object, Object> mapping = null;
+        if (config != null) {
+            mapping = config.getBodyStyle().getMapping();
+        } else if (configSheet != null) {
+            mapping = configSheet.config.getBodyStyle().getMapping();
+        }
+        return new CsvWriter(mapper, delimiter, charset, mapping, paging == null ? new Paging() : paging,
+                pagingQuery, metrics, progress);
+    }
+
     /**
      * 构建{@link ExcelWriter}实例, 用于输出EXCEL文件
      *
      * @return 返回 {@link ExcelWriter}
      */
     public ExcelWriter build() {
+        if (configSheet == null && template != null) {
+            builtin();
+        }
         if (configSheet == null) {
             throw new WriteExcelException("Configurable can not be null");
         }
+        CellMapper<?> mapper = getCellMapper();
+        ExcelWriter writer = new ExcelWriter();
+        writer.setMetrics(metrics);
+        writer.setCompression(compressionLevel, compressionThreads);
+        writer.setMaxRowsPerSheet(maxRows);
+        writer.setAutoWidth(autoWidthMax);
+        writer.setWorkDirectory(workDirectory);
+        if (progress != null) {
+            writer.setProgress(progress);
+        }
+        try {
+            if (template != null) {
+                writer.setTemplate(template, templateSheet, templateStartRow);
+            }
+            if (config != null) {
+                return writer.prepare(configSheet.buildWorkbookSheet(config), mapper, paging, pagingQuery, strategy);
+            }
+            return writer.prepare(configSheet.buildWorkbookSheet(), mapper, paging, pagingQuery, strategy);
+        } catch (RuntimeException e) {
+            // 关闭已加载的模板、已创建的工作薄和导出日志
+            writer.discard();
+            throw e;
+        }
+    }
+
+    private CellMapper<?> getCellMapper() {
+        if (schema != null) {
+            return schema;
+        }
         if (pojoClass == null) {
             throw new WriteExcelException("payload can not be null");
         }
-        if (config != null) {
-            return new ExcelWriter().prepare(configSheet.buildWorkbookSheet(config), pojoClass, paging, pagingQuery, strategy);
-        }
-        return new ExcelWriter().prepare(configSheet.buildWorkbookSheet(), pojoClass, paging, pagingQuery, strategy);
+        return AnnotationHandler.getCellMapper(pojoClass);
     }
 
     public static class BodyRowStyleBuilder extends BasicRowStyleBuilder<BodyRowStyleBuilder> {
@@ -180,6 +460,57 @@ public final class ExcelWriterBuilder {
 
     }
 
+    public static class FooterRowStyleBuilder extends BasicRowStyleBuilder<FooterRowStyleBuilder> {
+
+        private StyleConfiguration.RowStyleConfiguration footerStyle;
+
+        protected FooterRowStyleBuilder(ExcelWriterBuilder builder) {
+            super(builder);
+            footerStyle = builder.config.getFooterStyle();
+            if (footerStyle == null) {
+                footerStyle = new StyleConfiguration.RowStyleConfiguration();
+                builder.config.setFooterStyle(footerStyle);
+            }
+            if (footerStyle.getAggregates() == null) {
+                footerStyle.setAggregates(new LinkedHashMap<>());
+            }
+            init(this, footerStyle);
+        }
+
+        /**
+         * 脚部行的标签文字, 输出在第一个没有聚合的列, 如"合计"
+         *
+         * @param label 标签文字
+         * @return 返回当前引用
+         */
+        public FooterRowStyleBuilder label(String label) {
+            footerStyle.setLabel(label);
+            return this;
+        }
+
+        /**
+         * 列的聚合方式, 覆盖{@link com.github.fanlychie.excelutils.annotation.Cell#footer()}
+         *
+         * @param index     单元格索引
+         * @param aggregate 聚合方式
+         * @return 返回当前引用
+         */
+        public FooterRowStyleBuilder aggregate(int index, Aggregate aggregate) {
+            footerStyle.getAggregates().put(index, aggregate.name());
+            return this;
+        }
+
+        /**
+         * 完成配置, 返回上层
+         *
+         * @return 返回 {@link ExcelWriterBuilder}
+         */
+        public ExcelWriterBuilder complete() {
+            return builder;
+        }
+
+    }
+
     protected static class BasicRowStyleBuilder<T> {
 
         private T reference;
@@ -369,6 +700,7 @@ public final class ExcelWriterBuilder {
          * @return 返回当前引用
          */
         public PagingBuilder maxRowsPerSheet(int max) {
+            builder.maxRowsPerSheet(max);
             builder.paging.max = max;
             return this;
         }
@@ -384,6 +716,30 @@ public final class ExcelWriterBuilder {
             return this;
         }
 
+        /**
+         * 可恢复的分页导出
+         *
+         * @param pathname 工作目录路径名称
+         * @return 返回当前引用
+         * @see #resumable(File)
+         */
+        public PagingBuilder resumable(String pathname) {
+            return resumable(new File(pathname));
+        }
+
+        /**
+         * 可恢复的分页导出, 每写完一页将该页的单元格值和分页游标持久化到工作目录。导出中断后使用同一个工作目录
+         * 和相同的分页参数重新导出, 已完成的页不再查询, 从下一页继续, 输出的文件与未中断时相同。
+         * 文件输出成功后删除工作目录中的日志。单元格的值必须可序列化
+         *
+         * @param workDirectory 工作目录, 每个导出任务使用单独的目录
+         * @return 返回当前引用
+         */
+        public PagingBuilder resumable(File workDirectory) {
+            builder.workDirectory = workDirectory;
+            return this;
+        }
+
         /**
          * 完成配置, 返回上层
          *
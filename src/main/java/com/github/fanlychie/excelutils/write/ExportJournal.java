@@ -0,0 +1,345 @@
+package com.github.fanlychie.excelutils.write;
+
+import com.github.fanlychie.excelutils.exception.ExcelCastException;
+import com.github.fanlychie.excelutils.exception.WriteExcelException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * 分页导出日志, 将已写出的每一页的单元格值和分页游标持久化到工作目录。导出中断(如进程重启)后,
+ * 使用同一个工作目录重新导出时, 已完成的页从日志中回放, 从下一页开始继续查询, 输出的文件与未中断时相同
+ * <p>
+ * 工作目录中包含两个文件: pages.dat 按页追加的单元格值(每页为长度前缀的数据块, 每个值带有类型标记),
+ * checkpoint.properties 已提交的页码和 pages.dat 的有效长度, 长度之后的数据(未提交的页)在打开时被截断
+ *
+ * @author fanlychie
+ */
+class ExportJournal {
+
+    private static final String PAGES_FILE = "pages.dat";
+
+    private static final String CHECKPOINT_FILE = "checkpoint.properties";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * 单元格值的类型标记
+     */
+    private static final byte NULL = 0;
+
+    private static final byte STRING = 1;
+
+    private static final byte INTEGER = 2;
+
+    private static final byte LONG = 3;
+
+    private static final byte DOUBLE = 4;
+
+    private static final byte FLOAT = 5;
+
+    private static final byte SHORT = 6;
+
+    private static final byte BYTE = 7;
+
+    private static final byte BIG_DECIMAL = 8;
+
+    private static final byte BIG_INTEGER = 9;
+
+    private static final byte BOOLEAN = 10;
+
+    private static final byte DATE = 11;
+
+    /**
+     * 工作目录
+     */
+    private final File directory;
+
+    /**
+     * 导出的标识(数据类型和分页参数), 与日志中记录的不一致时不能恢复
+     */
+    private final String fingerprint;
+
+    private final RandomAccessFile pages;
+
+    /**
+     * pages.dat 中已提交的长度
+     */
+    private long length;
+
+    /**
+     * 下一个查询的页码
+     */
+    private int page;
+
+    /**
+     * 分页查询是否已结束
+     */
+    private boolean complete;
+
+    /**
+     * @param directory   工作目录, 不存在时创建
+     * @param fingerprint 导出的标识
+     */
+    ExportJournal(File directory, String fingerprint) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new WriteExcelException("can not create work directory: " + directory);
+        }
+        this.directory = directory;
+        this.fingerprint = fingerprint;
+        File checkpoint = new File(directory, CHECKPOINT_FILE);
+        try {
+            if (checkpoint.isFile()) {
+                Properties props = new Properties();
+                try (InputStream in = new FileInputStream(checkpoint)) {
+                    props.load(in);
+                }
+                if (!fingerprint.equals(props.getProperty("fingerprint"))) {
+                    throw new WriteExcelException("work directory belongs to another export: " + directory);
+                }
+                this.length = Long.parseLong(props.getProperty("length"));
+                this.page = Integer.parseInt(props.getProperty("page"));
+                this.complete = Boolean.parseBoolean(props.getProperty("complete"));
+            }
+            this.pages = new RandomAccessFile(new File(directory, PAGES_FILE), "rw");
+            // 丢弃最后一次提交之后写入的数据
+            pages.setLength(length);
+        } catch (IOException e) {
+            throw new ExcelCastException(e);
+        }
+    }
+
+    /**
+     * 读取下一个已提交的页, 用于回放
+     *
+     * @return 返回每行的单元格值, 已提交的页都已读取时返回 null
+     */
+    List<Object[]> replay() {
+        try {
+            if (pages.getFilePointer() >= length) {
+                return null;
+            }
+            byte[] block = new byte[pages.readInt()];
+            pages.readFully(block);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(block));
+            int size = in.readInt();
+            List<Object[]> rows = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                Object[] row = new Object[in.readInt()];
+                for (int j = 0; j < row.length; j++) {
+                    row[j] = readValue(in);
+                }
+                rows.add(row);
+            }
+            return rows;
+        } catch (IOException e) {
+            throw new ExcelCastException(e);
+        }
+    }
+
+    /**
+     * 编码一页的单元格值, 在写出该页之前调用, 写出成功后再{@link #commit(byte[], int, boolean) 提交}
+     *
+     * @param rows 每行的单元格值, 值只能是 null、String、Boolean、Date、基本数值类型的包装类、BigDecimal 或 BigInteger
+     * @return 返回带长度前缀的数据块
+     * @throws WriteExcelException 单元格值的类型不支持
+     */
+    byte[] encode(List<Object[]> rows) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(rows.size() * 64 + 16);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            // 预留长度前缀
+            out.writeInt(0);
+            out.writeInt(rows.size());
+            for (Object[] row : rows) {
+                out.writeInt(row.length);
+                for (Object value : row) {
+                    writeValue(out, value);
+                }
+            }
+        } catch (IOException e) {
+            throw new ExcelCastException(e);
+        }
+        byte[] block = bytes.toByteArray();
+        int size = block.length - 4;
+        block[0] = (byte) (size >>> 24);
+        block[1] = (byte) (size >>> 16);
+        block[2] = (byte) (size >>> 8);
+        block[3] = (byte) size;
+        return block;
+    }
+
+    /**
+     * 提交一页, 数据落盘后再更新检查点
+     *
+     * @param block    {@link #encode(List)}返回的数据块
+     * @param nextPage 下一个查询的页码
+     * @param complete 分页查询是否已结束
+     */
+    void commit(byte[] block, int nextPage, boolean complete) {
+        try {
+            pages.seek(length);
+            pages.write(block);
+            pages.getChannel().force(false);
+            length = pages.getFilePointer();
+        } catch (IOException e) {
+            throw new ExcelCastException(e);
+        }
+        this.page = nextPage;
+        this.complete = complete;
+        saveCheckpoint();
+    }
+
+    /**
+     * 分页查询已结束(查询结果为 null)
+     *
+     * @param nextPage 下一个查询的页码
+     */
+    void complete(int nextPage) {
+        this.page = nextPage;
+        this.complete = true;
+        saveCheckpoint();
+    }
+
+    boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * 导出的文件已输出, 删除日志文件
+     */
+    void delete() {
+        close();
+        new File(directory, PAGES_FILE).delete();
+        new File(directory, CHECKPOINT_FILE).delete();
+    }
+
+    void close() {
+        try {
+            pages.close();
+        } catch (IOException e) {
+        }
+    }
+
+    /**
+     * 写入类型标记和值, 回放时还原为相同的类型, 以便输出与未中断时相同
+     */
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+            return;
+        }
+        Class<?> type = value.getClass();
+        if (type == String.class) {
+            // writeUTF 限制 64KB
+            byte[] bytes = ((String) value).getBytes(UTF_8);
+            out.writeByte(STRING);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } else if (type == Integer.class) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (type == Long.class) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (type == Double.class) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (type == Float.class) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (type == Short.class) {
+            out.writeByte(SHORT);
+            out.writeShort((Short) value);
+        } else if (type == Byte.class) {
+            out.writeByte(BYTE);
+            out.writeByte((Byte) value);
+        } else if (type == BigDecimal.class || type == BigInteger.class) {
+            out.writeByte(type == BigDecimal.class ? BIG_DECIMAL : BIG_INTEGER);
+            out.writeUTF(value.toString());
+        } else if (type == Boolean.class) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (type == Date.class) {
+            // 子类(如 java.sql.Timestamp)的文本与 Date 不同, 不能还原
+            out.writeByte(DATE);
+            out.writeLong(((Date) value).getTime());
+        } else {
+            throw new WriteExcelException("unsupported cell value type for resumable export: " + type.getName());
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return new String(bytes, UTF_8);
+            case INTEGER:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case DOUBLE:
+                return in.readDouble();
+            case FLOAT:
+                return in.readFloat();
+            case SHORT:
+                return in.readShort();
+            case BYTE:
+                return in.readByte();
+            case BIG_DECIMAL:
+                return new BigDecimal(in.readUTF());
+            case BIG_INTEGER:
+                return new BigInteger(in.readUTF());
+            case BOOLEAN:
+                return in.readBoolean();
+            case DATE:
+                return new Date(in.readLong());
+            default:
+                throw new IOException("corrupted export journal, unknown value tag: " + tag);
+        }
+    }
+
+    /**
+     * 先写入临时文件再替换, 检查点文件在任何时刻都是完整的
+     */
+    private void saveCheckpoint() {
+        Properties props = new Properties();
+        props.setProperty("fingerprint", fingerprint);
+        props.setProperty("length", String.valueOf(length));
+        props.setProperty("page", String.valueOf(page));
+        props.setProperty("complete", String.valueOf(complete));
+        File temp = new File(directory, CHECKPOINT_FILE + ".tmp");
+        try {
+            try (FileOutputStream out = new FileOutputStream(temp)) {
+                props.store(out, null);
+                out.getFD().sync();
+            }
+            Files.move(temp.toPath(), new File(directory, CHECKPOINT_FILE).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new ExcelCastException(e);
+        }
+    }
+
+}
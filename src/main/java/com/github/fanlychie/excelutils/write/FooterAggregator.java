@@ -0,0 +1,224 @@
+package com.github.fanlychie.excelutils.write;
+
+import com.github.fanlychie.excelutils.spec.Aggregate;
+
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * 脚部行聚合器, 在写出数据行时逐行累计每列的聚合值, 每个单元格的开销为常数, 不需要保留数据
+ *
+ * @author fanlychie
+ */
+class FooterAggregator {
+
+    /**
+     * 每列的聚合方式, 与单元格注解字段列表的顺序一致
+     */
+    private final Aggregate[] aggregates;
+
+    /**
+     * 非空值的个数
+     */
+    private final long[] counts;
+
+    /**
+     * 数值(或日期)的个数
+     */
+    private final long[] numbers;
+
+    private final double[] sums;
+
+    private final double[] mins;
+
+    private final double[] maxs;
+
+    /**
+     * 列的值是否为日期, 日期按毫秒数比较
+     */
+    private final boolean[] dates;
+
+    private final HyperLogLog[] distincts;
+
+    /**
+     * @param aggregates 每列的聚合方式
+     */
+    FooterAggregator(Aggregate[] aggregates) {
+        int size = aggregates.length;
+        this.aggregates = aggregates;
+        this.counts = new long[size];
+        this.numbers = new long[size];
+        this.sums = new double[size];
+        this.mins = new double[size];
+        this.maxs = new double[size];
+        this.dates = new boolean[size];
+        this.distincts = new HyperLogLog[size];
+        for (int i = 0; i < size; i++) {
+            if (aggregates[i] == Aggregate.DISTINCT) {
+                distincts[i] = new HyperLogLog();
+            }
+        }
+        reset();
+    }
+
+    /**
+     * 累计一个单元格的值
+     *
+     * @param column 列在单元格注解字段列表中的位置
+     * @param value  单元格的值
+     */
+    void add(int column, Object value) {
+        if (value == null || aggregates[column] == Aggregate.NONE) {
+            return;
+        }
+        counts[column]++;
+        if (distincts[column] != null) {
+            distincts[column].add(value);
+            return;
+        }
+        double number;
+        if (value instanceof Number) {
+            number = ((Number) value).doubleValue();
+        } else if (value instanceof Date) {
+            number = ((Date) value).getTime();
+            dates[column] = true;
+        } else {
+            return;
+        }
+        numbers[column]++;
+        sums[column] += number;
+        if (number < mins[column]) {
+            mins[column] = number;
+        }
+        if (number > maxs[column]) {
+            maxs[column] = number;
+        }
+    }
+
+    /**
+     * 获取列的聚合值
+     *
+     * @param column 列在单元格注解字段列表中的位置
+     * @return 返回数值或日期, 没有可聚合的值时返回 null
+     */
+    Object getResult(int column) {
+        switch (aggregates[column]) {
+            case COUNT:
+                return counts[column];
+            case DISTINCT:
+                return distincts[column].estimate();
+            case SUM:
+                return sums[column];
+            case AVERAGE:
+                return numbers[column] == 0 ? null : sums[column] / numbers[column];
+            case MIN:
+                return numbers[column] == 0 ? null : toResult(column, mins[column]);
+            case MAX:
+                return numbers[column] == 0 ? null : toResult(column, maxs[column]);
+            default:
+                return null;
+        }
+    }
+
+    Aggregate getAggregate(int column) {
+        return aggregates[column];
+    }
+
+    /**
+     * 清空已累计的值, 用于下一个工作表
+     */
+    void reset() {
+        Arrays.fill(counts, 0);
+        Arrays.fill(numbers, 0);
+        Arrays.fill(sums, 0);
+        Arrays.fill(mins, Double.POSITIVE_INFINITY);
+        Arrays.fill(maxs, Double.NEGATIVE_INFINITY);
+        Arrays.fill(dates, false);
+        for (HyperLogLog distinct : distincts) {
+            if (distinct != null) {
+                distinct.clear();
+            }
+        }
+    }
+
+    private Object toResult(int column, double value) {
+        return dates[column] ? new Date((long) value) : value;
+    }
+
+    /**
+     * HyperLogLog 基数估算, 使用 4096 个寄存器(4KB), 标准误差约为 1.6%
+     */
+    static class HyperLogLog {
+
+        private static final int PRECISION = 12;
+
+        private static final int REGISTERS = 1 << PRECISION;
+
+        private final byte[] registers = new byte[REGISTERS];
+
+        void add(Object value) {
+            long hash = hash(value);
+            int index = (int) (hash >>> (64 - PRECISION));
+            // 剩余位的前导零个数 + 1, 末尾补 1 保证不超过 64 - PRECISION + 1
+            byte rank = (byte) (Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1);
+            if (rank > registers[index]) {
+                registers[index] = rank;
+            }
+        }
+
+        long estimate() {
+            double sum = 0;
+            int zeros = 0;
+            for (byte register : registers) {
+                sum += 1.0 / (1L << register);
+                if (register == 0) {
+                    zeros++;
+                }
+            }
+            double alpha = 0.7213 / (1 + 1.079 / REGISTERS);
+            double estimate = alpha * REGISTERS * REGISTERS / sum;
+            // 基数较小时使用线性计数
+            if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+                estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+            }
+            return Math.round(estimate);
+        }
+
+        void clear() {
+            Arrays.fill(registers, (byte) 0);
+        }
+
+        /**
+         * 64 位哈希, 整数和字符串不经过 32 位的 hashCode, 以减少碰撞
+         */
+        private static long hash(Object value) {
+            long h;
+            if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                h = ((Number) value).longValue();
+            } else if (value instanceof Double || value instanceof Float) {
+                h = Double.doubleToLongBits(((Number) value).doubleValue());
+            } else if (value instanceof Date) {
+                h = ((Date) value).getTime();
+            } else if (value instanceof CharSequence) {
+                // FNV-1a
+                CharSequence chars = (CharSequence) value;
+                h = 0xcbf29ce484222325L;
+                for (int i = 0; i < chars.length(); i++) {
+                    h ^= chars.charAt(i);
+                    h *= 0x100000001b3L;
+                }
+            } else {
+                h = value.hashCode();
+            }
+            // MurmurHash3 fmix64
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.github.fanlychie.excelutils.write;
+
+import org.reactivestreams.Publisher;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link ExcelWriter}的 Reactive Streams 适配器, 依赖可选的 reactive-streams 包,
+ * 不使用时{@link ExcelWriter}不需要该依赖
+ *
+ * @author fanlychie
+ */
+public class ReactiveExcelWriter {
+
+    private final ExcelWriter writer;
+
+    /**
+     * @param writer EXCEL写出器
+     */
+    public ReactiveExcelWriter(ExcelWriter writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * 写出到一个工作表(Sheet)
+     *
+     * @param source 数据的发布者
+     * @return 返回写出器, 用于输出文档
+     * @see #write(String, Publisher)
+     */
+    public ExcelWriter write(Publisher<?> source) {
+        return write(null, source);
+    }
+
+    /**
+     * 订阅发布者(Reactive Streams)并将数据写出到一个工作表(Sheet), 直至发布者完成。最多请求一页(默认100)的数据,
+     * 每写出一批再请求同样的数量, 发布者的速度由写出的速度决定, 不会在内存中堆积数据。
+     * 写出失败或被取消时取消订阅
+     *
+     * @param sheetName 工作表名称
+     * @param source    数据的发布者
+     * @return 返回写出器, 用于输出文档
+     */
+    public ExcelWriter write(String sheetName, Publisher<?> source) {
+        // 只创建工作表
+        writer.write(sheetName, Collections.emptyList());
+        BoundedSubscriber subscriber = new BoundedSubscriber(writer.getBatchSize());
+        source.subscribe(subscriber);
+        try {
+            List<Object> data;
+            while ((data = subscriber.next()) != null) {
+                writer.append(data);
+                subscriber.written(data.size());
+            }
+        } catch (RuntimeException e) {
+            subscriber.cancel();
+            writer.discard();
+            throw e;
+        }
+        return writer;
+    }
+
+}
@@ -0,0 +1,598 @@
+package com.github.fanlychie.excelutils.write;
+
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * 工作薄压缩包写出器。与 SXSSFWorkbook.write 一样先将 XSSF 模板写出到临时文件, 再把 SXSSF
+ * 临时文件中的行数据注入到模板的 sheetData 中, 但压缩由本类完成: 支持指定压缩级别(0 为仅存储),
+ * 以及将工作表数据切块后多线程压缩(pigz 方式), 输出仍是标准的 zip 文件
+ *
+ * @author fanlychie
+ */
+class WorkbookZipWriter {
+
+    /**
+     * 并行压缩时每块的大小
+     */
+    private static final int CHUNK_SIZE = 128 * 1024;
+
+    /**
+     * 预设字典的大小(deflate 窗口大小)
+     */
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final OutputStream out;
+
+    private final int level;
+
+    private final int threads;
+
+    private final int dosTime = dosTime(System.currentTimeMillis());
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    private final byte[] buffer = new byte[CHUNK_SIZE];
+
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * 已写出的字节数
+     */
+    private long written;
+
+    private ExecutorService executor;
+
+    /**
+     * 构建写出器
+     *
+     * @param out     输出流
+     * @param level   压缩级别, 0-9, 0 为仅存储, -1 为默认级别
+     * @param threads 压缩线程数, 大于1时并行压缩工作表数据
+     */
+    WorkbookZipWriter(OutputStream out, int level, int threads) {
+        this.out = out;
+        this.level = level;
+        this.threads = threads;
+    }
+
+    /**
+     * 写出工作薄, 调用前所有工作表的行必须已刷出到临时文件
+     *
+     * @param workbook SXSSF 工作薄
+     * @throws IOException 写出失败时抛出
+     */
+    void write(SXSSFWorkbook workbook) throws IOException {
+        XSSFWorkbook template = workbook.getXSSFWorkbook();
+        // 压缩包中的工作表部件名称 -> SXSSF 工作表
+        Map<String, SXSSFSheet> sheets = new HashMap<>();
+        for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
+            String partName = template.getSheetAt(i).getPackagePart().getPartName().getName();
+            sheets.put(partName.substring(1), workbook.getSheetAt(i));
+        }
+        File templateFile = File.createTempFile("excelutils-template", ".xlsx");
+        try {
+            OutputStream os = new FileOutputStream(templateFile);
+            try {
+                template.write(os);
+            } finally {
+                os.close();
+            }
+            if (threads > 1) {
+                executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "excel-deflate");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            }
+            ZipFile zipFile = new ZipFile(templateFile);
+            try {
+                Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+                while (zipEntries.hasMoreElements()) {
+                    ZipEntry zipEntry = zipEntries.nextElement();
+                    byte[] data = readFully(zipFile.getInputStream(zipEntry));
+                    SXSSFSheet sheet = sheets.get(zipEntry.getName());
+                    if (sheet == null) {
+                        writeEntry(zipEntry.getName(), new BytesSource(data), false);
+                    } else {
+                        writeEntry(zipEntry.getName(), new SheetSource(data, sheet), true);
+                    }
+                }
+            } finally {
+                zipFile.close();
+            }
+            finish();
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+            templateFile.delete();
+        }
+    }
+
+    /**
+     * 写出一个压缩包条目
+     *
+     * @param name     条目名称
+     * @param source   条目内容
+     * @param parallel 是否允许并行压缩
+     */
+    private void writeEntry(String name, EntrySource source, boolean parallel) throws IOException {
+        Entry entry = new Entry(name, written, level == 0 ? ZipEntry.STORED : ZipEntry.DEFLATED);
+        if (entry.method == ZipEntry.STORED) {
+            // 仅存储时本地文件头中需要 CRC 和大小, 先读一遍内容。SXSSF 临时文件中的行只能读取一次,
+            // 工作表内容在读取时转存到临时文件, 写出时从临时文件读取
+            File spoolFile = source instanceof BytesSource ? null : File.createTempFile("excelutils-entry", ".xml");
+            try {
+                crc.reset();
+                InputStream in = source.open();
+                try {
+                    OutputStream spool = spoolFile == null ? null : new FileOutputStream(spoolFile);
+                    try {
+                        int n;
+                        while ((n = in.read(buffer)) != -1) {
+                            crc.update(buffer, 0, n);
+                            entry.size += n;
+                            if (spool != null) {
+                                spool.write(buffer, 0, n);
+                            }
+                        }
+                    } finally {
+                        if (spool != null) {
+                            spool.close();
+                        }
+                    }
+                } finally {
+                    in.close();
+                }
+                entry.crc = crc.getValue();
+                entry.compressedSize = entry.size;
+                writeLocalHeader(entry);
+                in = spoolFile == null ? source.open() : new FileInputStream(spoolFile);
+                try {
+                    int n;
+                    while ((n = in.read(buffer)) != -1) {
+                        writeBytes(buffer, 0, n);
+                    }
+                } finally {
+                    in.close();
+                }
+            } finally {
+                if (spoolFile != null) {
+                    spoolFile.delete();
+                }
+            }
+        } else {
+            writeLocalHeader(entry);
+            long begin = written;
+            InputStream in = source.open();
+            try {
+                if (parallel && executor != null) {
+                    deflateParallel(in, entry);
+                } else {
+                    deflate(in, entry);
+                }
+            } finally {
+                in.close();
+            }
+            entry.compressedSize = written - begin;
+            writeDataDescriptor(entry);
+        }
+        entries.add(entry);
+    }
+
+    /**
+     * 单线程压缩
+     */
+    private void deflate(InputStream in, Entry entry) throws IOException {
+        Deflater deflater = new Deflater(level, true);
+        byte[] output = new byte[CHUNK_SIZE];
+        crc.reset();
+        try {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, n);
+                entry.size += n;
+                deflater.setInput(buffer, 0, n);
+                while (!deflater.needsInput()) {
+                    writeBytes(output, 0, deflater.deflate(output));
+                }
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                writeBytes(output, 0, deflater.deflate(output));
+            }
+            entry.crc = crc.getValue();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 并行压缩: 按块切分, 每块以前一块末尾的 32KB 作为预设字典独立压缩并以 SYNC_FLUSH 结束,
+     * 最后一块以 FINISH 结束, 各块按顺序拼接即是一个完整的 deflate 流
+     */
+    private void deflateParallel(InputStream in, Entry entry) throws IOException {
+        Deque<Future<byte[]>> pending = new ArrayDeque<>();
+        crc.reset();
+        byte[] previous = null;
+        byte[] chunk = readChunk(in);
+        try {
+            while (true) {
+                byte[] next = chunk.length == CHUNK_SIZE ? readChunk(in) : new byte[0];
+                boolean last = next.length == 0;
+                crc.update(chunk, 0, chunk.length);
+                entry.size += chunk.length;
+                pending.add(executor.submit(new DeflateTask(chunk, previous, level, last)));
+                // 限制在途的块数, 控制内存占用
+                while (pending.size() > threads * 2 || (last && !pending.isEmpty())) {
+                    byte[] compressed = pending.poll().get();
+                    writeBytes(compressed, 0, compressed.length);
+                }
+                if (last) {
+                    break;
+                }
+                previous = chunk;
+                chunk = next;
+            }
+            entry.crc = crc.getValue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        } finally {
+            for (Future<byte[]> future : pending) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private void writeLocalHeader(Entry entry) throws IOException {
+        byte[] name = entry.name.getBytes(UTF_8);
+        boolean stored = entry.method == ZipEntry.STORED;
+        boolean zip64 = stored && entry.size >= ZIP64_MAGIC;
+        writeInt(0x04034b50L);
+        writeShort(zip64 ? 45 : 20);
+        // 0x0800 名称使用 UTF-8 编码, 0x0008 大小和 CRC 位于数据描述符中
+        writeShort(stored ? 0x0800 : 0x0808);
+        writeShort(entry.method);
+        writeInt(dosTime);
+        if (stored) {
+            writeInt(entry.crc);
+            writeInt(zip64 ? ZIP64_MAGIC : entry.compressedSize);
+            writeInt(zip64 ? ZIP64_MAGIC : entry.size);
+        } else {
+            writeInt(0);
+            writeInt(0);
+            writeInt(0);
+        }
+        writeShort(name.length);
+        writeShort(zip64 ? 20 : 0);
+        writeBytes(name, 0, name.length);
+        if (zip64) {
+            writeShort(0x0001);
+            writeShort(16);
+            writeLong(entry.size);
+            writeLong(entry.compressedSize);
+        }
+    }
+
+    private void writeDataDescriptor(Entry entry) throws IOException {
+        writeInt(0x08074b50L);
+        writeInt(entry.crc);
+        if (entry.size >= ZIP64_MAGIC || entry.compressedSize >= ZIP64_MAGIC) {
+            writeLong(entry.compressedSize);
+            writeLong(entry.size);
+        } else {
+            writeInt(entry.compressedSize);
+            writeInt(entry.size);
+        }
+    }
+
+    /**
+     * 写出中央目录
+     */
+    private void finish() throws IOException {
+        long offset = written;
+        for (Entry entry : entries) {
+            byte[] name = entry.name.getBytes(UTF_8);
+            boolean sizes64 = entry.size >= ZIP64_MAGIC || entry.compressedSize >= ZIP64_MAGIC;
+            boolean offset64 = entry.offset >= ZIP64_MAGIC;
+            int extra = (sizes64 ? 16 : 0) + (offset64 ? 8 : 0);
+            writeInt(0x02014b50L);
+            writeShort(extra > 0 ? 45 : 20);
+            writeShort(extra > 0 ? 45 : 20);
+            writeShort(entry.method == ZipEntry.STORED ? 0x0800 : 0x0808);
+            writeShort(entry.method);
+            writeInt(dosTime);
+            writeInt(entry.crc);
+            writeInt(sizes64 ? ZIP64_MAGIC : entry.compressedSize);
+            writeInt(sizes64 ? ZIP64_MAGIC : entry.size);
+            writeShort(name.length);
+            writeShort(extra > 0 ? extra + 4 : 0);
+            // 注释长度、磁盘号、内部属性
+            writeShort(0);
+            writeShort(0);
+            writeShort(0);
+            writeInt(0);
+            writeInt(offset64 ? ZIP64_MAGIC : entry.offset);
+            writeBytes(name, 0, name.length);
+            if (extra > 0) {
+                writeShort(0x0001);
+                writeShort(extra);
+                if (sizes64) {
+                    writeLong(entry.size);
+                    writeLong(entry.compressedSize);
+                }
+                if (offset64) {
+                    writeLong(entry.offset);
+                }
+            }
+        }
+        long size = written - offset;
+        int count = entries.size();
+        if (offset >= ZIP64_MAGIC || count >= 0xFFFF) {
+            long end64 = written;
+            // ZIP64 中央目录结束记录
+            writeInt(0x06064b50L);
+            writeLong(44);
+            writeShort(45);
+            writeShort(45);
+            writeInt(0);
+            writeInt(0);
+            writeLong(count);
+            writeLong(count);
+            writeLong(size);
+            writeLong(offset);
+            // ZIP64 中央目录结束定位器
+            writeInt(0x07064b50L);
+            writeInt(0);
+            writeLong(end64);
+            writeInt(1);
+        }
+        writeInt(0x06054b50L);
+        writeShort(0);
+        writeShort(0);
+        writeShort(Math.min(count, 0xFFFF));
+        writeShort(Math.min(count, 0xFFFF));
+        writeInt(Math.min(size, ZIP64_MAGIC));
+        writeInt(Math.min(offset, ZIP64_MAGIC));
+        writeShort(0);
+        out.flush();
+    }
+
+    private void writeShort(int v) throws IOException {
+        out.write(v & 0xFF);
+        out.write((v >>> 8) & 0xFF);
+        written += 2;
+    }
+
+    private void writeInt(long v) throws IOException {
+        writeShort((int) (v & 0xFFFF));
+        writeShort((int) ((v >>> 16) & 0xFFFF));
+    }
+
+    private void writeLong(long v) throws IOException {
+        writeInt(v & ZIP64_MAGIC);
+        writeInt(v >>> 32);
+    }
+
+    private void writeBytes(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        written += len;
+    }
+
+    private static byte[] readChunk(InputStream in) throws IOException {
+        byte[] chunk = new byte[CHUNK_SIZE];
+        int n = 0;
+        int count;
+        while (n < CHUNK_SIZE && (count = in.read(chunk, n, CHUNK_SIZE - n)) != -1) {
+            n += count;
+        }
+        if (n == CHUNK_SIZE) {
+            return chunk;
+        }
+        byte[] tail = new byte[n];
+        System.arraycopy(chunk, 0, tail, 0, n);
+        return tail;
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        try {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            byte[] b = new byte[8192];
+            int n;
+            while ((n = in.read(b)) != -1) {
+                bos.write(b, 0, n);
+            }
+            return bos.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    private static int dosTime(long millis) {
+        Calendar c = Calendar.getInstance();
+        c.setTimeInMillis(millis);
+        return (c.get(Calendar.YEAR) - 1980) << 25 | (c.get(Calendar.MONTH) + 1) << 21 |
+                c.get(Calendar.DAY_OF_MONTH) << 16 | c.get(Calendar.HOUR_OF_DAY) << 11 |
+                c.get(Calendar.MINUTE) << 5 | c.get(Calendar.SECOND) >> 1;
+    }
+
+    /**
+     * 压缩包条目
+     */
+    private static class Entry {
+
+        final String name;
+
+        final long offset;
+
+        final int method;
+
+        long crc;
+
+        long size;
+
+        long compressedSize;
+
+        Entry(String name, long offset, int method) {
+            this.name = name;
+            this.offset = offset;
+            this.method = method;
+        }
+
+    }
+
+    /**
+     * 条目内容, 每次调用返回一个新的输入流。{@link SheetSource}只能打开一次
+     */
+    private interface EntrySource {
+
+        InputStream open() throws IOException;
+
+    }
+
+    private static class BytesSource implements EntrySource {
+
+        private final byte[] data;
+
+        BytesSource(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public InputStream open() {
+            return new ByteArrayInputStream(data);
+        }
+
+    }
+
+    /**
+     * 工作表内容: 模板中 sheetData 之前的部分 + SXSSF 临时文件中的行 + 模板中 sheetData 之后的部分。
+     * getWorksheetXMLInputStream 会关闭临时文件的写出流, 不能再次调用
+     */
+    private static class SheetSource implements EntrySource {
+
+        private final byte[] head;
+
+        private final byte[] tail;
+
+        private final SXSSFSheet sheet;
+
+        SheetSource(byte[] template, SXSSFSheet sheet) {
+            this.sheet = sheet;
+            String xml = new String(template, UTF_8);
+            int begin = xml.indexOf("<sheetData");
+            int end = xml.indexOf('>', begin);
+            if (xml.charAt(end - 1) == '/') {
+                // <sheetData/>
+                this.head = (xml.substring(0, begin) + "<sheetData>").getBytes(UTF_8);
+                this.tail = ("</sheetData>" + xml.substring(end + 1)).getBytes(UTF_8);
+            } else {
+                // <sheetData>...</sheetData>, 保留模板中已有的行, 新的行追加在其后
+                int close = xml.indexOf("</sheetData>", end);
+                this.head = xml.substring(0, close).getBytes(UTF_8);
+                this.tail = xml.substring(close).getBytes(UTF_8);
+            }
+        }
+
+        @Override
+        public InputStream open() throws IOException {
+            return new SequenceInputStream(Collections.enumeration(Arrays.asList(
+                    new ByteArrayInputStream(head), sheet.getWorksheetXMLInputStream(), new ByteArrayInputStream(tail))));
+        }
+
+    }
+
+    /**
+     * 压缩一个数据块
+     */
+    private static class DeflateTask implements Callable<byte[]> {
+
+        private final byte[] chunk;
+
+        private final byte[] dictionary;
+
+        private final int level;
+
+        private final boolean last;
+
+        DeflateTask(byte[] chunk, byte[] dictionary, int level, boolean last) {
+            this.chunk = chunk;
+            this.dictionary = dictionary;
+            this.level = level;
+            this.last = last;
+        }
+
+        @Override
+        public byte[] call() {
+            Deflater deflater = new Deflater(level, true);
+            try {
+                if (dictionary != null) {
+                    deflater.setDictionary(dictionary, dictionary.length - DICTIONARY_SIZE, DICTIONARY_SIZE);
+                }
+                deflater.setInput(chunk);
+                ByteArrayOutputStream bos = new ByteArrayOutputStream(chunk.length / 4 + 64);
+                byte[] output = new byte[chunk.length / 4 + 64];
+                if (last) {
+                    deflater.finish();
+                    while (!deflater.finished()) {
+                        bos.write(output, 0, deflater.deflate(output));
+                    }
+                } else {
+                    int n;
+                    do {
+                        n = deflater.deflate(output, 0, output.length, Deflater.SYNC_FLUSH);
+                        bos.write(output, 0, n);
+                    } while (n == output.length);
+                }
+                return bos.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        }
+
+    }
+
+}
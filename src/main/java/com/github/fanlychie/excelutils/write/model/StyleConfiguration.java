@@ -27,6 +27,11 @@ public class StyleConfiguration {
      */
     private RowStyleConfiguration bodyStyle;
 
+    /**
+     * 脚部行配置
+     */
+    private RowStyleConfiguration footerStyle;
+
     @Data
     public static class GlobalStyleConfiguration {
         /**
@@ -89,6 +94,14 @@ public class StyleConfiguration {
          * 关键字映射
          */
         private Map<Object, Object> mapping;
+        /**
+         * 脚部行的标签文字, 输出在第一个没有聚合的列
+         */
+        private String label;
+        /**
+         * 脚部行的聚合方式, 键为单元格索引或字段名称, 值为{@link com.github.fanlychie.excelutils.spec.Aggregate}
+         */
+        private Map<Object, Object> aggregates;
     }
 
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.github.fanlychie.excelutils.write.model;
 
+import com.github.fanlychie.excelutils.spec.Aggregate;
 import lombok.Data;
 
 import java.util.Map;
@@ -42,4 +43,14 @@ public class WorkbookSheet {
      */
     private Map<Object, Object> mapping;
 
+    /**
+     * 脚部行的标签文字
+     */
+    private String footerLabel;
+
+    /**
+     * 脚部行的聚合方式, 键为单元格索引或字段名称, 覆盖{@link com.github.fanlychie.excelutils.annotation.Cell#footer()}
+     */
+    private Map<Object, Aggregate> aggregates;
+
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.github.fanlychie.excelutils.metrics.jfr;
+
+import com.github.fanlychie.excelutils.metrics.FlightEvent;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 输出工作薄的事件, 包含压缩和写出
+ *
+ * @author fanlychie
+ */
+@Name("com.github.fanlychie.excelutils.FileWritten")
+@Label("File Written")
+@Category("Excel Utils")
+class FileWrittenEvent extends Event implements FlightEvent {
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Override
+    public void finish(String name, long index, long count) {
+        end();
+        if (shouldCommit()) {
+            this.bytes = count;
+            commit();
+        }
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.github.fanlychie.excelutils.metrics.jfr;
+
+import com.github.fanlychie.excelutils.metrics.FlightEvent;
+import com.github.fanlychie.excelutils.metrics.FlightEventType;
+import com.github.fanlychie.excelutils.metrics.FlightEvents;
+import jdk.jfr.Event;
+
+/**
+ * 基于 JFR 的事件工厂, 由{@link FlightEvents}通过反射加载
+ *
+ * @author fanlychie
+ */
+public class JfrFlightEventFactory implements FlightEvents.Factory {
+
+    @Override
+    public FlightEvent begin(FlightEventType type) {
+        Event event;
+        switch (type) {
+            case SHEET_READ:
+                event = new SheetReadEvent();
+                break;
+            case PAGE_HANDLED:
+                event = new PageHandledEvent();
+                break;
+            case PAGE_QUERIED:
+                event = new PageQueriedEvent();
+                break;
+            case SHEET_CREATED:
+                event = new SheetCreatedEvent();
+                break;
+            case FILE_WRITTEN:
+                event = new FileWrittenEvent();
+                break;
+            default:
+                return null;
+        }
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return (FlightEvent) event;
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.github.fanlychie.excelutils.metrics.jfr;
+
+import com.github.fanlychie.excelutils.metrics.FlightEvent;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * PagingHandler 处理一页读取数据的事件
+ *
+ * @author fanlychie
+ */
+@Name("com.github.fanlychie.excelutils.PageHandled")
+@Label("Page Handled")
+@Category("Excel Utils")
+class PageHandledEvent extends Event implements FlightEvent {
+
+    @Label("Page")
+    long page;
+
+    @Label("Rows")
+    int rows;
+
+    @Override
+    public void finish(String name, long index, long count) {
+        end();
+        if (shouldCommit()) {
+            this.page = index;
+            this.rows = (int) count;
+            commit();
+        }
+    }
+
+}
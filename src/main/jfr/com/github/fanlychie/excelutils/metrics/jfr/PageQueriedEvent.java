@@ -0,0 +1,35 @@
+package com.github.fanlychie.excelutils.metrics.jfr;
+
+import com.github.fanlychie.excelutils.metrics.FlightEvent;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * PagingQuery 查询一页写出数据的事件
+ *
+ * @author fanlychie
+ */
+@Name("com.github.fanlychie.excelutils.PageQueried")
+@Label("Page Queried")
+@Category("Excel Utils")
+class PageQueriedEvent extends Event implements FlightEvent {
+
+    @Label("Page")
+    int page;
+
+    @Label("Rows")
+    int rows;
+
+    @Override
+    public void finish(String name, long index, long count) {
+        end();
+        if (shouldCommit()) {
+            this.page = (int) index;
+            this.rows = (int) count;
+            commit();
+        }
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.github.fanlychie.excelutils.metrics.jfr;
+
+import com.github.fanlychie.excelutils.metrics.FlightEvent;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 创建一个工作表(Sheet)的事件, 包含标题行和列样式的构建
+ *
+ * @author fanlychie
+ */
+@Name("com.github.fanlychie.excelutils.SheetCreated")
+@Label("Sheet Created")
+@Category("Excel Utils")
+class SheetCreatedEvent extends Event implements FlightEvent {
+
+    @Label("Sheet Name")
+    String sheetName;
+
+    @Label("Sheet Index")
+    int sheetIndex;
+
+    @Override
+    public void finish(String name, long index, long count) {
+        end();
+        if (shouldCommit()) {
+            this.sheetName = name;
+            this.sheetIndex = (int) index;
+            commit();
+        }
+    }
+
+}
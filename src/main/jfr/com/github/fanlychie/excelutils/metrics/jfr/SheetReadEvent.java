@@ -0,0 +1,39 @@
+package com.github.fanlychie.excelutils.metrics.jfr;
+
+import com.github.fanlychie.excelutils.metrics.FlightEvent;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 解析一个工作表(Sheet)的事件
+ *
+ * @author fanlychie
+ */
+@Name("com.github.fanlychie.excelutils.SheetRead")
+@Label("Sheet Read")
+@Category("Excel Utils")
+class SheetReadEvent extends Event implements FlightEvent {
+
+    @Label("Sheet Name")
+    String sheetName;
+
+    @Label("Sheet Index")
+    int sheetIndex;
+
+    @Label("Rows")
+    long rows;
+
+    @Override
+    public void finish(String name, long index, long count) {
+        end();
+        if (shouldCommit()) {
+            this.sheetName = name;
+            this.sheetIndex = (int) index;
+            this.rows = count;
+            commit();
+        }
+    }
+
+}
@@ -1,26 +1,103 @@
 package com.github.fanlychie.excelutils.test;
 
+import com.github.fanlychie.excelutils.annotation.AbstractCellMapper;
+import com.github.fanlychie.excelutils.annotation.AnnotationHandler;
 import com.github.fanlychie.excelutils.annotation.Cell;
+import com.github.fanlychie.excelutils.annotation.CellMapper;
+import com.github.fanlychie.excelutils.annotation.RowSchema;
+import com.github.fanlychie.excelutils.annotation.RowSchemaBuilder;
+import com.github.fanlychie.excelutils.exception.ExcelCancelledException;
+import com.github.fanlychie.excelutils.exception.ExcelCastException;
+import com.github.fanlychie.excelutils.exception.WriteExcelException;
+import com.github.fanlychie.excelutils.job.ExcelJobScheduler;
+import com.github.fanlychie.excelutils.job.ExcelJobSchedulerBuilder;
+import com.github.fanlychie.excelutils.job.ReadJob;
+import com.github.fanlychie.excelutils.job.WriteJob;
+import com.github.fanlychie.excelutils.metrics.HistogramMetricsListener;
+import com.github.fanlychie.excelutils.processor.CellMapperProcessor;
+import com.github.fanlychie.excelutils.progress.ExcelProgress;
+import com.github.fanlychie.excelutils.read.CheckpointListener;
+import com.github.fanlychie.excelutils.read.ColumnBatch;
+import com.github.fanlychie.excelutils.read.ColumnBatchHandler;
+import com.github.fanlychie.excelutils.read.ErrorReport;
+import com.github.fanlychie.excelutils.read.ExcelReader;
 import com.github.fanlychie.excelutils.read.ExcelReaderBuilder;
 import com.github.fanlychie.excelutils.read.PagingHandler;
+import com.github.fanlychie.excelutils.read.ReactiveExcelReader;
+import com.github.fanlychie.excelutils.read.ReadCheckpoint;
+import com.github.fanlychie.excelutils.read.RowCursor;
+import com.github.fanlychie.excelutils.read.SheetInfo;
+import com.github.fanlychie.excelutils.spec.Aggregate;
 import com.github.fanlychie.excelutils.spec.Align;
+import com.github.fanlychie.excelutils.write.Configurable;
+import com.github.fanlychie.excelutils.write.ExcelWriter;
 import com.github.fanlychie.excelutils.write.ExcelWriterBuilder;
 import com.github.fanlychie.excelutils.write.PagingQuery;
+import com.github.fanlychie.excelutils.write.ReactiveExcelWriter;
 import com.github.fanlychie.excelutils.write.SheetNameStrategy;
+import com.github.fanlychie.excelutils.write.model.WorkbookSheet;
 import lombok.Data;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.FixMethodOrder;
 import org.junit.Test;
 import org.junit.runners.MethodSorters;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
 
 import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 @FixMethodOrder(MethodSorters.NAME_ASCENDING)
 public class ExcelBuilderTest {
@@ -71,6 +148,72 @@ public class ExcelBuilderTest {
                     .toFile(pathname + filename);
     }
 
+    /**
+     * 在工作表末尾输出脚部行的聚合值
+     */
+    @Test
+    public void testFooter() throws IOException {
+        new ExcelWriterBuilder()
+                .payload(Customer.class)
+                .define()
+                    // 脚部行配置
+                    .footer()
+                        // 标签文字
+                        .label("合计")
+                        // 手机号码去重计数
+                        .aggregate(1, Aggregate.DISTINCT)
+                        // 平均年龄
+                        .aggregate(2, Aggregate.AVERAGE)
+                        .complete()
+                .build()
+                    .write(customers)
+                    .toFile(pathname + "customers-footer.xlsx");
+        try (InputStream in = new FileInputStream(pathname + "customers-footer.xlsx");
+             Workbook workbook = new XSSFWorkbook(in)) {
+            assertFooter(workbook.getSheetAt(0), customers);
+        }
+    }
+
+    /**
+     * 超出每个Sheet页的最大行数时, 每个工作表都有各自的脚部行
+     */
+    @Test
+    public void testFooterRollover() throws IOException {
+        int max = customers.size() / 2 + 1;
+        new ExcelWriterBuilder()
+                .payload(Customer.class)
+                .define()
+                    .footer()
+                        .label("合计")
+                        .aggregate(1, Aggregate.DISTINCT)
+                        .aggregate(2, Aggregate.AVERAGE)
+                        .complete()
+                .maxRowsPerSheet(max)
+                .build()
+                    .write(customers)
+                    .toFile(pathname + "customers-footer-rollover.xlsx");
+        try (InputStream in = new FileInputStream(pathname + "customers-footer-rollover.xlsx");
+             Workbook workbook = new XSSFWorkbook(in)) {
+            assertEquals(2, workbook.getNumberOfSheets());
+            assertFooter(workbook.getSheetAt(0), customers.subList(0, max));
+            assertFooter(workbook.getSheetAt(1), customers.subList(max, customers.size()));
+        }
+    }
+
+    /**
+     * 日期列不能求和, 构建时即拒绝
+     */
+    @Test(expected = WriteExcelException.class)
+    public void testFooterDateSum() {
+        new ExcelWriterBuilder()
+                .payload(Visit.class)
+                .define()
+                    .footer()
+                        .aggregate(1, Aggregate.SUM)
+                        .complete()
+                .build();
+    }
+
     /**
      * YAML配置文件样式, 将数据导出到文档
      */
@@ -90,6 +233,65 @@ public class ExcelBuilderTest {
                     .toFile(pathname + filename);
     }
 
+    /**
+     * 同一路径的配置文件只解析一次, 开启重新加载后修改过的配置文件被重新解析
+     */
+    @Test
+    public void testConfigureReload() throws Exception {
+        // 复制到测试类路径下, 以便修改
+        File file = new File(new File(ExcelBuilderTest.class.getResource("/").toURI()), "jexcel-reload.yml");
+        writeSource(file, styleConfig(18));
+        Configurable.clearCache();
+        try {
+            assertEquals(Integer.valueOf(18), new Configurable("jexcel-reload.yml").buildWorkbookSheet().getCellWidth());
+            writeSource(file, styleConfig(30));
+            file.setLastModified(file.lastModified() + 2000);
+            // 默认不重新加载, 复用已缓存的样式模板
+            assertEquals(Integer.valueOf(18), new Configurable("jexcel-reload.yml").buildWorkbookSheet().getCellWidth());
+            Configurable.setReloadOnChange(true);
+            assertEquals(Integer.valueOf(30), new Configurable("jexcel-reload.yml").buildWorkbookSheet().getCellWidth());
+            // 未再修改, 复用重新解析的样式模板
+            assertEquals(Integer.valueOf(30), new Configurable("jexcel-reload.yml").buildWorkbookSheet().getCellWidth());
+        } finally {
+            Configurable.setReloadOnChange(false);
+            Configurable.clearCache();
+            file.delete();
+        }
+    }
+
+    /**
+     * 编码自定义的样式只作用于本次导出, 不影响之后使用内置样式或同一配置文件的导出
+     */
+    @Test
+    public void testDefineIsolation() throws IOException {
+        new ExcelWriterBuilder()
+                .payload(Customer.class)
+                .define()
+                    .title()
+                        .fontName("Microsoft YaHei")
+                        .complete()
+                    .body()
+                        .background("LIGHT_TURQUOISE")
+                        .complete()
+                .build()
+                    .write(customers)
+                    .toFile(pathname + "customers-define.xlsx");
+        WorkbookSheet sheet = new Configurable("jexcel-default.yml").buildWorkbookSheet();
+        assertNull(sheet.getTitleStyle().getFontName());
+        assertNull(sheet.getBodyStyle().getBackgroundColor());
+        new ExcelWriterBuilder()
+                .payload(Customer.class)
+                .builtin()
+                .build()
+                    .write(customers)
+                    .toFile(pathname + "customers-builtin.xlsx");
+        try (InputStream in = new FileInputStream(pathname + "customers-builtin.xlsx");
+             Workbook workbook = new XSSFWorkbook(in)) {
+            CellStyle style = workbook.getSheetAt(0).getRow(1).getCell(0).getCellStyle();
+            assertNotEquals(IndexedColors.LIGHT_TURQUOISE.index, style.getFillForegroundColor());
+        }
+    }
+
     /**
      * 内置样式, 将数据导出到文档
      */
@@ -108,6 +310,46 @@ public class ExcelBuilderTest {
                     .toFile(pathname + filename);
     }
 
+    /**
+     * 根据写出的数据估算列宽, 中文按两个字符计算, 两侧各留一个字符, 不超过最大宽度
+     */
+    @Test
+    public void testAutoWidth() throws IOException {
+        RowSchema schema = new RowSchemaBuilder()
+                .column(0, "name", String.class)
+                    .name("姓名")
+                    .complete()
+                .column(1, "address", String.class)
+                    .name("地址")
+                    .complete()
+                .column(2, "remark", String.class)
+                    .name("备注")
+                    .complete()
+                .build();
+        List<Object[]> rows = new ArrayList<>();
+        for (Customer customer : customers) {
+            // 12 个中文, 30 个中文
+            rows.add(new Object[]{customer.getName(), "广东省广州市天河区天河路", "备注备注备注备注备注备注备注备注备注备注备注备注备注备注备注"});
+        }
+        new ExcelWriterBuilder()
+                .payload(schema)
+                .builtin()
+                // 自动列宽, 最大 40 个字符
+                .autoWidth(40)
+                .build()
+                    .write(rows)
+                    .toFile(pathname + "customers-autowidth.xlsx");
+        try (InputStream in = new FileInputStream(pathname + "customers-autowidth.xlsx");
+             Workbook workbook = new XSSFWorkbook(in)) {
+            Sheet sheet = workbook.getSheetAt(0);
+            // 内置样式的默认列宽为 18 个字符
+            int defaultWidth = 18 * 256 + 184;
+            assertEquals((12 * 2 + 2) * 256, sheet.getColumnWidth(1));
+            assertTrue(sheet.getColumnWidth(1) > defaultWidth);
+            assertEquals(40 * 256, sheet.getColumnWidth(2));
+        }
+    }
+
     /**
      * 内置样式, 将数据导出到文档
      * 使用分页查询, 每次查询一页数据, 然后写入EXCEL, 再查询一页, 然后追加到EXCEL, 以此循环, 直至分页数据全部处理完成
@@ -151,6 +393,208 @@ public class ExcelBuilderTest {
                     .toFile(pathname + filename);
     }
 
+    /**
+     * 分页查询失败时删除已写出行的 SXSSF 临时文件
+     */
+    @Test
+    public void testPagingWriteFailure() {
+        // SXSSF 临时文件所在的目录
+        File tempDirectory = new File(System.getProperty("java.io.tmpdir"), "poifiles");
+        List<String> before = tempFiles(tempDirectory);
+        try {
+            new ExcelWriterBuilder()
+                    .payload(Customer.class)
+                    .builtin()
+                    .pagingQuery(new PagingQuery() {
+                        @Override
+                        public List queryByPage(int page, int offset, int size) {
+                            if (page > 1) {
+                                throw new IllegalStateException("connection lost");
+                            }
+                            return selectByPage(offset, size);
+                        }
+                    })
+                        .pageSize(10)
+                        .complete()
+                    .build()
+                        .paging();
+            fail("paging query should fail");
+        } catch (ExcelCastException e) {
+            assertEquals("connection lost", e.getCause().getMessage());
+        }
+        List<String> after = tempFiles(tempDirectory);
+        after.removeAll(before);
+        assertEquals(Collections.emptyList(), after);
+    }
+
+    /**
+     * 非分页的写出和追加同样在超出每个Sheet页的最大行数时另起新的Sheet页
+     */
+    @Test
+    public void testWriteRollover() throws IOException {
+        int max = customers.size() / 2 + 1;
+        new ExcelWriterBuilder()
+                .payload(Customer.class)
+                .builtin()
+                // 每个Sheet页最大的行数, 默认为EXCEL的最大行数
+                .maxRowsPerSheet(max)
+                .sheetNameStrategy(new SheetNameStrategy() {
+                    @Override
+                    public String getSheetName(int sheetIndex) {
+                        return "客户表-" + sheetIndex;
+                    }
+                })
+                .build()
+                    .write(customers)
+                    .append(customers)
+                    .toFile(pathname + "customers-rollover.xlsx");
+        try (InputStream in = new FileInputStream(pathname + "customers-rollover.xlsx");
+             Workbook workbook = new XSSFWorkbook(in)) {
+            assertEquals((customers.size() * 2 + max - 1) / max, workbook.getNumberOfSheets());
+            assertEquals("客户表-2", workbook.getSheetAt(1).getSheetName());
+            // 标题行之后的 max 个数据行
+            assertEquals(max, workbook.getSheetAt(0).getLastRowNum());
+        }
+    }
+
+    /**
+     * 每个Sheet页的最大行数从数据的起始行开始计数, 不包括模板中已有的行
+     */
+    @Test
+    public void testWriteRolloverTemplate() throws IOException {
+        int max = customers.size() / 2 + 1;
+        new ExcelWriterBuilder()
+                .payload(Customer.class)
+                .builtin()
+                .build()
+                    .write(new ArrayList<Customer>())
+                    .toFile(pathname + "customers-rollover-template.xlsx");
+        new ExcelWriterBuilder()
+                .payload(Customer.class)
+                // 标题行之后空出两行
+                .template(pathname + "customers-rollover-template.xlsx", 3)
+                .maxRowsPerSheet(max)
+                .build()
+                    .write(customers)
+                    .toFile(pathname + "customers-rollover-filled.xlsx");
+        try (InputStream in = new FileInputStream(pathname + "customers-rollover-filled.xlsx");
+             Workbook workbook = new XSSFWorkbook(in)) {
+            assertEquals(2, workbook.getNumberOfSheets());
+            // 模板工作表写满 max 个数据行
+            assertEquals(3 + max - 1, workbook.getSheetAt(0).getLastRowNum());
+            // 新的工作表在标题行之后写入剩余的数据行
+            assertEquals(customers.size() - max, workbook.getSheetAt(1).getLastRowNum());
+        }
+    }
+
+    /**
+     * 可恢复的分页导出, 第一次导出在查询第3页时中断, 第二次导出从第3页继续
+     */
+    @Test
+    public void testPagingWriteResume() {
+        File workDirectory = new File(pathname, "export-work");
+        final List<Integer> queried = new ArrayList<>();
+        for (int attempt = 0; attempt < 2; attempt++) {
+            final boolean interrupted = attempt == 0;
+            ExcelWriter writer = new ExcelWriterBuilder()
+                    .payload(Customer.class)
+                    .builtin()
+                    .pagingQuery(new PagingQuery() {
+                        @Override
+                        public List queryByPage(int page, int offset, int size) {
+                            if (interrupted && page == 3) {
+                                throw new IllegalStateException("interrupted");
+                            }
+                            queried.add(page);
+                            return selectByPage(offset, size);
+                        }
+                    })
+                        .pageSize(200)
+                        .maxRowsPerSheet(500)
+                        // 工作目录, 中断后使用同一个目录恢复
+                        .resumable(workDirectory)
+                        .complete()
+                    .build();
+            try {
+                writer.paging().toFile(pathname + filename);
+            } catch (ExcelCastException e) {
+                assertTrue(interrupted);
+                assertTrue(new File(workDirectory, "checkpoint.properties").isFile());
+            }
+        }
+        // 第1、2页从导出日志中回放, 不再查询
+        assertEquals(Integer.valueOf(3), queried.get(2));
+        assertFalse(new File(workDirectory, "checkpoint.properties").exists());
+    }
+
+    /**
+     * 导出日志只记录字符串、数值、日期和布尔值, 其它类型的单元格值在写出前即被拒绝
+     */
+    @Test
+    public void testPagingWriteResumeUnsupportedValue() {
+        RowSchema schema = new RowSchemaBuilder()
+                .column(0, "unit", TimeUnit.class)
+                    .name("单位")
+                    .complete()
+                .build();
+        File workDirectory = new File(pathname, "export-unsupported");
+        try {
+            new ExcelWriterBuilder()
+                    .payload(schema)
+                    .builtin()
+                    .pagingQuery(new PagingQuery() {
+                        @Override
+                        public List queryByPage(int page, int offset, int size) {
+                            return Collections.singletonList(new Object[]{TimeUnit.SECONDS});
+                        }
+                    })
+                        .resumable(workDirectory)
+                        .complete()
+                    .build()
+                        .paging();
+            fail("enum value should be rejected");
+        } catch (ExcelCastException e) {
+            assertTrue(e.getCause() instanceof WriteExcelException);
+        } finally {
+            new File(workDirectory, "pages.dat").delete();
+            workDirectory.delete();
+        }
+    }
+
+    /**
+     * 工作目录属于另一个导出时构建失败, 已创建的工作薄被删除
+     */
+    @Test
+    public void testPagingWriteForeignWorkDirectory() throws IOException {
+        File workDirectory = new File(pathname, "export-foreign");
+        writeSource(new File(workDirectory, "checkpoint.properties"), "fingerprint=other\nlength=0\npage=1\n");
+        File tempDirectory = new File(System.getProperty("java.io.tmpdir"), "poifiles");
+        List<String> before = tempFiles(tempDirectory);
+        try {
+            new ExcelWriterBuilder()
+                    .payload(Customer.class)
+                    .builtin()
+                    .pagingQuery(new PagingQuery() {
+                        @Override
+                        public List queryByPage(int page, int offset, int size) {
+                            return selectByPage(offset, size);
+                        }
+                    })
+                        .resumable(workDirectory)
+                        .complete()
+                    .build();
+            fail("work directory should be rejected");
+        } catch (WriteExcelException e) {
+            assertTrue(e.getMessage().startsWith("work directory belongs to another export"));
+        } finally {
+            new File(workDirectory, "checkpoint.properties").delete();
+            workDirectory.delete();
+        }
+        List<String> after = tempFiles(tempDirectory);
+        after.removeAll(before);
+        assertEquals(Collections.emptyList(), after);
+    }
+
     /**
      * 读取EXCEL文件
      */
@@ -173,6 +617,32 @@ public class ExcelBuilderTest {
         }
     }
 
+    /**
+     * 读取EXCEL 97-2003(.xls)文件, 字符串存放在共享字符串表中, 年龄使用自定义的数值格式
+     */
+    @Test
+    public void testReadXls() throws IOException {
+        writeXls(pathname + "customers.xls");
+        List<Customer> list = new ExcelReaderBuilder()
+                                .payload(Customer.class)
+                                // 根据文件头自动识别 .xls 文件
+                                .stream(pathname + "customers.xls")
+                                .start(2)
+                                .build()
+                                    .read();
+        assertEquals(customers, list);
+        // 数值按单元格的格式输出
+        try (RowCursor cursor = new ExcelReaderBuilder()
+                .stream(pathname + "customers.xls")
+                .start(2)
+                .build()
+                    .cursor()) {
+            assertTrue(cursor.next());
+            assertEquals(customers.get(0).getName(), cursor.getString(0));
+            assertEquals(String.format("%03d", customers.get(0).getAge()), cursor.getString(2));
+        }
+    }
+
     /**
      * 读取EXCEL文件, 通过指定解析的Sheet索引值
      */
@@ -226,42 +696,1020 @@ public class ExcelBuilderTest {
                     .paging();
     }
 
-    @Data
-    public static class Customer {
+    /**
+     * 读取CSV文件, 与EXCEL共用@Cell注解的列定义
+     */
+    @Test
+    public void testReadCsv() {
+        List<Customer> list = new ExcelReaderBuilder()
+                                // 数据载体, POJO 类
+                                .payload(Customer.class)
+                                // CSV文件流
+                                .stream(pathname + "customers.csv")
+                                // 逗号分隔, UTF-8 编码
+                                .csv()
+                                // 从第二行开始解析(第一行是标题行, 跳过)
+                                .start(2)
+                                // 构建CSV读实例
+                                .build()
+                                    // 开始读取
+                                    .read();
+        assertEquals(customers, list);
+    }
 
-        @Cell(index = 0, name = "姓名", align = Align.CENTER)
-        private String name;
+    /**
+     * 异步分页读取, 解析和数据处理在不同的线程中进行
+     */
+    @Test
+    public void testReadCsvAsync() {
+        final List<Customer> list = new ArrayList<>();
+        new ExcelReaderBuilder()
+                .payload(Customer.class)
+                .stream(pathname + "customers.csv")
+                .csv()
+                .start(2)
+                .pageSize(10)
+                // 每一页都是新的集合, 可以直接持有
+                .asyncPaging()
+                .pagingHandler(new PagingHandler<Customer>() {
+                    @Override
+                    public void handle(List<Customer> items) {
+                        list.addAll(items);
+                    }
+                })
+                .build()
+                    .paging();
+        assertEquals(customers, list);
+    }
 
-        @Cell(index = 1, name = "手机", align = Align.CENTER)
-        private String mobile;
+    /**
+     * 异步分页处理最后一页时失败, 等待处理完成时原样抛出处理的异常
+     */
+    @Test(expected = ExcelCancelledException.class)
+    public void testReadCsvAsyncFailure() {
+        new ExcelReaderBuilder()
+                .payload(Customer.class)
+                .stream(pathname + "customers.csv")
+                .csv()
+                .start(2)
+                // 只有一页, 在解析完成后才分发
+                .pageSize(customers.size() + 1)
+                .asyncPaging()
+                .pagingHandler(new PagingHandler<Customer>() {
+                    @Override
+                    public void handle(List<Customer> items) {
+                        throw new ExcelCancelledException("cancelled");
+                    }
+                })
+                .build()
+                    .paging();
+    }
 
-        @Cell(index = 2, name = "年龄", align = Align.CENTER)
-        private int age;
+    /**
+     * 多线程并行转换和绑定, 结果保持行的顺序
+     */
+    @Test
+    public void testReadCsvParallel() {
+        List<Customer> list = new ExcelReaderBuilder()
+                                .payload(Customer.class)
+                                .stream(pathname + "customers.csv")
+                                .csv()
+                                .start(2)
+                                // 4 个线程转换和绑定
+                                .parallelBinding(4)
+                                .build()
+                                    .read();
+        assertEquals(customers, list);
+        // 日期由多个线程同时解析
+        List<Visit> visits = new ArrayList<>();
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(2017, Calendar.JANUARY, 1, 12, 0, 0);
+        for (int i = 0; i < 5000; i++) {
+            Visit visit = new Visit();
+            visit.setName(customers.get(i % customers.size()).getName());
+            visit.setTime(calendar.getTime());
+            visits.add(visit);
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+            calendar.set(Calendar.SECOND, i % 60);
+        }
+        new ExcelWriterBuilder()
+                .payload(Visit.class)
+                .buildCsv()
+                    .write(visits)
+                    .toFile(pathname + "visits.csv");
+        List<Visit> visitList = new ExcelReaderBuilder()
+                                .payload(Visit.class)
+                                .stream(pathname + "visits.csv")
+                                .csv()
+                                .start(2)
+                                .parallelBinding(4)
+                                .build()
+                                    .read();
+        assertEquals(visits, visitList);
+    }
 
+    /**
+     * 读取CSV文件的元数据, 不解析行数据
+     */
+    @Test
+    public void testReadCsvProbe() {
+        List<SheetInfo> sheets = new ExcelReaderBuilder()
+                                    .payload(Customer.class)
+                                    .stream(pathname + "customers.csv")
+                                    .csv()
+                                    .build()
+                                        // 工作表名称、尺寸和行数
+                                        .probe();
+        // 数据行 + 标题行
+        assertEquals(customers.size() + 1, sheets.get(0).getRows());
+        ExcelProgress progress = new ExcelProgress();
+        new ExcelReaderBuilder()
+                .payload(Customer.class)
+                .stream(pathname + "customers.csv")
+                .csv()
+                .start(2)
+                .progress(progress)
+                .build()
+                    .read();
+        // 跳过标题行
+        assertEquals(customers.size(), progress.getEstimatedTotal());
     }
 
     /**
-     * 测试分页查询
+     * 读取.xls文件的元数据, 行数来自工作表的尺寸记录
      */
     @Test
-    public void testQueryByPage() {
-        List<Customer> customers = selectByPage(0, 5);
-        for (Customer customer : customers) {
-            System.out.println(customer);
+    public void testReadXlsProbe() throws IOException {
+        writeWorkbook(new HSSFWorkbook(), pathname + "customers-offset.xls", 2);
+        assertProbe(pathname + "customers-offset.xls");
+    }
+
+    /**
+     * 读取.xlsx文件的元数据, 整个工作表都在开头部分中, 行数为精确值
+     */
+    @Test
+    public void testReadXlsxProbe() throws IOException {
+        writeWorkbook(new XSSFWorkbook(), pathname + "customers-offset.xlsx", 2);
+        assertProbe(pathname + "customers-offset.xlsx");
+    }
+
+    /**
+     * 按列读取CSV文件, 年龄存放在 long 数组中, 姓名按字典编码
+     */
+    @Test
+    public void testReadCsvColumns() {
+        ColumnBatch batch = new ExcelReaderBuilder()
+                .payload(Customer.class)
+                .stream(pathname + "customers.csv")
+                .csv()
+                .start(2)
+                .build()
+                    // 按列读取
+                    .readColumns();
+        assertEquals(customers.size(), batch.size());
+        long[] ages = batch.getColumn("age").getLongs();
+        ColumnBatch.Column names = batch.getColumn(0);
+        long sum = 0;
+        for (int i = 0; i < customers.size(); i++) {
+            assertEquals(customers.get(i).getAge(), ages[i]);
+            assertEquals(customers.get(i).getName(), names.getString(i));
+            sum += customers.get(i).getAge();
         }
-        assertEquals(5, customers.size());
+        // 按页读取并累计
+        final long[] pageSum = new long[2];
+        new ExcelReaderBuilder()
+                .payload(Customer.class)
+                .stream(pathname + "customers.csv")
+                .csv()
+                .start(2)
+                .pageSize(128)
+                .build()
+                    .pagingColumns(new ColumnBatchHandler() {
+                        @Override
+                        public void handle(ColumnBatch batch) {
+                            long[] ages = batch.getColumn(2).getLongs();
+                            for (int i = 0; i < batch.size(); i++) {
+                                pageSum[0] += ages[i];
+                            }
+                            pageSum[1] += batch.size();
+                        }
+                    });
+        assertEquals(sum, pageSum[0]);
+        assertEquals(customers.size(), pageSum[1]);
     }
 
     /**
-     * 模拟数据库的分页查询
-     *
-     * @param offset 起始索引
-     * @param size   每页的大小
+     * 按列读取时的校验模式, 标题行的年龄无法转换, 记录到错误报告后继续解析; 按不匹配的类型取值时报告列的类型
      */
-    private static List<Customer> selectByPage(int offset, int size) {
-        List<Customer> list = new ArrayList<>();
-        int current = 0;
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+    @Test
+    public void testReadCsvColumnsValidate() {
+        ErrorReport report = new ErrorReport(10, 0);
+        ColumnBatch batch = new ExcelReaderBuilder()
+                .payload(Customer.class)
+                .stream(pathname + "customers.csv")
+                .csv()
+                .start(1)
+                .validate(report)
+                .build()
+                    .readColumns();
+        assertEquals(customers.size(), batch.size());
+        assertEquals(1, report.getErrorCount());
+        assertEquals("C1", report.getErrors().get(0).getCellName());
+        assertEquals(customers.get(0).getAge(), batch.getColumn("age").getLong(0));
+        try {
+            batch.getColumn("name").getLong(0);
+            fail("name is a STRING column");
+        } catch (IllegalStateException e) {
+            assertEquals("column name is STRING, not LONG or DATE", e.getMessage());
+        }
+        try {
+            batch.getColumn("name").getDouble(0);
+            fail("name is a STRING column");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("STRING"));
+        }
+    }
+
+    /**
+     * 以游标的形式逐行读取CSV文件, 不需要POJO类型
+     */
+    @Test
+    public void testReadCsvCursor() {
+        int count = 0;
+        try (RowCursor cursor = new ExcelReaderBuilder()
+                .stream(pathname + "customers.csv")
+                .csv()
+                .start(2)
+                .build()
+                    // 游标
+                    .cursor()) {
+            while (cursor.next()) {
+                Customer customer = customers.get(count++);
+                assertEquals(count + 1, cursor.getRow());
+                assertEquals(customer.getName(), cursor.getString(0));
+                assertEquals(customer.getMobile(), cursor.getString(1));
+                assertEquals(customer.getAge(), cursor.getLong(2));
+            }
+        }
+        assertEquals(customers.size(), count);
+    }
+
+    /**
+     * 不定义POJO类, 以编程的方式定义行结构, 读取为 Object[] 行和 Map 行, 并写出 Map 行
+     */
+    @Test
+    public void testReadCsvSchema() {
+        RowSchemaBuilder builder = new RowSchemaBuilder()
+                .column(0, "name", String.class)
+                    .name("姓名")
+                    .complete()
+                .column(1, "mobile", String.class)
+                    .name("手机")
+                    .complete()
+                .column(2, "age", Integer.class)
+                    .name("年龄")
+                    .align(Align.CENTER)
+                    .complete();
+        List<Object[]> rows = new ExcelReaderBuilder()
+                // 行结构代替POJO类
+                .payload(builder.build())
+                .stream(pathname + "customers.csv")
+                .csv()
+                .start(2)
+                .build()
+                    .read();
+        assertEquals(customers.size(), rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(customers.get(i).getName(), rows.get(i)[0]);
+            assertEquals(customers.get(i).getMobile(), rows.get(i)[1]);
+            assertEquals(customers.get(i).getAge(), rows.get(i)[2]);
+        }
+        RowSchema schema = builder.mapRows().build();
+        List<Map<String, Object>> maps = new ExcelReaderBuilder()
+                .payload(schema)
+                .stream(pathname + "customers.csv")
+                .csv()
+                .start(2)
+                .build()
+                    .read();
+        assertEquals(customers.get(0).getName(), maps.get(0).get("name"));
+        assertEquals(customers.get(0).getAge(), maps.get(0).get("age"));
+        new ExcelWriterBuilder()
+                .payload(schema)
+                .buildCsv()
+                    .write(maps)
+                    .toFile(pathname + "customers-schema.csv");
+        List<Customer> list = new ExcelReaderBuilder()
+                .payload(Customer.class)
+                .stream(pathname + "customers-schema.csv")
+                .csv()
+                .start(2)
+                .build()
+                    .read();
+        assertEquals(customers.size(), list.size());
+        assertEquals(customers.get(0).getMobile(), list.get(0).getMobile());
+    }
+
+    /**
+     * 以行结构写出 .xlsx 文件, 行可以是 Object[], 也可以混用 Object[] 和 Map
+     */
+    @Test
+    public void testSchemaWrite() throws IOException {
+        RowSchema schema = new RowSchemaBuilder()
+                .column(0, "name", String.class)
+                    .name("姓名")
+                    .complete()
+                .column(1, "mobile", String.class)
+                    .name("手机")
+                    .complete()
+                .column(2, "age", Integer.class)
+                    .name("年龄")
+                    .complete()
+                .build();
+        List<Object[]> rows = new ArrayList<>();
+        List<Object> mixed = new ArrayList<>();
+        for (int i = 0; i < customers.size(); i++) {
+            Customer customer = customers.get(i);
+            Object[] row = {customer.getName(), customer.getMobile(), customer.getAge()};
+            rows.add(row);
+            if (i % 2 == 0) {
+                mixed.add(row);
+            } else {
+                Map<String, Object> map = new HashMap<>();
+                map.put("name", customer.getName());
+                map.put("mobile", customer.getMobile());
+                map.put("age", customer.getAge());
+                mixed.add(map);
+            }
+        }
+        new ExcelWriterBuilder()
+                .payload(schema)
+                .builtin()
+                .build()
+                    .write(rows)
+                    .toFile(pathname + "customers-schema.xlsx");
+        assertXlsxRows(pathname + "customers-schema.xlsx", 1);
+        new ExcelWriterBuilder()
+                .payload(schema)
+                .builtin()
+                .build()
+                    .write(mixed)
+                    .toFile(pathname + "customers-mixed.xlsx");
+        assertXlsxRows(pathname + "customers-mixed.xlsx", 1);
+    }
+
+    /**
+     * 以 Reactive Streams 发布者的形式读取CSV文件, 每次请求10行, 解析线程按请求的数量发出
+     */
+    @Test
+    public void testReadCsvPublisher() throws InterruptedException {
+        ExcelReader reader = new ExcelReaderBuilder()
+                .payload(Customer.class)
+                .stream(pathname + "customers.csv")
+                .csv()
+                .start(2)
+                .build();
+        // 订阅并请求数据后开始解析
+        Publisher<Customer> publisher = new ReactiveExcelReader(reader).publish();
+        final List<Customer> list = new ArrayList<>();
+        final long[] requested = new long[1];
+        final Throwable[] failure = new Throwable[1];
+        final CountDownLatch latch = new CountDownLatch(1);
+        publisher.subscribe(new Subscriber<Customer>() {
+            private Subscription subscription;
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                subscription = s;
+                requested[0] = 10;
+                s.request(10);
+            }
+
+            @Override
+            public void onNext(Customer customer) {
+                list.add(customer);
+                // 发出的数量不会超过请求的数量
+                if (list.size() > requested[0]) {
+                    failure[0] = new AssertionError("more elements than requested");
+                }
+                if (list.size() == requested[0]) {
+                    requested[0] += 10;
+                    subscription.request(10);
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                failure[0] = t;
+                latch.countDown();
+            }
+
+            @Override
+            public void onComplete() {
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        assertEquals(null, failure[0]);
+        assertEquals(customers, list);
+    }
+
+    /**
+     * 将CSV文件读取的发布者直接写出到EXCEL, 写出的速度决定读取的速度
+     */
+    @Test
+    public void testReadCsvPublisherWrite() throws IOException {
+        Publisher<Customer> publisher = new ReactiveExcelReader(new ExcelReaderBuilder()
+                .payload(Customer.class)
+                .stream(pathname + "customers.csv")
+                .csv()
+                .start(2)
+                .build()).publish();
+        ExcelWriter writer = new ExcelWriterBuilder()
+                .payload(Customer.class)
+                .builtin()
+                .build();
+        // 订阅发布者并写出
+        new ReactiveExcelWriter(writer)
+                .write(publisher)
+                .toFile(pathname + "customers-publisher.xlsx");
+        assertXlsxRows(pathname + "customers-publisher.xlsx", 1);
+    }
+
+    /**
+     * 写出发布者的数据时, 每一批都在写出之后才请求下一批
+     */
+    @Test
+    public void testWritePublisherDemand() throws IOException {
+        final HistogramMetricsListener metrics = new HistogramMetricsListener();
+        ExcelWriter writer = new ExcelWriterBuilder()
+                .payload(Customer.class)
+                .builtin()
+                .metrics(metrics)
+                .build();
+        new ReactiveExcelWriter(writer)
+                .write(new Publisher<Customer>() {
+                    @Override
+                    public void subscribe(final Subscriber<? super Customer> subscriber) {
+                        subscriber.onSubscribe(new Subscription() {
+                            private int emitted;
+
+                            @Override
+                            public void request(long n) {
+                                // 已发出的数据都已写出
+                                assertEquals(emitted, metrics.getRowsWritten());
+                                if (emitted == customers.size()) {
+                                    subscriber.onComplete();
+                                    return;
+                                }
+                                for (long i = 0; i < n && emitted < customers.size(); i++) {
+                                    subscriber.onNext(customers.get(emitted++));
+                                }
+                            }
+
+                            @Override
+                            public void cancel() {
+                            }
+                        });
+                    }
+                })
+                .toFile(pathname + "customers-demand.xlsx");
+        assertXlsxRows(pathname + "customers-demand.xlsx", 1);
+    }
+
+    /**
+     * 发布者发出的数据多于请求的数量时取消订阅并失败, 不会因完成标记丢失而一直等待
+     */
+    @Test
+    public void testWritePublisherOverflow() {
+        ExcelWriter writer = new ExcelWriterBuilder()
+                .payload(Customer.class)
+                .builtin()
+                .build();
+        final boolean[] cancelled = new boolean[1];
+        try {
+            new ReactiveExcelWriter(writer)
+                    .write(new Publisher<Customer>() {
+                        @Override
+                        public void subscribe(final Subscriber<? super Customer> subscriber) {
+                            subscriber.onSubscribe(new Subscription() {
+                                @Override
+                                public void request(long n) {
+                                    // 多发出一个, 随后完成
+                                    for (int i = 0; i <= n; i++) {
+                                        subscriber.onNext(customers.get(i));
+                                    }
+                                    subscriber.onComplete();
+                                }
+
+                                @Override
+                                public void cancel() {
+                                    cancelled[0] = true;
+                                }
+                            });
+                        }
+                    });
+            fail("overflow should fail");
+        } catch (ExcelCastException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertTrue(cancelled[0]);
+    }
+
+    /**
+     * 分页导入在第3页失败后, 从保存的检查点恢复导入
+     */
+    @Test
+    public void testReadCsvResume() {
+        final List<Customer> list = new ArrayList<>();
+        final ReadCheckpoint[] saved = new ReadCheckpoint[1];
+        try {
+            new ExcelReaderBuilder()
+                    .payload(Customer.class)
+                    .stream(pathname + "customers.csv")
+                    .csv()
+                    .start(2)
+                    .pageSize(10)
+                    .pagingHandler(new PagingHandler<Customer>() {
+                        @Override
+                        public void handle(List<Customer> items) {
+                            if (list.size() == 20) {
+                                throw new IllegalStateException("page 3 failed");
+                            }
+                            list.addAll(items);
+                        }
+                    })
+                    // 保存每一页处理完成后的检查点
+                    .checkpoint(new CheckpointListener() {
+                        @Override
+                        public void committed(ReadCheckpoint checkpoint) {
+                            saved[0] = checkpoint;
+                        }
+                    })
+                    .build()
+                        .paging();
+        } catch (RuntimeException e) {
+            // 第3页处理失败
+        }
+        assertEquals("1:21", saved[0].toString());
+        new ExcelReaderBuilder()
+                .payload(Customer.class)
+                .stream(pathname + "customers.csv")
+                .csv()
+                .start(2)
+                .pageSize(10)
+                .pagingHandler(new PagingHandler<Customer>() {
+                    @Override
+                    public void handle(List<Customer> items) {
+                        list.addAll(items);
+                    }
+                })
+                // 从检查点恢复, 跳过已处理的行
+                .resume(saved[0])
+                .build()
+                    .paging();
+        assertEquals(customers, list);
+    }
+
+    /**
+     * 校验模式, 标题行的年龄无法转换为数值, 记录到错误报告后继续解析
+     */
+    @Test
+    public void testReadCsvValidate() {
+        ErrorReport report = new ErrorReport(10, 0);
+        List<Customer> list = new ExcelReaderBuilder()
+                                .payload(Customer.class)
+                                .stream(pathname + "customers.csv")
+                                .csv()
+                                // 从标题行开始解析
+                                .start(1)
+                                // 记录错误并继续解析
+                                .validate(report)
+                                .build()
+                                    .read();
+        assertEquals(customers, list);
+        assertEquals(1, report.getErrorCount());
+        assertEquals("C1", report.getErrors().get(0).getCellName());
+    }
+
+    /**
+     * 校验模式与普通模式接受相同的数值和布尔值写法, 无法转换的行记录到错误报告
+     */
+    @Test
+    public void testReadCsvValidateValues() throws IOException {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(pathname + "measures.csv"), "UTF-8")) {
+            writer.write("数值,有效\nInfinity,1\n-Infinity,0\nNaN,是\n1.5e3,TRUE\nabc,N\n");
+        }
+        ErrorReport report = new ErrorReport(10, 0);
+        List<Measure> list = new ExcelReaderBuilder()
+                                .payload(Measure.class)
+                                .stream(pathname + "measures.csv")
+                                .csv()
+                                .start(2)
+                                .validate(report)
+                                .build()
+                                    .read();
+        assertEquals(4, list.size());
+        assertEquals(Double.POSITIVE_INFINITY, list.get(0).getValue(), 0);
+        assertTrue(list.get(0).isValid());
+        assertEquals(Double.NEGATIVE_INFINITY, list.get(1).getValue(), 0);
+        assertFalse(list.get(1).isValid());
+        assertTrue(Double.isNaN(list.get(2).getValue()));
+        assertTrue(list.get(2).isValid());
+        assertEquals(1500, list.get(3).getValue(), 0);
+        assertTrue(list.get(3).isValid());
+        assertEquals(1, report.getErrorCount());
+        assertEquals("A6", report.getErrors().get(0).getCellName());
+    }
+
+    /**
+     * 度量监听器为 null 时不记录度量, 读写照常进行
+     */
+    @Test
+    public void testMetricsNull() {
+        new ExcelWriterBuilder()
+                .payload(Customer.class)
+                .metrics(null)
+                .buildCsv()
+                    .write(customers)
+                    .toFile(pathname + "customers-metrics.csv");
+        List<Customer> list = new ExcelReaderBuilder()
+                .payload(Customer.class)
+                .stream(pathname + "customers-metrics.csv")
+                .csv()
+                .start(2)
+                .metrics(null)
+                .build()
+                    .read();
+        assertEquals(customers, list);
+    }
+
+    /**
+     * 统计写出的行数和单元格数
+     */
+    @Test
+    public void testMetrics() {
+        HistogramMetricsListener metrics = new HistogramMetricsListener();
+        new ExcelWriterBuilder()
+                .payload(Customer.class)
+                .builtin()
+                // 度量监听器
+                .metrics(metrics)
+                .build()
+                    .write(customers)
+                    .toFile(pathname + filename);
+        assertEquals(customers.size(), metrics.getRowsWritten());
+        assertEquals(customers.size() * 3, metrics.getCellsWritten());
+        assertEquals(1, metrics.getWorkbookWriteLatency().getCount());
+    }
+
+    /**
+     * 编译期生成单元格映射器并通过生成的映射器读写CSV文件, 重复的单元格索引在编译时报告错误
+     */
+    @Test
+    public void testCellMapperProcessor() throws Exception {
+        File root = new File(pathname, "processor");
+        File source = new File(root, "sample/Member.java");
+        // 年龄没有访问方法, 生成的映射器通过反射读写
+        writeSource(source, "package sample;\n"
+                + "import com.github.fanlychie.excelutils.annotation.Cell;\n"
+                + "public class Member {\n"
+                + "    @Cell(index = 0, name = \"name\")\n"
+                + "    private String name;\n"
+                + "    @Cell(index = 1, name = \"age\")\n"
+                + "    private int age;\n"
+                + "    public String getName() { return name; }\n"
+                + "    public void setName(String name) { this.name = name; }\n"
+                + "}\n");
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        assertTrue(diagnostics.getDiagnostics().toString(), compile(root, source, diagnostics));
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{root.toURI().toURL()}, getClass().getClassLoader())) {
+            assertGeneratedMapper(loader.loadClass("sample.Member"));
+        }
+        // 两个字段使用同一个索引
+        writeSource(source, "package sample;\n"
+                + "import com.github.fanlychie.excelutils.annotation.Cell;\n"
+                + "public class Member {\n"
+                + "    @Cell(index = 0, name = \"name\")\n"
+                + "    public String name;\n"
+                + "    @Cell(index = 0, name = \"age\")\n"
+                + "    public int age;\n"
+                + "}\n");
+        diagnostics = new DiagnosticCollector<>();
+        assertFalse(compile(root, source, diagnostics));
+        boolean reported = false;
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            String message = diagnostic.getMessage(Locale.ROOT);
+            // 错误报告在用户的源文件上, 而不是生成的源文件
+            assertFalse(message, message.contains("duplicate case label"));
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR && message.contains("duplicate @Cell index 0")) {
+                assertTrue(diagnostic.getSource().getName().endsWith("Member.java"));
+                reported = true;
+            }
+        }
+        assertTrue(diagnostics.getDiagnostics().toString(), reported);
+    }
+
+    /**
+     * 通过生成的映射器创建数据并写出到CSV文件, 再读取回来比较
+     */
+    private <T> void assertGeneratedMapper(Class<T> memberClass) {
+        CellMapper<T> mapper = AnnotationHandler.getCellMapper(memberClass);
+        assertEquals(memberClass.getName() + AnnotationHandler.MAPPER_SUFFIX, mapper.getClass().getName());
+        List<T> members = new ArrayList<>();
+        for (Customer customer : customers) {
+            T member = mapper.newInstance();
+            mapper.setValue(member, 0, customer.getName());
+            mapper.setValue(member, 1, customer.getAge());
+            members.add(member);
+        }
+        new ExcelWriterBuilder()
+                .payload(memberClass)
+                .buildCsv()
+                    .write(members)
+                    .toFile(pathname + "members.csv");
+        List<T> list = new ExcelReaderBuilder()
+                .payload(memberClass)
+                .stream(pathname + "members.csv")
+                .csv()
+                .start(2)
+                .build()
+                    .read();
+        assertEquals(customers.size(), list.size());
+        for (int i = 0; i < list.size(); i++) {
+            assertEquals(customers.get(i).getName(), mapper.getValue(list.get(i), 0));
+            assertEquals(customers.get(i).getAge(), mapper.getValue(list.get(i), 1));
+        }
+    }
+
+    /**
+     * 取消写出, 写出线程在处理下一行时中止
+     */
+    @Test(expected = ExcelCancelledException.class)
+    public void testCancel() {
+        ExcelProgress progress = new ExcelProgress();
+        progress.cancel();
+        new ExcelWriterBuilder()
+                .payload(Customer.class)
+                .builtin()
+                // 进度和取消句柄
+                .progress(progress)
+                .build()
+                    .write(customers);
+    }
+
+    /**
+     * 指定压缩级别输出文件, 0 为仅存储, 可以多线程并行压缩, 输出的文件都能被重新打开
+     */
+    @Test
+    public void testParallelCompression() throws IOException {
+        // 压缩级别, 压缩线程数
+        int[][] settings = {{0, 1}, {0, 4}, {1, 4}};
+        for (int[] setting : settings) {
+            String file = pathname + "customers-level" + setting[0] + "-" + setting[1] + ".xlsx";
+            new ExcelWriterBuilder()
+                    .payload(Customer.class)
+                    .builtin()
+                    // 压缩级别
+                    .compression(setting[0])
+                    // 并行压缩的线程数
+                    .parallelCompression(setting[1])
+                    .build()
+                        .write(customers)
+                        .toFile(file);
+            try (ZipFile zipFile = new ZipFile(file)) {
+                int method = setting[0] == 0 ? ZipEntry.STORED : ZipEntry.DEFLATED;
+                assertEquals(method, zipFile.getEntry("xl/worksheets/sheet1.xml").getMethod());
+            }
+            assertXlsxRows(file, 1);
+        }
+    }
+
+    /**
+     * 使用EXCEL模板, 保留模板的标题行和样式, 数据从第2行开始写入
+     */
+    @Test
+    public void testTemplate() throws IOException {
+        // 只包含标题行的模板
+        new ExcelWriterBuilder()
+                .payload(Customer.class)
+                .builtin()
+                .build()
+                    .write(new ArrayList<Customer>())
+                    .toFile(pathname + "customers-template.xlsx");
+        new ExcelWriterBuilder()
+                .payload(Customer.class)
+                // 模板文件及数据的起始行索引
+                .template(pathname + "customers-template.xlsx", 1)
+                .build()
+                    .write(customers)
+                    .toFile(pathname + "customers-filled.xlsx");
+        // 数据从起始行开始写入
+        assertXlsxRows(pathname + "customers-filled.xlsx", 1);
+        // 模板的标题行及其样式保持不变
+        try (InputStream tin = new FileInputStream(pathname + "customers-template.xlsx");
+             Workbook template = new XSSFWorkbook(tin);
+             InputStream fin = new FileInputStream(pathname + "customers-filled.xlsx");
+             Workbook filled = new XSSFWorkbook(fin)) {
+            Row expected = template.getSheetAt(0).getRow(0);
+            Row actual = filled.getSheetAt(0).getRow(0);
+            assertEquals(expected.getLastCellNum(), actual.getLastCellNum());
+            for (int i = 0; i < expected.getLastCellNum(); i++) {
+                CellStyle style = expected.getCell(i).getCellStyle();
+                assertEquals(expected.getCell(i).getStringCellValue(), actual.getCell(i).getStringCellValue());
+                assertEquals(style.getIndex(), actual.getCell(i).getCellStyle().getIndex());
+                assertEquals(style.getFillForegroundColor(), actual.getCell(i).getCellStyle().getFillForegroundColor());
+                assertEquals(style.getAlignment(), actual.getCell(i).getCellStyle().getAlignment());
+            }
+        }
+    }
+
+    /**
+     * 将数据导出到CSV文件, 与EXCEL共用@Cell注解的列定义
+     */
+    @Test
+    public void testCsvWrite() {
+        new ExcelWriterBuilder()
+                // 数据载体, POJO 类
+                .payload(Customer.class)
+                // 构建CSV写实例
+                .buildCsv()
+                    // 写出数据
+                    .write(customers)
+                    // 输出文档到文件, 输出后删除临时文件
+                    .toFile(pathname + "customers.csv");
+        List<Customer> list = new ExcelReaderBuilder()
+                .payload(Customer.class)
+                .stream(pathname + "customers.csv")
+                .csv()
+                .start(2)
+                .build()
+                    .read();
+        assertEquals(customers, list);
+    }
+
+    /**
+     * 以 GBK 编码写出CSV文件, 无法编码的字符和不完整的代理对与 String.getBytes 一样被替换
+     */
+    @Test
+    public void testCsvWriteCharset() throws IOException {
+        RowSchema schema = new RowSchemaBuilder()
+                .column(0, "name", String.class)
+                    .name("姓名")
+                    .complete()
+                .build();
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{"张三\uD83D\uDE00"});
+        rows.add(new Object[]{"李四\uD83D"});
+        new ExcelWriterBuilder()
+                .payload(schema)
+                .buildCsv(',', Charset.forName("GBK"))
+                    .write(rows)
+                    .toFile(pathname + "customers-gbk.csv");
+        byte[] expected = "姓名\r\n张三\uD83D\uDE00\r\n李四\uD83D\r\n".getBytes("GBK");
+        byte[] actual = Files.readAllBytes(new File(pathname + "customers-gbk.csv").toPath());
+        assertEquals(new String(expected, "GBK"), new String(actual, "GBK"));
+    }
+
+    /**
+     * 任务调度器, 配额只够一个任务时按提交的顺序逐个执行
+     */
+    @Test
+    public void testJobScheduler() throws Exception {
+        final ExcelJobScheduler scheduler = new ExcelJobSchedulerBuilder()
+                .threads(4)
+                // 每个任务至少占用 4MB 堆内存, 配额只够一个任务
+                .heapBudget(6L << 20)
+                .virtualThreads(false)
+                .build();
+        final List<Integer> started = Collections.synchronizedList(new ArrayList<Integer>());
+        final AtomicInteger maxRunning = new AtomicInteger();
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final int order = i;
+            ExcelReaderBuilder builder = new ExcelReaderBuilder()
+                    .payload(Customer.class)
+                    .stream(pathname + "customers.csv")
+                    .csv()
+                    .start(2);
+            futures.add(scheduler.submitRead(builder, 0, 3, new ReadJob<Integer>() {
+                @Override
+                public Integer execute(ExcelReader reader) {
+                    started.add(order);
+                    int running = scheduler.getRunningJobs();
+                    if (running > maxRunning.get()) {
+                        maxRunning.set(running);
+                    }
+                    return reader.<Customer>read().size();
+                }
+            }));
+        }
+        for (Future<Integer> future : futures) {
+            assertEquals(Integer.valueOf(customers.size()), future.get());
+        }
+        scheduler.shutdown();
+        assertTrue(scheduler.awaitTermination(10, TimeUnit.SECONDS));
+        // 按提交的顺序开始, 同一时刻只有一个任务占用配额
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), started);
+        assertEquals(1, maxRunning.get());
+        assertEquals(0, scheduler.getHeapInUse());
+    }
+
+    /**
+     * 调度的导出任务完成后删除 SXSSF 临时文件, 归还磁盘配额时不再占用磁盘
+     */
+    @Test
+    public void testJobSchedulerWrite() throws Exception {
+        File tempDirectory = new File(System.getProperty("java.io.tmpdir"), "poifiles");
+        List<String> before = tempFiles(tempDirectory);
+        ExcelJobScheduler scheduler = new ExcelJobSchedulerBuilder()
+                .threads(2)
+                .virtualThreads(false)
+                .build();
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final String file = pathname + "customers-job" + i + ".xlsx";
+            ExcelWriterBuilder builder = new ExcelWriterBuilder()
+                    .payload(Customer.class)
+                    .builtin();
+            futures.add(scheduler.submitWrite(builder, customers.size(), 3, new WriteJob<String>() {
+                @Override
+                public String execute(ExcelWriter writer) {
+                    writer.write(customers).toFile(file);
+                    return file;
+                }
+            }));
+        }
+        for (Future<String> future : futures) {
+            assertXlsxRows(future.get(), 1);
+        }
+        scheduler.shutdown();
+        assertTrue(scheduler.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(0, scheduler.getDiskInUse());
+        List<String> after = tempFiles(tempDirectory);
+        after.removeAll(before);
+        assertEquals(Collections.emptyList(), after);
+    }
+
+    @Data
+    public static class Customer {
+
+        @Cell(index = 0, name = "姓名", align = Align.CENTER)
+        private String name;
+
+        @Cell(index = 1, name = "手机", align = Align.CENTER)
+        private String mobile;
+
+        @Cell(index = 2, name = "年龄", align = Align.CENTER)
+        private int age;
+
+    }
+
+    @Data
+    public static class Measure {
+
+        @Cell(index = 0, name = "数值")
+        private double value;
+
+        @Cell(index = 1, name = "有效")
+        private boolean valid;
+
+    }
+
+    @Data
+    public static class Visit {
+
+        @Cell(index = 0, name = "姓名")
+        private String name;
+
+        @Cell(index = 1, name = "时间", format = "yyyy-MM-dd HH:mm:ss")
+        private Date time;
+
+    }
+
+    /**
+     * 测试分页查询
+     */
+    @Test
+    public void testQueryByPage() {
+        List<Customer> customers = selectByPage(0, 5);
+        for (Customer customer : customers) {
+            System.out.println(customer);
+        }
+        assertEquals(5, customers.size());
+    }
+
+    /**
+     * 模拟数据库的分页查询
+     *
+     * @param offset 起始索引
+     * @param size   每页的大小
+     */
+    private static List<Customer> selectByPage(int offset, int size) {
+        List<Customer> list = new ArrayList<>();
+        int current = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
                 ExcelBuilderTest.class.getResourceAsStream("/customers.txt"), "UTF-8"))) {
             String line;
             while ((line = reader.readLine()) != null) {
@@ -279,6 +1727,136 @@ public class ExcelBuilderTest {
         return list;
     }
 
+    /**
+     * 重新打开 .xlsx 文件, 校验第一个工作表中从指定行开始的数据行
+     *
+     * @param pathname 文件路径名称
+     * @param startRow 数据的起始行索引
+     */
+    private static void assertXlsxRows(String pathname, int startRow) throws IOException {
+        try (InputStream in = new FileInputStream(pathname); Workbook workbook = new XSSFWorkbook(in)) {
+            Sheet sheet = workbook.getSheetAt(0);
+            assertEquals(startRow + customers.size() - 1, sheet.getLastRowNum());
+            for (int i = 0; i < customers.size(); i++) {
+                Row row = sheet.getRow(startRow + i);
+                assertEquals(customers.get(i).getName(), row.getCell(0).getStringCellValue());
+                assertEquals(customers.get(i).getMobile(), row.getCell(1).getStringCellValue());
+                assertEquals(customers.get(i).getAge(), (int) row.getCell(2).getNumericCellValue());
+            }
+        }
+    }
+
+    /**
+     * 校验工作表的脚部行: 标签、手机号码去重计数(估算值, 误差不超过 2%)和平均年龄
+     *
+     * @param rows 工作表中的数据行
+     */
+    private static void assertFooter(Sheet sheet, List<Customer> rows) {
+        Row row = sheet.getRow(rows.size() + 1);
+        assertEquals(rows.size() + 1, sheet.getLastRowNum());
+        assertEquals("合计", row.getCell(0).getStringCellValue());
+        Set<String> mobiles = new HashSet<>();
+        double ages = 0;
+        for (Customer customer : rows) {
+            mobiles.add(customer.getMobile());
+            ages += customer.getAge();
+        }
+        assertEquals(mobiles.size(), row.getCell(1).getNumericCellValue(), mobiles.size() * 0.02);
+        assertEquals(ages / rows.size(), row.getCell(2).getNumericCellValue(), 1e-9);
+    }
+
+    private static List<String> tempFiles(File directory) {
+        String[] names = directory.list();
+        return names == null ? new ArrayList<String>() : new ArrayList<>(Arrays.asList(names));
+    }
+
+    private static void writeSource(File file, String source) throws IOException {
+        file.getParentFile().mkdirs();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8")) {
+            writer.write(source);
+        }
+    }
+
+    /**
+     * 最简的样式配置, 只设置单元格宽度
+     */
+    private static String styleConfig(int cellWidth) {
+        return "global:\n    cellWidth: " + cellWidth + "\ntitleStyle:\n    index: 0\nbodyStyle:\n    index: 1\n";
+    }
+
+    /**
+     * 启用{@link CellMapperProcessor}编译源文件, 输出到源文件的根目录
+     */
+    private static boolean compile(File root, File source, DiagnosticCollector<JavaFileObject> diagnostics)
+            throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        // 编译后的 excelutils 类所在的目录
+        String classpath = new File(AbstractCellMapper.class.getProtectionDomain().getCodeSource().getLocation()
+                .toURI()).getPath();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, Locale.ROOT,
+                Charset.forName("UTF-8"))) {
+            List<String> options = Arrays.asList("-classpath", classpath, "-d", root.getPath(),
+                    "-processor", CellMapperProcessor.class.getName());
+            return compiler.getTask(null, fileManager, diagnostics, options, null,
+                    fileManager.getJavaFileObjects(source)).call();
+        }
+    }
+
+    /**
+     * 使用 HSSFWorkbook 写出 .xls 文件
+     */
+    private static void writeXls(String pathname) throws IOException {
+        writeWorkbook(new HSSFWorkbook(), pathname, 0);
+    }
+
+    /**
+     * 写出客户数据, 标题行之前保留空行
+     *
+     * @param titleRow 标题行的索引
+     */
+    private static void writeWorkbook(Workbook workbook, String pathname, int titleRow) throws IOException {
+        try {
+            CellStyle ageStyle = workbook.createCellStyle();
+            // 不是内置格式, 写入格式记录
+            ageStyle.setDataFormat(workbook.createDataFormat().getFormat("000"));
+            Sheet sheet = workbook.createSheet("客户表");
+            Row title = sheet.createRow(titleRow);
+            title.createCell(0).setCellValue("姓名");
+            title.createCell(1).setCellValue("手机");
+            title.createCell(2).setCellValue("年龄");
+            for (int i = 0; i < customers.size(); i++) {
+                Customer customer = customers.get(i);
+                Row row = sheet.createRow(titleRow + i + 1);
+                row.createCell(0).setCellValue(customer.getName());
+                row.createCell(1).setCellValue(customer.getMobile());
+                row.createCell(2).setCellValue(customer.getAge());
+                row.getCell(2).setCellStyle(ageStyle);
+            }
+            try (OutputStream os = new FileOutputStream(pathname)) {
+                workbook.write(os);
+            }
+        } finally {
+            workbook.close();
+        }
+    }
+
+    /**
+     * 标题行之前有两个空行, 元数据的行数为最后一行的行号, 从第4行开始解析
+     */
+    private static void assertProbe(String pathname) {
+        ExcelProgress progress = new ExcelProgress();
+        ExcelReader reader = new ExcelReaderBuilder()
+                .payload(Customer.class)
+                .stream(pathname)
+                .start(4)
+                .progress(progress)
+                .build();
+        assertEquals(customers.size() + 3, reader.probe().get(0).getRows());
+        assertEquals(customers, reader.read());
+        // 预计行数 = 最后一行的行号 - 起始行 + 1
+        assertEquals(customers.size(), progress.getEstimatedTotal());
+    }
+
     private static Customer convertCustomer(String line) {
         Customer customer = new Customer();
         String[] items = line.split(",");
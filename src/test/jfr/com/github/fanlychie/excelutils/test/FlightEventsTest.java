@@ -0,0 +1,187 @@
+package com.github.fanlychie.excelutils.test;
+
+import com.github.fanlychie.excelutils.annotation.RowSchema;
+import com.github.fanlychie.excelutils.annotation.RowSchemaBuilder;
+import com.github.fanlychie.excelutils.metrics.FlightEventType;
+import com.github.fanlychie.excelutils.metrics.FlightEvents;
+import com.github.fanlychie.excelutils.read.ExcelReaderBuilder;
+import com.github.fanlychie.excelutils.write.ExcelWriterBuilder;
+import com.github.fanlychie.excelutils.write.PagingQuery;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * 录制 JFR 事件并读取录制文件, 只在 JDK 11+ 的 jfr 构建配置下编译和运行
+ *
+ * @author fanlychie
+ */
+public class FlightEventsTest {
+
+    private static final String PREFIX = "com.github.fanlychie.excelutils.";
+
+    private static String pathname = System.getProperty("user.dir") + "/";
+
+    private static RowSchema schema = new RowSchemaBuilder()
+            .column(0, "name", String.class)
+                .name("姓名")
+                .complete()
+            .column(1, "age", Integer.class)
+                .name("年龄")
+                .complete()
+            .build();
+
+    /**
+     * 解析CSV文件, 产生一个工作表解析事件, 行数为数据行数
+     */
+    @Test
+    public void testSheetRead() throws IOException {
+        writeCsv(pathname + "flight-events.csv", 100);
+        List<RecordedEvent> events = record(true, new Runnable() {
+            @Override
+            public void run() {
+                new ExcelReaderBuilder()
+                        .payload(schema)
+                        .stream(pathname + "flight-events.csv")
+                        .csv()
+                        .start(2)
+                        .build()
+                            .read();
+            }
+        });
+        List<RecordedEvent> sheets = filter(events, "SheetRead");
+        assertEquals(1, sheets.size());
+        assertEquals("CSV", sheets.get(0).getString("sheetName"));
+        assertEquals(100, sheets.get(0).getLong("rows"));
+    }
+
+    /**
+     * 分页写出 .xlsx 文件, 每次分页查询一个事件, 输出文件一个事件, 字节数为文件大小
+     */
+    @Test
+    public void testPagingWrite() throws IOException {
+        final String file = pathname + "flight-events.xlsx";
+        List<RecordedEvent> events = record(true, new Runnable() {
+            @Override
+            public void run() {
+                new ExcelWriterBuilder()
+                        .payload(schema)
+                        .pagingQuery(new PagingQuery() {
+                            @Override
+                            public List queryByPage(int page, int offset, int size) {
+                                // 最后一页不满, 共 3 页
+                                return rows(page < 3 ? size : size / 2);
+                            }
+                        })
+                            .pageSize(10)
+                            .complete()
+                        .build()
+                            .paging()
+                            .toFile(file);
+            }
+        });
+        List<Integer> rows = new ArrayList<>();
+        for (RecordedEvent event : filter(events, "PageQueried")) {
+            rows.add(event.getInt("rows"));
+        }
+        assertEquals(Arrays.asList(10, 10, 5), rows);
+        List<RecordedEvent> files = filter(events, "FileWritten");
+        assertEquals(1, files.size());
+        assertEquals(new File(file).length(), files.get(0).getLong("bytes"));
+    }
+
+    /**
+     * 没有录制或录制时禁用了事件, 开始的事件为空事件, 不产生事件
+     */
+    @Test
+    public void testDisabled() throws IOException {
+        assertFalse(FlightEvents.begin(FlightEventType.SHEET_READ) instanceof Event);
+        writeCsv(pathname + "flight-events.csv", 100);
+        List<RecordedEvent> events = record(false, new Runnable() {
+            @Override
+            public void run() {
+                assertFalse(FlightEvents.begin(FlightEventType.SHEET_READ) instanceof Event);
+                new ExcelReaderBuilder()
+                        .payload(schema)
+                        .stream(pathname + "flight-events.csv")
+                        .csv()
+                        .start(2)
+                        .build()
+                            .read();
+            }
+        });
+        for (RecordedEvent event : events) {
+            assertFalse(event.getEventType().getName(), event.getEventType().getName().startsWith(PREFIX));
+        }
+    }
+
+    /**
+     * 录制执行期间的事件
+     *
+     * @param enabled 是否启用 excelutils 的事件
+     */
+    private static List<RecordedEvent> record(boolean enabled, Runnable action) throws IOException {
+        Path dump = Files.createTempFile("excelutils", ".jfr");
+        try (Recording recording = new Recording()) {
+            // 自定义事件默认启用, 须显式禁用
+            for (String name : Arrays.asList("SheetRead", "PageHandled", "PageQueried", "SheetCreated", "FileWritten")) {
+                if (enabled) {
+                    recording.enable(PREFIX + name);
+                } else {
+                    recording.disable(PREFIX + name);
+                }
+            }
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(dump);
+            return RecordingFile.readAllEvents(dump);
+        } finally {
+            Files.delete(dump);
+        }
+    }
+
+    private static List<RecordedEvent> filter(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> list = new ArrayList<>();
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals(PREFIX + name)) {
+                list.add(event);
+            }
+        }
+        return list;
+    }
+
+    private static List<Object[]> rows(int size) {
+        List<Object[]> rows = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            rows.add(new Object[]{"name" + i, 20 + i});
+        }
+        return rows;
+    }
+
+    private static void writeCsv(String pathname, int size) throws IOException {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(pathname), "UTF-8")) {
+            writer.write("姓名,年龄\n");
+            for (Object[] row : rows(size)) {
+                writer.write(row[0] + "," + row[1] + "\n");
+            }
+        }
+    }
+
+}